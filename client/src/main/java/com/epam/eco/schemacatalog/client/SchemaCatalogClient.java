@@ -20,6 +20,7 @@ import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataUpdateParams;
 import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.LiteSchemaInfo;
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
 import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
 import com.epam.eco.schemacatalog.fts.SearchParams;
 import com.epam.eco.schemacatalog.fts.SearchResult;
@@ -31,6 +32,7 @@ public interface SchemaCatalogClient {
     SchemaRegistryServiceInfo getSchemaRegistryServiceInfo();
     SearchResult<LiteSchemaInfo> searchLite(SearchParams params);
     SearchResult<LiteSchemaInfo> searchLite(JsonSearchQuery query);
+    CursorSearchResult<LiteSchemaInfo> searchLite(SearchParams params, String cursor);
     FullSchemaInfo getFull(String subject, int version);
     void updateMetadata(MetadataUpdateParams params);
     void updateMetadata(MetadataBatchUpdateParams params);
@@ -39,6 +39,7 @@ import com.epam.eco.schemacatalog.domain.metadata.MetadataUpdateParams;
 import com.epam.eco.schemacatalog.domain.rest.request.MetadataRequest;
 import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.LiteSchemaInfo;
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
 import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
 import com.epam.eco.schemacatalog.fts.SearchParams;
 import com.epam.eco.schemacatalog.fts.SearchResult;
@@ -89,6 +90,26 @@ public class SchemaCatalogClientImpl implements SchemaCatalogClient {
         return response.getBody();
     }
 
+    @Override
+    public CursorSearchResult<LiteSchemaInfo> searchLite(SearchParams params, String cursor) {
+        Validate.notNull(params, "Params is null");
+
+        Map<String, Object> uriVariables = new HashMap<>();
+        uriVariables.put("cursor", cursor);
+
+        ResponseEntity<CursorSearchResult<LiteSchemaInfo>> response = restTemplate.exchange(
+                cursor != null ?
+                        "/api/queries/schemas-by-params/cursor?cursor={cursor}" :
+                        "/api/queries/schemas-by-params/cursor",
+                HttpMethod.POST,
+                new HttpEntity<>(params),
+                new ParameterizedTypeReference<CursorSearchResult<LiteSchemaInfo>>() {
+                },
+                uriVariables);
+
+        return response.getBody();
+    }
+
     @Override
     public FullSchemaInfo getFull(String subject, int version) {
         Validate.notBlank(subject, "Subject is blank");
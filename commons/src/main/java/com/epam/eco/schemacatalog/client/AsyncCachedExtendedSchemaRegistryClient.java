@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+/**
+ * Non-blocking client that shares the caches of the given
+ * {@link CachedExtendedSchemaRegistryClient}: lookups are served from its caches when
+ * possible, misses are fetched with {@link HttpClient} (pooled connections, HTTP/2
+ * multiplexing if the registry supports it) and put back into the same caches, so both
+ * clients benefit from each other.
+ * <p>
+ * Concurrent misses of the same entry share a single request. Base URLs are tried in
+ * turn on I/O failures, like {@link io.confluent.kafka.schemaregistry.client.rest.RestService}
+ * does. Authentication (if any) is passed as request headers, SSL is configured on the
+ * given {@link HttpClient}.
+ *
+ * @author Andrei_Tytsik
+ */
+public class AsyncCachedExtendedSchemaRegistryClient implements AsyncExtendedSchemaRegistryClient {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String ACCEPT = "application/vnd.schemaregistry.v1+json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final CachedExtendedSchemaRegistryClient cachedClient;
+    private final List<URI> baseUrls;
+    private final HttpClient httpClient;
+    private final Map<String, String> requestHeaders;
+    private final Duration requestTimeout;
+
+    private final AtomicInteger baseUrlIndex = new AtomicInteger();
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public AsyncCachedExtendedSchemaRegistryClient(CachedExtendedSchemaRegistryClient cachedClient) {
+        this(
+                cachedClient,
+                HttpClient.newBuilder().
+                        version(HttpClient.Version.HTTP_2).
+                        connectTimeout(DEFAULT_CONNECT_TIMEOUT).
+                        build(),
+                null,
+                DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param cachedClient client whose caches are shared
+     * @param httpClient transport
+     * @param requestHeaders headers added to each request (e.g. Authorization), might be null
+     * @param requestTimeout timeout of each request
+     */
+    public AsyncCachedExtendedSchemaRegistryClient(
+            CachedExtendedSchemaRegistryClient cachedClient,
+            HttpClient httpClient,
+            Map<String, String> requestHeaders,
+            Duration requestTimeout) {
+        Validate.notNull(cachedClient, "Cached client is null");
+        Validate.notNull(httpClient, "HTTP client is null");
+        Validate.notNull(requestTimeout, "Request timeout is null");
+
+        this.cachedClient = cachedClient;
+        this.baseUrls = toUris(cachedClient.getServiceInfo().getBaseUrls());
+        this.httpClient = httpClient;
+        this.requestHeaders =
+                requestHeaders != null ?
+                        Collections.unmodifiableMap(new HashMap<>(requestHeaders)) :
+                        Collections.emptyMap();
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public CompletableFuture<ParsedSchema> getSchemaById(int id) {
+        Validate.isTrue(id >= 0, "Id is negative");
+
+        ParsedSchema schema = cachedClient.getCachedSchemaById(id);
+        if (schema != null) {
+            return CompletableFuture.completedFuture(schema);
+        }
+
+        return coalesce(
+                List.of("schemaById", id),
+                () -> get("/schemas/ids/" + id).
+                        thenApply(json -> cachedClient.cacheSchemaById(id, json.get("schema").asText())));
+    }
+
+    @Override
+    public CompletableFuture<Collection<String>> getAllSubjects() {
+        return coalesce(
+                List.of("subjects"),
+                () -> get("/subjects").thenApply(json -> {
+                    List<String> subjects = new ArrayList<>(json.size());
+                    json.forEach(subject -> subjects.add(subject.asText()));
+                    return subjects;
+                }));
+    }
+
+    @Override
+    public CompletableFuture<List<Integer>> getAllVersions(String subject) {
+        Validate.notBlank(subject, "Subject is blank");
+
+        return coalesce(
+                List.of("versions", subject),
+                () -> get(subjectPath(subject) + "/versions").
+                        thenApply(AsyncCachedExtendedSchemaRegistryClient::toVersions));
+    }
+
+    @Override
+    public CompletableFuture<BasicSchemaInfo> getSchemaInfo(String subject, int version) {
+        Validate.notBlank(subject, "Subject is blank");
+        Validate.isTrue(version >= 0, "Version is invalid");
+
+        BasicSchemaInfo schemaInfo = cachedClient.getCachedSchemaInfo(subject, version);
+        if (schemaInfo != null) {
+            return CompletableFuture.completedFuture(schemaInfo);
+        }
+
+        return coalesce(
+                List.of("schemaInfo", subject, version),
+                () -> getSchemaInfoFromRegistry(subject, Integer.toString(version)));
+    }
+
+    @Override
+    public CompletableFuture<BasicSchemaInfo> getLatestSchemaInfo(String subject) {
+        Validate.notBlank(subject, "Subject is blank");
+
+        return coalesce(
+                List.of("latestSchemaInfo", subject),
+                () -> getSchemaInfoFromRegistry(subject, "latest"));
+    }
+
+    @Override
+    public CompletableFuture<SubjectSchemas<BasicSchemaInfo>> getSubjectSchemaInfos(String subject) {
+        Validate.notBlank(subject, "Subject is blank");
+
+        return getAllVersions(subject).thenCompose(versions -> {
+            List<CompletableFuture<BasicSchemaInfo>> futures = new ArrayList<>(versions.size());
+            versions.forEach(version -> futures.add(getSchemaInfo(subject, version)));
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).
+                    thenApply(ignored -> {
+                        List<BasicSchemaInfo> schemaInfos = new ArrayList<>(futures.size());
+                        futures.forEach(future -> schemaInfos.add(future.join()));
+                        return SubjectSchemas.with(schemaInfos);
+                    });
+        });
+    }
+
+    /**
+     * Returns the number of requests to the registry currently in flight.
+     */
+    public int getInFlightRequestCount() {
+        return inFlight.size();
+    }
+
+    private CompletableFuture<BasicSchemaInfo> getSchemaInfoFromRegistry(String subject, String version) {
+        return get(subjectPath(subject) + "/versions/" + version).
+                thenApply(json -> cachedClient.cacheSchemaInfo(
+                        subject,
+                        new SchemaMetadata(
+                                json.get("id").asInt(),
+                                json.get("version").asInt(),
+                                json.get("schema").asText())));
+    }
+
+    /**
+     * Returns the in-flight request for the key if there is one, executes the request
+     * otherwise. Each caller gets its own copy of the future, so completing (or
+     * cancelling) it doesn't affect the others.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> coalesce(List<Object> key, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return (CompletableFuture<T>) existing.copy();
+        }
+
+        CompletableFuture<T> requestFuture;
+        try {
+            requestFuture = request.get();
+        } catch (RuntimeException ex) {
+            requestFuture = CompletableFuture.failedFuture(ex);
+        }
+        requestFuture.whenComplete((result, throwable) -> {
+            inFlight.remove(key, future);
+            if (throwable != null) {
+                future.completeExceptionally(unwrap(throwable));
+            } else {
+                future.complete(result);
+            }
+        });
+        return (CompletableFuture<T>) future.copy();
+    }
+
+    private CompletableFuture<JsonNode> get(String path) {
+        int startIndex = Math.floorMod(baseUrlIndex.get(), baseUrls.size());
+        return get(path, startIndex, 0);
+    }
+
+    private CompletableFuture<JsonNode> get(String path, int index, int attempt) {
+        URI baseUrl = baseUrls.get((index + attempt) % baseUrls.size());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUrl.resolve(baseUrl.getPath() + path)).
+                timeout(requestTimeout).
+                header("Accept", ACCEPT).
+                GET();
+        requestHeaders.forEach(builder::header);
+
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray()).
+                handle((response, throwable) -> {
+                    if (throwable == null) {
+                        return CompletableFuture.completedFuture(parseResponse(response));
+                    }
+                    Throwable cause = unwrap(throwable);
+                    if (cause instanceof IOException && attempt + 1 < baseUrls.size()) {
+                        baseUrlIndex.set((index + attempt + 1) % baseUrls.size());
+                        return get(path, index, attempt + 1);
+                    }
+                    return CompletableFuture.<JsonNode>failedFuture(cause);
+                }).
+                thenCompose(Function.identity());
+    }
+
+    private static JsonNode parseResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 == 2) {
+            try {
+                return MAPPER.readTree(response.body());
+            } catch (IOException ioe) {
+                throw new CompletionException(ioe);
+            }
+        }
+
+        JsonNode json = readTreeQuietly(response.body());
+        int errorCode = json != null && json.hasNonNull("error_code") ?
+                json.get("error_code").asInt() :
+                response.statusCode();
+        String message = json != null && json.hasNonNull("message") ?
+                json.get("message").asText() :
+                "Request to " + response.uri() + " failed";
+        throw new CompletionException(new RestClientException(message, response.statusCode(), errorCode));
+    }
+
+    private static JsonNode readTreeQuietly(byte[] body) {
+        try {
+            return MAPPER.readTree(body);
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    private static List<Integer> toVersions(JsonNode json) {
+        List<Integer> versions = new ArrayList<>(json.size());
+        json.forEach(version -> versions.add(version.asInt()));
+        return versions;
+    }
+
+    private static String subjectPath(String subject) {
+        return "/subjects/" + ExtendedRestService.encodeSubjectAsPathSegment(subject);
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() :
+                throwable;
+    }
+
+    private static List<URI> toUris(List<String> baseUrls) {
+        List<URI> uris = new ArrayList<>(baseUrls.size());
+        for (String baseUrl : baseUrls) {
+            uris.add(URI.create(baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl));
+        }
+        return Collections.unmodifiableList(uris);
+    }
+
+}
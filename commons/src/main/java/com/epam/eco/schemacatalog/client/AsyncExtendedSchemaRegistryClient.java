@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+
+/**
+ * Non-blocking counterpart of the read operations of {@link ExtendedSchemaRegistryClient}.
+ * Failures (e.g. {@link io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException})
+ * complete the returned futures exceptionally.
+ *
+ * @author Andrei_Tytsik
+ */
+public interface AsyncExtendedSchemaRegistryClient {
+
+    CompletableFuture<ParsedSchema> getSchemaById(int id);
+
+    CompletableFuture<Collection<String>> getAllSubjects();
+
+    CompletableFuture<List<Integer>> getAllVersions(String subject);
+
+    CompletableFuture<BasicSchemaInfo> getSchemaInfo(String subject, int version);
+
+    CompletableFuture<BasicSchemaInfo> getLatestSchemaInfo(String subject);
+
+    CompletableFuture<SubjectSchemas<BasicSchemaInfo>> getSubjectSchemaInfos(String subject);
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+/**
+ * Receives progress of a cache warm-up.
+ *
+ * @author Andrei_Tytsik
+ */
+@FunctionalInterface
+public interface CacheWarmUpListener {
+
+    /**
+     * Called each time a subject is processed (or once for all subjects, if schemas
+     * are fetched in a single request). Might be called from multiple threads.
+     */
+    void onProgress(int processedSubjectCount, int totalSubjectCount, int cachedSchemaCount);
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Outcome of a cache warm-up.
+ *
+ * @author Andrei_Tytsik
+ */
+public final class CacheWarmUpResult {
+
+    private final int subjectCount;
+    private final int schemaCount;
+    private final List<String> failedSubjects;
+    private final boolean batched;
+    private final Duration elapsed;
+
+    public CacheWarmUpResult(
+            int subjectCount,
+            int schemaCount,
+            Collection<String> failedSubjects,
+            boolean batched,
+            Duration elapsed) {
+        Validate.isTrue(subjectCount >= 0, "Subject count is invalid");
+        Validate.isTrue(schemaCount >= 0, "Schema count is invalid");
+        Validate.notNull(failedSubjects, "Collection of failed subjects is null");
+        Validate.notNull(elapsed, "Elapsed duration is null");
+
+        this.subjectCount = subjectCount;
+        this.schemaCount = schemaCount;
+        this.failedSubjects = Collections.unmodifiableList(new ArrayList<>(failedSubjects));
+        this.batched = batched;
+        this.elapsed = elapsed;
+    }
+
+    public int getSubjectCount() {
+        return subjectCount;
+    }
+    public int getSchemaCount() {
+        return schemaCount;
+    }
+    public List<String> getFailedSubjects() {
+        return failedSubjects;
+    }
+    /**
+     * Whether schemas were fetched in a single request rather than subject by subject.
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return
+                "{subjectCount: " + subjectCount +
+                ", schemaCount: " + schemaCount +
+                ", failedSubjects: " + failedSubjects +
+                ", batched: " + batched +
+                ", elapsed: " + elapsed +
+                "}";
+    }
+
+}
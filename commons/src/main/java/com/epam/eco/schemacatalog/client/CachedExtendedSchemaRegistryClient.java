@@ -16,19 +16,30 @@
 package com.epam.eco.schemacatalog.client;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.apache.avro.Schema;
 import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.epam.eco.commons.avro.modification.CachedSchemaModifications;
 import com.epam.eco.commons.avro.modification.SchemaModification;
@@ -51,14 +62,24 @@ import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientExcept
  */
 public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryClient implements ExtendedSchemaRegistryClient {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedExtendedSchemaRegistryClient.class);
+
     private static final int DEFAULT_IDENTITY_MAP_CAPACITY = 10000;
 
+    public static final int DEFAULT_WARM_UP_PARALLELISM = 8;
+
     private final SchemaRegistryServiceInfo schemaRegistryServiceInfo;
 
-    private final Map<SubjectAndVersion, BasicSchemaInfo> schemaCache = new ConcurrentHashMap<>();
+    public static final String SCHEMA_INFO_CACHE_NAME = "schemaInfo";
+    public static final String WRITABLE_SCHEMA_CACHE_NAME = "writableSchema";
+    public static final String WRITABLE_VERSION_CACHE_NAME = "writableVersion";
+
+    private final Map<SubjectAndVersion, BasicSchemaInfo> schemaCache;
     private final Set<String> subjectCache = ConcurrentHashMap.newKeySet();
-    private final Map<SubjectAndSchema, Boolean> writableSchemaCache = new ConcurrentHashMap<>();
-    private final Map<SubjectAndVersion, Boolean> writableVersionCache = new ConcurrentHashMap<>();
+    private final Map<SubjectAndSchema, Boolean> writableSchemaCache;
+    private final Map<SubjectAndVersion, Boolean> writableVersionCache;
+
+    private volatile ExecutorService warmUpExecutor;
 
     /**
      * @param baseUrls list of schema registry cluster urls
@@ -81,8 +102,26 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
      * @param configs config map for RestService
      */
     public CachedExtendedSchemaRegistryClient(List<String> baseUrls, int identityMapCapacity, Map<String, ?> configs) {
-        super(new ExtendedRestService(baseUrls), identityMapCapacity, configs);
-        this.schemaRegistryServiceInfo = SchemaRegistryServiceInfo.with(baseUrls);
+        this(baseUrls, identityMapCapacity, configs, SchemaRegistryClientCacheConfig.DEFAULT);
+    }
+
+    /**
+     * @param baseUrls list of schema registry cluster urls
+     * @param identityMapCapacity cache capacity
+     * @param configs config map for RestService
+     * @param cacheConfig bounds of the client caches
+     */
+    public CachedExtendedSchemaRegistryClient(
+            List<String> baseUrls,
+            int identityMapCapacity,
+            Map<String, ?> configs,
+            SchemaRegistryClientCacheConfig cacheConfig) {
+        this(
+                new ExtendedRestService(baseUrls),
+                SchemaRegistryServiceInfo.with(baseUrls),
+                identityMapCapacity,
+                configs,
+                cacheConfig);
     }
 
     /**
@@ -106,8 +145,34 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
      * @param configs config map for RestService
      */
     public CachedExtendedSchemaRegistryClient(String baseUrl, int identityMapCapacity, Map<String, ?> configs) {
-        super(new ExtendedRestService(baseUrl), identityMapCapacity, configs);
-        this.schemaRegistryServiceInfo = SchemaRegistryServiceInfo.with(baseUrl);
+        this(baseUrl, identityMapCapacity, configs, SchemaRegistryClientCacheConfig.DEFAULT);
+    }
+
+    /**
+     * @param baseUrl comma-separated list of schema registry cluster urls, could contain singular url
+     * @param cacheConfig bounds of the client caches
+     */
+    public CachedExtendedSchemaRegistryClient(String baseUrl, SchemaRegistryClientCacheConfig cacheConfig) {
+        this(baseUrl, DEFAULT_IDENTITY_MAP_CAPACITY, Collections.emptyMap(), cacheConfig);
+    }
+
+    /**
+     * @param baseUrl comma-separated list of schema registry cluster urls, could contain singular url
+     * @param identityMapCapacity cache capacity
+     * @param configs config map for RestService
+     * @param cacheConfig bounds of the client caches
+     */
+    public CachedExtendedSchemaRegistryClient(
+            String baseUrl,
+            int identityMapCapacity,
+            Map<String, ?> configs,
+            SchemaRegistryClientCacheConfig cacheConfig) {
+        this(
+                new ExtendedRestService(baseUrl),
+                SchemaRegistryServiceInfo.with(baseUrl),
+                identityMapCapacity,
+                configs,
+                cacheConfig);
     }
 
     /**
@@ -123,10 +188,44 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
     public CachedExtendedSchemaRegistryClient(
             RestService restService,
             int identityMapCapacity) {
-        super(new ExtendedRestService(restService), identityMapCapacity);
+        this(restService, identityMapCapacity, SchemaRegistryClientCacheConfig.DEFAULT);
+    }
+
+    /**
+     * @param restService fully configured RestService
+     * @param cacheConfig bounds of the client caches
+     */
+    public CachedExtendedSchemaRegistryClient(
+            RestService restService,
+            int identityMapCapacity,
+            SchemaRegistryClientCacheConfig cacheConfig) {
+        this(
+                new ExtendedRestService(restService),
+                SchemaRegistryServiceInfo.with(UrlListExtractor.extract(restService.getBaseUrls())),
+                identityMapCapacity,
+                null,
+                cacheConfig);
+    }
+
+    private CachedExtendedSchemaRegistryClient(
+            ExtendedRestService restService,
+            SchemaRegistryServiceInfo schemaRegistryServiceInfo,
+            int identityMapCapacity,
+            Map<String, ?> configs,
+            SchemaRegistryClientCacheConfig cacheConfig) {
+        super(restService, identityMapCapacity, configs, cacheConfig);
 
-        this.schemaRegistryServiceInfo = SchemaRegistryServiceInfo.with(
-                UrlListExtractor.extract(restService.getBaseUrls()));
+        this.schemaRegistryServiceInfo = schemaRegistryServiceInfo;
+        this.schemaCache = registerCache(
+                SCHEMA_INFO_CACHE_NAME,
+                cacheConfig.<SubjectAndVersion, BasicSchemaInfo>buildSchemaCache(
+                        schemaInfo -> schemaInfo.getSchemaJson().length())).asMap();
+        this.writableSchemaCache = registerCache(
+                WRITABLE_SCHEMA_CACHE_NAME,
+                cacheConfig.<SubjectAndSchema, Boolean>buildCache()).asMap();
+        this.writableVersionCache = registerCache(
+                WRITABLE_VERSION_CACHE_NAME,
+                cacheConfig.<SubjectAndVersion, Boolean>buildCache()).asMap();
     }
 
     @Override
@@ -245,6 +344,93 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
         return SubjectSchemas.with(schemaInfos);
     }
 
+    /**
+     * Populates the caches with all schemas of subjects starting with the prefix, see
+     * {@link #warmUp(String, int, CacheWarmUpListener)}.
+     */
+    public CacheWarmUpResult warmUp(String subjectPrefix) {
+        return warmUp(subjectPrefix, DEFAULT_WARM_UP_PARALLELISM, null);
+    }
+
+    /**
+     * Populates the caches with all schemas of subjects starting with the prefix. Schemas
+     * are fetched in a single request, or subject by subject (with the given parallelism)
+     * if the registry doesn't support fetching schemas in bulk. Any other error of the
+     * bulk request is rethrown.
+     */
+    public CacheWarmUpResult warmUp(
+            String subjectPrefix,
+            int parallelism,
+            CacheWarmUpListener listener) {
+        Validate.notNull(subjectPrefix, "Subject prefix is null");
+        Validate.isTrue(parallelism > 0, "Parallelism is invalid");
+
+        long startNanos = System.nanoTime();
+
+        List<io.confluent.kafka.schemaregistry.client.rest.entities.Schema> entities;
+        try {
+            entities = getSchemaEntitiesFromRegistry(subjectPrefix, false, false);
+        } catch (RestClientException rce) {
+            if (!isUnsupportedEndpointError(rce)) {
+                throw new RuntimeException(rce);
+            }
+            LOGGER.info(
+                    "Fetching schemas in bulk isn't supported ({}), warming up caches subject by subject",
+                    rce.getMessage());
+            return warmUpSubjects(getAllSubjectsByPrefixUnchecked(subjectPrefix), parallelism, listener, startNanos);
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+
+        Set<String> subjects = new HashSet<>();
+        int schemaCount = 0;
+        for (io.confluent.kafka.schemaregistry.client.rest.entities.Schema entity : entities) {
+            if (entity.getSchemaType() != null && !AvroSchema.TYPE.equals(entity.getSchemaType())) {
+                continue;
+            }
+            cacheSchemaInfo(
+                    entity.getSubject(),
+                    new SchemaMetadata(entity.getId(), entity.getVersion(), entity.getSchema()));
+            subjects.add(entity.getSubject());
+            schemaCount++;
+        }
+
+        if (listener != null) {
+            listener.onProgress(subjects.size(), subjects.size(), schemaCount);
+        }
+
+        return new CacheWarmUpResult(
+                subjects.size(),
+                schemaCount,
+                Collections.emptyList(),
+                true,
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Populates the caches with all schemas of the subjects, see
+     * {@link #warmUp(Collection, int, CacheWarmUpListener)}.
+     */
+    public CacheWarmUpResult warmUp(Collection<String> subjects) {
+        return warmUp(subjects, DEFAULT_WARM_UP_PARALLELISM, null);
+    }
+
+    /**
+     * Populates the caches with all schemas of the subjects. Subjects are processed
+     * concurrently, at most {@code parallelism} at a time. Subjects that fail are
+     * reported in the result, they don't abort the warm-up.
+     */
+    public CacheWarmUpResult warmUp(
+            Collection<String> subjects,
+            int parallelism,
+            CacheWarmUpListener listener) {
+        Validate.notNull(subjects, "Collection of subjects is null");
+        Validate.noNullElements(subjects, "Collection of subjects contains null elements");
+        Validate.isTrue(parallelism > 0, "Parallelism is invalid");
+
+        return warmUpSubjects(subjects, parallelism, listener, System.nanoTime());
+    }
+
     @Override
     public BasicSchemaInfo modifyAndRegisterSchema(
             String sourceSubject,
@@ -566,6 +752,109 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
         }
     }
 
+    private CacheWarmUpResult warmUpSubjects(
+            Collection<String> subjects,
+            int parallelism,
+            CacheWarmUpListener listener,
+            long startNanos) {
+        List<String> distinctSubjects = new ArrayList<>(new LinkedHashSet<>(subjects));
+        AtomicInteger nextSubjectIndex = new AtomicInteger();
+        AtomicInteger processedSubjectCount = new AtomicInteger();
+        AtomicInteger schemaCount = new AtomicInteger();
+        List<String> failedSubjects = Collections.synchronizedList(new ArrayList<>());
+
+        if (!distinctSubjects.isEmpty()) {
+            // workers take subjects one by one, so at most "parallelism" of them are in progress
+            Callable<Void> worker = () -> {
+                int index;
+                while (
+                        !Thread.currentThread().isInterrupted() &&
+                        (index = nextSubjectIndex.getAndIncrement()) < distinctSubjects.size()) {
+                    String subject = distinctSubjects.get(index);
+                    try {
+                        schemaCount.addAndGet(warmUpSubject(subject));
+                    } catch (RuntimeException ex) {
+                        failedSubjects.add(subject);
+                    }
+                    int processed = processedSubjectCount.incrementAndGet();
+                    if (listener != null) {
+                        listener.onProgress(processed, distinctSubjects.size(), schemaCount.get());
+                    }
+                }
+                return null;
+            };
+
+            try {
+                for (Future<Void> future : getWarmUpExecutor().invokeAll(
+                        Collections.nCopies(Math.min(parallelism, distinctSubjects.size()), worker))) {
+                    future.get();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while warming up caches", ie);
+            } catch (ExecutionException ee) {
+                throw new RuntimeException(ee.getCause());
+            }
+        }
+
+        return new CacheWarmUpResult(
+                distinctSubjects.size(),
+                schemaCount.get(),
+                failedSubjects,
+                false,
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Warm-up threads are shared by all warm-ups of the client. The pool grows up to the
+     * largest parallelism requested at a time, idle threads are reclaimed after a minute.
+     */
+    private ExecutorService getWarmUpExecutor() {
+        ExecutorService executor = warmUpExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = warmUpExecutor;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "schema-registry-client-warm-up");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    warmUpExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private int warmUpSubject(String subject) {
+        List<Integer> versions = getAllVersionsUnchecked(subject);
+        versions.forEach(version -> getCachedSchemaInfoOrRefresh(subject, version, null));
+        subjectCache.add(subject);
+        return versions.size();
+    }
+
+    BasicSchemaInfo getCachedSchemaInfo(String subject, int version) {
+        return schemaCache.get(SubjectAndVersion.with(subject, version));
+    }
+
+    BasicSchemaInfo cacheSchemaInfo(String subject, SchemaMetadata schemaMetadata) {
+        cacheSchema(subject, schemaMetadata.getVersion(), schemaMetadata.getId(), schemaMetadata.getSchema());
+
+        BasicSchemaInfo schemaInfo = toSchemaInfo(subject, schemaMetadata);
+        schemaCache.put(SubjectAndVersion.of(schemaInfo), schemaInfo);
+        subjectCache.add(subject);
+        return schemaInfo;
+    }
+
+    private Collection<String> getAllSubjectsByPrefixUnchecked(String subjectPrefix) {
+        try {
+            return getAllSubjectsByPrefix(subjectPrefix);
+        } catch (IOException | RestClientException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     private Set<String> getAllCachedSubjectsOrRefreshUnchecked(boolean forceRefresh) {
         try {
             if (forceRefresh) {
@@ -709,6 +998,10 @@ public class CachedExtendedSchemaRegistryClient extends EcoCachedSchemaRegistryC
         }
     }
 
+    private boolean isUnsupportedEndpointError(RestClientException rce) {
+        return rce.getStatus() == 404 || rce.getStatus() == 405;
+    }
+
     private boolean isNotFoundError(RestClientException rce) {
         /*
          * See io.confluent.kafka.schemaregistry.rest.exceptions.Errors
@@ -19,12 +19,14 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import javax.net.ssl.HostnameVerifier;
 
@@ -32,6 +34,11 @@ import org.apache.avro.Schema;
 import org.apache.commons.lang3.Validate;
 import org.apache.kafka.common.config.SslConfigs;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import com.epam.eco.schemacatalog.utils.ParsedSchemaPool;
+
 import io.confluent.kafka.schemaregistry.CompatibilityLevel;
 import io.confluent.kafka.schemaregistry.ParsedSchema;
 import io.confluent.kafka.schemaregistry.SchemaProvider;
@@ -55,6 +62,10 @@ import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientExcept
 import io.confluent.kafka.schemaregistry.client.security.SslFactory;
 
 /**
+ * Caching client. Cache misses of concurrent lookups for the same key are coalesced into
+ * a single request to the registry, the subject cache is locked only to read and update
+ * it, never across the request, so hits don't wait for misses.
+ *
  * @author Andrei_Tytsik
  */
 public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
@@ -62,8 +73,13 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
     public static final Map<String, String> DEFAULT_REQUEST_PROPERTIES
             = Map.of("Content-Type", Versions.SCHEMA_REGISTRY_V1_JSON_WEIGHTED);
 
-    private final Map<Integer, ParsedSchema> idToSchemaCache = new ConcurrentHashMap<>();
-    private final Map<String, SubjectCache> subjectToSubjectCache = new ConcurrentHashMap<>();
+    public static final String ID_TO_SCHEMA_CACHE_NAME = "idToSchema";
+    public static final String SUBJECT_CACHE_NAME = "subject";
+
+    private final Cache<Integer, ParsedSchema> idToSchemaCache;
+    private final Cache<String, SubjectCache> subjectToSubjectCache;
+    private final Map<String, Cache<?, ?>> caches = new LinkedHashMap<>();
+    private final SingleFlight<List<Object>> singleFlight = new SingleFlight<>();
 
     private final int maxSchemasPerSubject;
 
@@ -138,15 +154,44 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
                 configs);
     }
 
+    public EcoCachedSchemaRegistryClient(
+            RestService restService,
+            int maxSchemasPerSubject,
+            Map<String, ?> configs,
+            SchemaRegistryClientCacheConfig cacheConfig) {
+        this(
+                Collections.singletonMap("AVRO", new AvroSchemaProvider()),
+                restService,
+                maxSchemasPerSubject,
+                configs,
+                cacheConfig);
+    }
+
     public EcoCachedSchemaRegistryClient(
             Map<String, SchemaProvider> providers,
             RestService restService,
             int maxSchemasPerSubject,
             Map<String, ?> configs) {
+        this(providers, restService, maxSchemasPerSubject, configs, SchemaRegistryClientCacheConfig.DEFAULT);
+    }
+
+    public EcoCachedSchemaRegistryClient(
+            Map<String, SchemaProvider> providers,
+            RestService restService,
+            int maxSchemasPerSubject,
+            Map<String, ?> configs,
+            SchemaRegistryClientCacheConfig cacheConfig) {
         Validate.notNull(restService, "RestService is null");
         Validate.isTrue(maxSchemasPerSubject > 0, "MaxSchemasPerSubject is negative or zero");
+        Validate.notNull(cacheConfig, "Cache config is null");
 
         this.maxSchemasPerSubject = maxSchemasPerSubject;
+        this.idToSchemaCache = registerCache(
+                ID_TO_SCHEMA_CACHE_NAME,
+                cacheConfig.<Integer, ParsedSchema>buildSchemaCache(schema -> schema.canonicalString().length()));
+        this.subjectToSubjectCache = registerCache(
+                SUBJECT_CACHE_NAME,
+                cacheConfig.<String, SubjectCache>buildCache());
         this.restService =
                 restService instanceof ExtendedRestService ?
                         restService :
@@ -275,6 +320,7 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         Validate.notNull(schema, "Schema is null");
 
         SubjectCache subjectCache = getSubjectCache(subject);
+        long generation;
         subjectCache.lock();
         try {
             RegisterSchemaResponse cachedResponse = subjectCache.getRegisterSchemaBySchema(schema);
@@ -285,22 +331,30 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
                 }
                 return cachedResponse;
             }
-
-            RegisterSchemaResponse retrievedResponse =
-                    id >= 0 ?
-                            registerAndGetResponse(subject, schema, version, id, normalize) :
-                            registerAndGetResponse(subject, schema, normalize);
-
-            if (id < 0) {
-                //newly registered schema
-                idToSchemaCache.put(retrievedResponse.getId(), schema);
-            }
-
-            subjectCache.addSchemaWithRegisterResponse(schema, retrievedResponse);
-            return retrievedResponse;
+            generation = subjectCache.getGeneration();
         } finally {
             subjectCache.unlock();
         }
+
+        return singleFlight.execute(
+                List.of("register", subject, schema, version, id, normalize),
+                () -> {
+                    RegisterSchemaResponse retrievedResponse =
+                            id >= 0 ?
+                                    registerAndGetResponse(subject, schema, version, id, normalize) :
+                                    registerAndGetResponse(subject, schema, normalize);
+
+                    if (id < 0) {
+                        //newly registered schema
+                        idToSchemaCache.put(retrievedResponse.getId(), schema);
+                    }
+
+                    updateSubjectCache(
+                            subjectCache,
+                            generation,
+                            cache -> cache.addSchemaWithRegisterResponse(schema, retrievedResponse));
+                    return retrievedResponse;
+                });
     }
 
     @Deprecated
@@ -337,19 +391,25 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         }
 
         SubjectCache subjectCache = getSubjectCache(subject);
+        long generation;
         subjectCache.lock();
         try {
             ParsedSchema schema = subjectCache.getSchemaById(id);
             if (schema != null) {
                 return schema;
             }
-
-            schema = getSchemaByIdFromRegistry(id);
-            subjectCache.addSchemaWithId(schema, id);
-            return schema;
+            generation = subjectCache.getGeneration();
         } finally {
             subjectCache.unlock();
         }
+
+        return singleFlight.execute(
+                List.of("schemaBySubjectAndId", subject, id),
+                () -> {
+                    ParsedSchema schema = getSchemaByIdFromRegistry(id);
+                    updateSubjectCache(subjectCache, generation, cache -> cache.addSchemaWithId(schema, id));
+                    return schema;
+                });
     }
 
     @Override
@@ -418,23 +478,28 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         Validate.notNull(schema, "Schema is null");
 
         SubjectCache subjectCache = getSubjectCache(subject);
+        long generation;
         subjectCache.lock();
         try {
             Integer version = subjectCache.getVersionBySchema(schema);
             if (version != null) {
                 return version;
             }
-
-
-            io.confluent.kafka.schemaregistry.client.rest.entities.Schema schemaFromRegistry =
-                    getSchemaFromRegistry(subject, schema);
-            idToSchemaCache.putIfAbsent(schemaFromRegistry.getId(), schema);
-            version = schemaFromRegistry.getVersion();
-            subjectCache.addSchemaWithVersion(schema, version);
-            return version;
+            generation = subjectCache.getGeneration();
         } finally {
             subjectCache.unlock();
         }
+
+        return singleFlight.execute(
+                List.of("version", subject, schema),
+                () -> {
+                    io.confluent.kafka.schemaregistry.client.rest.entities.Schema schemaFromRegistry =
+                            getSchemaFromRegistry(subject, schema);
+                    idToSchemaCache.asMap().putIfAbsent(schemaFromRegistry.getId(), schema);
+                    int version = schemaFromRegistry.getVersion();
+                    updateSubjectCache(subjectCache, generation, cache -> cache.addSchemaWithVersion(schema, version));
+                    return version;
+                });
     }
 
     @Override
@@ -520,22 +585,28 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         Validate.notNull(schema, "Schema is null");
 
         SubjectCache subjectCache = getSubjectCache(subject);
+        long generation;
         subjectCache.lock();
         try {
             Integer id = subjectCache.getIdBySchema(schema);
             if (id != null) {
                 return id;
             }
-
-            io.confluent.kafka.schemaregistry.client.rest.entities.Schema schemaFromRegistry
-                    = getSchemaFromRegistry(subject, schema);
-            id = schemaFromRegistry.getId();
-            idToSchemaCache.putIfAbsent(id, schema);
-            subjectCache.addSchemaWithId(schema, id);
-            return id;
+            generation = subjectCache.getGeneration();
         } finally {
             subjectCache.unlock();
         }
+
+        return singleFlight.execute(
+                List.of("id", subject, schema),
+                () -> {
+                    io.confluent.kafka.schemaregistry.client.rest.entities.Schema schemaFromRegistry
+                            = getSchemaFromRegistry(subject, schema);
+                    int id = schemaFromRegistry.getId();
+                    idToSchemaCache.asMap().putIfAbsent(id, schema);
+                    updateSubjectCache(subjectCache, generation, cache -> cache.addSchemaWithId(schema, id));
+                    return id;
+                });
     }
 
     @Override
@@ -651,8 +722,111 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
 
     @Override
     public void reset() {
-        idToSchemaCache.clear();
-        subjectToSubjectCache.clear();
+        idToSchemaCache.invalidateAll();
+        subjectToSubjectCache.invalidateAll();
+    }
+
+    /**
+     * Returns names of the caches kept by the client.
+     */
+    public Set<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Returns statistics (hits, misses, evictions, load time) of the cache.
+     */
+    public CacheStats getCacheStats(String cacheName) {
+        Cache<?, ?> cache = caches.get(cacheName);
+        Validate.notNull(cache, "Cache '%s' doesn't exist", cacheName);
+
+        return cache.stats();
+    }
+
+    /**
+     * Registers the cache, so its statistics are exposed.
+     */
+    protected final <K, V> Cache<K, V> registerCache(String cacheName, Cache<K, V> cache) {
+        Validate.notBlank(cacheName, "Cache name is blank");
+        Validate.notNull(cache, "Cache is null");
+        Validate.isTrue(!caches.containsKey(cacheName), "Cache '%s' already exists", cacheName);
+
+        caches.put(cacheName, cache);
+        return cache;
+    }
+
+    /**
+     * Fetches schemas (along with their subjects, versions and ids) in a single request.
+     */
+    protected List<io.confluent.kafka.schemaregistry.client.rest.entities.Schema> getSchemaEntitiesFromRegistry(
+            String subjectPrefix,
+            boolean lookupDeletedSchema,
+            boolean latestOnly) throws IOException, RestClientException {
+        return restService.getSchemas(subjectPrefix, lookupDeletedSchema, latestOnly);
+    }
+
+    /**
+     * Puts the Avro schema known by its subject, version and id into the caches.
+     */
+    protected ParsedSchema cacheSchema(String subject, int version, int id, String schemaJson) {
+        Validate.notBlank(subject, "Subject is blank");
+        Validate.notBlank(schemaJson, "Schema (JSON) is blank");
+
+        ParsedSchema schema = ParsedSchemaPool.getDefault().intern(schemaJson);
+        idToSchemaCache.asMap().putIfAbsent(id, schema);
+
+        SubjectCache subjectCache = getSubjectCache(subject);
+        subjectCache.lock();
+        try {
+            subjectCache.addSchemaWithId(schema, id);
+            subjectCache.addSchemaWithVersion(schema, version);
+        } finally {
+            subjectCache.unlock();
+        }
+        return schema;
+    }
+
+    ParsedSchema getCachedSchemaById(int id) {
+        return idToSchemaCache.getIfPresent(id);
+    }
+
+    ParsedSchema cacheSchemaById(int id, String schemaJson) {
+        ParsedSchema schema = ParsedSchemaPool.getDefault().intern(schemaJson);
+        ParsedSchema existing = idToSchemaCache.asMap().putIfAbsent(id, schema);
+        return existing != null ? existing : schema;
+    }
+
+    /**
+     * Returns the number of requests to the registry currently in flight.
+     */
+    public int getInFlightRequestCount() {
+        return singleFlight.getInFlightCount();
+    }
+
+    /**
+     * Returns the number of cache misses that didn't issue their own request to the
+     * registry, but waited for the same request already in flight.
+     */
+    public long getCoalescedRequestCount() {
+        return singleFlight.getCoalescedCount();
+    }
+
+    /**
+     * Updates the subject cache unless it was cleared (or had schemas removed) since the
+     * request started, so a stale result isn't cached.
+     */
+    private void updateSubjectCache(
+            SubjectCache subjectCache,
+            long generation,
+            Consumer<SubjectCache> update) {
+        subjectCache.lock();
+        try {
+            if (subjectCache.getGeneration() == generation) {
+                update.accept(subjectCache);
+            }
+        } finally {
+            subjectCache.unlock();
+        }
     }
 
     private List<String> getAllSubjectsByIdFromRegistry(int id) throws IOException, RestClientException {
@@ -663,7 +837,7 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
             String subjectPrefix,
             boolean lookupDeletedSchema,
             boolean latestOnly) throws IOException, RestClientException {
-        return restService.getSchemas(subjectPrefix, lookupDeletedSchema, latestOnly).stream()
+        return getSchemaEntitiesFromRegistry(subjectPrefix, lookupDeletedSchema, latestOnly).stream()
                 .map(schema -> parseSchema(schema.getSchemaType(), schema.getSchema(), schema.getReferences()))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
@@ -671,7 +845,7 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
     }
 
     private SubjectCache getSubjectCache(String subject) {
-        return subjectToSubjectCache.computeIfAbsent(subject, key -> new SubjectCache(subject));
+        return subjectToSubjectCache.get(subject, SubjectCache::new);
     }
 
     private RegisterSchemaResponse registerAndGetResponse(
@@ -695,22 +869,26 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
     }
 
     private ParsedSchema getSchemaByIdFromRegistry(int id) throws IOException, RestClientException {
-        ParsedSchema schema = idToSchemaCache.get(id);
+        ParsedSchema schema = idToSchemaCache.getIfPresent(id);
         if (schema != null) {
             return schema;
         }
 
-        SchemaString schemaString = restService.getId(id);
-        schema = new AvroSchema(schemaString.getSchemaString());
-        idToSchemaCache.put(id, schema);
-        return schema;
+        return singleFlight.execute(
+                List.of("schemaById", id),
+                () -> {
+                    SchemaString schemaString = restService.getId(id);
+                    ParsedSchema parsedSchema = ParsedSchemaPool.getDefault().intern(schemaString.getSchemaString());
+                    idToSchemaCache.put(id, parsedSchema);
+                    return parsedSchema;
+                });
     }
 
     private ParsedSchema getSchemaByVersionFromRegistryQuietly(String subject, int version) {
         try {
             io.confluent.kafka.schemaregistry.client.rest.entities.Schema response =
                     restService.getVersion(subject, version);
-            ParsedSchema schema = new AvroSchema(response.getSchema());
+            ParsedSchema schema = ParsedSchemaPool.getDefault().intern(response.getSchema());
             idToSchemaCache.put(response.getId(), schema);
             return schema;
         } catch (IOException | RestClientException ex) {
@@ -743,17 +921,30 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         return new AvroSchema(schema);
     }
 
+    /**
+     * Schemas of a subject. Each map keeps at most {@code maxSchemasPerSubject} entries,
+     * the least recently used ones are evicted. Maps are evicted independently, so a
+     * schema might be cached in one direction only.
+     * <p>
+     * Maps are keyed by {@link SchemaKey} (the schema fingerprint) or by schema id/version,
+     * so lookups don't hash the whole schema.
+     */
     private class SubjectCache {
 
         private final String subject;
-        private final Map<ParsedSchema, Integer> schemaIds = new HashMap<>();
-        private final Map<Integer, ParsedSchema> idSchemas = new HashMap<>();
-        private final Map<ParsedSchema, Integer> schemaVersions = new HashMap<>();
-        private final Map<Integer, ParsedSchema> versionSchemas = new HashMap<>();
-        private final Map<ParsedSchema, RegisterSchemaResponse> schemaRegisterResponse = new HashMap<>();
+        private final Map<SchemaKey, Integer> schemaIds = newLruMap();
+        private final Map<Integer, ParsedSchema> idSchemas = newLruMap();
+        private final Map<SchemaKey, Integer> schemaVersions = newLruMap();
+        private final Map<Integer, ParsedSchema> versionSchemas = newLruMap();
+        private final Map<SchemaKey, RegisterSchemaResponse> schemaRegisterResponse = newLruMap();
 
         private final Lock lock = new ReentrantLock();
 
+        /**
+         * Bumped whenever schemas are removed, guarded by the lock.
+         */
+        private long generation;
+
         public void lock() {
             lock.lock();
         }
@@ -766,33 +957,29 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
             this.subject = subject;
         }
 
+        public long getGeneration() {
+            return generation;
+        }
+
         public ParsedSchema getSchemaById(int id) {
             return idSchemas.get(id);
         }
 
         public Integer getIdBySchema(ParsedSchema schema) {
-            return schemaIds.get(schema);
+            return schemaIds.get(SchemaKey.of(schema));
         }
 
         public Integer getVersionBySchema(ParsedSchema schema) {
-            return schemaVersions.get(schema);
+            return schemaVersions.get(SchemaKey.of(schema));
         }
 
         public void addSchemaWithId(ParsedSchema schema, int id) {
-            if (schemaIds.size() >= maxSchemasPerSubject) {
-                throw new IllegalStateException("Too many schema objects created for " + subject + "!");
-            }
-
-            schemaIds.put(schema, id);
+            schemaIds.put(SchemaKey.of(schema), id);
             idSchemas.put(id, schema);
         }
 
         public void addSchemaWithVersion(ParsedSchema schema, int version) {
-            if (schemaVersions.size() >= maxSchemasPerSubject) {
-                throw new IllegalStateException("Too many schema objects created for " + subject + "!");
-            }
-
-            schemaVersions.put(schema, version);
+            schemaVersions.put(SchemaKey.of(schema), version);
             versionSchemas.put(version, schema);
         }
 
@@ -805,20 +992,20 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
                 return;
             }
 
-            schemaRegisterResponse.remove(schema);
+            generation++;
+            SchemaKey key = SchemaKey.of(schema);
+            schemaRegisterResponse.remove(key);
 
-            Integer id = schemaIds.remove(schema);
-            if (id != null) {
-                idSchemas.remove(id);
-            }
+            // reverse entries might outlive the evicted direct ones
+            schemaIds.remove(key);
+            idSchemas.values().removeIf(value -> key.equals(SchemaKey.of(value)));
 
-            Integer version = schemaVersions.remove(schema);
-            if (version != null) {
-                versionSchemas.remove(version);
-            }
+            schemaVersions.remove(key);
+            versionSchemas.values().removeIf(value -> key.equals(SchemaKey.of(value)));
         }
 
         public void clear() {
+            generation++;
             schemaIds.clear();
             idSchemas.clear();
             schemaVersions.clear();
@@ -827,18 +1014,26 @@ public class EcoCachedSchemaRegistryClient implements SchemaRegistryClient {
         }
 
         public RegisterSchemaResponse getRegisterSchemaBySchema(ParsedSchema schema) {
-            return schemaRegisterResponse.get(schema);
+            return schemaRegisterResponse.get(SchemaKey.of(schema));
         }
 
         public void addSchemaWithRegisterResponse(ParsedSchema schema, RegisterSchemaResponse retrievedResponse) {
-            if (schemaIds.size() >= maxSchemasPerSubject) {
-                throw new IllegalStateException("Too many schema objects created for " + subject + "!");
-            }
-
-            schemaRegisterResponse.put(schema, retrievedResponse);
-            schemaIds.put(schema, retrievedResponse.getId());
+            SchemaKey key = SchemaKey.of(schema);
+            schemaRegisterResponse.put(key, retrievedResponse);
+            schemaIds.put(key, retrievedResponse.getId());
             idSchemas.put(retrievedResponse.getId(), schema);
         }
+
+        private <K, V> Map<K, V> newLruMap() {
+            return new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxSchemasPerSubject;
+                }
+            };
+        }
+
     }
 
 }
@@ -207,7 +207,7 @@ public class ExtendedRestService extends RestService {
      * {@link RestService} simply concatenates subject (path segment) and other url parts w/o encoding, thus
      * any illegal character might cause request to fail with some misleading errors...
      */
-    private static String encodeSubjectAsPathSegment(String subject) {
+    static String encodeSubjectAsPathSegment(String subject) {
         if (subject == null) {
             return null;
         }
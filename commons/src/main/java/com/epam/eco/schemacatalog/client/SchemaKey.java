@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.commons.lang3.Validate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+
+/**
+ * Map key of a {@link ParsedSchema}, hashed by the precomputed 64-bit fingerprint of
+ * the schema instead of {@link ParsedSchema#hashCode()}, which walks the whole schema.
+ * <p>
+ * Avro schemas are fingerprinted by their Parsing Canonical Form, other schemas by their
+ * hash code. Fingerprints of Avro schemas are memoized per raw {@link Schema} instance,
+ * which is shared by all {@link AvroSchema} wrappers created for it (wrappers are mostly
+ * created per call), so keying the same raw schema once again costs an identity lookup
+ * only.
+ * <p>
+ * Equal schemas always have equal fingerprints, while schemas with equal fingerprints
+ * are additionally compared by {@link ParsedSchema#equals(Object)}, so keys are
+ * collision-safe.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SchemaKey {
+
+    private static final int FINGERPRINTS_MAX_SIZE = 100_000;
+
+    /**
+     * Weak keys are compared by identity.
+     */
+    private static final Cache<Schema, Long> FINGERPRINTS = Caffeine.newBuilder().
+            weakKeys().
+            maximumSize(FINGERPRINTS_MAX_SIZE).
+            build();
+
+    private final ParsedSchema schema;
+    private final long fingerprint;
+    private final int hashCode;
+
+    private SchemaKey(ParsedSchema schema, long fingerprint) {
+        this.schema = schema;
+        this.fingerprint = fingerprint;
+        this.hashCode = Long.hashCode(fingerprint);
+    }
+
+    public static SchemaKey of(ParsedSchema schema) {
+        Validate.notNull(schema, "Schema is null");
+
+        return new SchemaKey(schema, fingerprint(schema));
+    }
+
+    public ParsedSchema getSchema() {
+        return schema;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SchemaKey)) {
+            return false;
+        }
+        SchemaKey that = (SchemaKey) obj;
+        return
+                this.fingerprint == that.fingerprint &&
+                (this.schema == that.schema || this.schema.equals(that.schema));
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(fingerprint);
+    }
+
+    static long fingerprint(ParsedSchema schema) {
+        if (schema instanceof AvroSchema) {
+            return FINGERPRINTS.get((Schema) schema.rawSchema(), SchemaNormalization::parsingFingerprint64);
+        }
+        return schema.hashCode();
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import org.apache.commons.lang3.Validate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounds of the caches kept by the caching schema registry clients. Each cache is bounded
+ * independently, either by the number of entries or, for caches of schemas, by the total
+ * length of the schemas (if {@link #getMaxSchemaWeight()} is set). Entries might also
+ * expire after they are written.
+ *
+ * @author Andrei_Tytsik
+ */
+public final class SchemaRegistryClientCacheConfig {
+
+    public static final long DEFAULT_MAX_SIZE = 10_000;
+
+    public static final SchemaRegistryClientCacheConfig DEFAULT = builder().build();
+
+    private final long maxSize;
+    private final Long maxSchemaWeight;
+    private final Duration expireAfterWrite;
+
+    public SchemaRegistryClientCacheConfig(
+            long maxSize,
+            Long maxSchemaWeight,
+            Duration expireAfterWrite) {
+        Validate.isTrue(maxSize >= 0, "Max size is invalid");
+        Validate.isTrue(maxSchemaWeight == null || maxSchemaWeight >= 0, "Max schema weight is invalid");
+        Validate.isTrue(
+                expireAfterWrite == null || !expireAfterWrite.isNegative(),
+                "Expire after write is invalid");
+
+        this.maxSize = maxSize;
+        this.maxSchemaWeight = maxSchemaWeight;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+    public Long getMaxSchemaWeight() {
+        return maxSchemaWeight;
+    }
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    /**
+     * Builds a cache bounded by the number of entries.
+     */
+    <K, V> Cache<K, V> buildCache() {
+        return newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * Builds a cache of schemas, bounded by the total weight of its values if the max
+     * schema weight is set, by the number of entries otherwise.
+     */
+    <K, V> Cache<K, V> buildSchemaCache(ToIntFunction<V> weigher) {
+        if (maxSchemaWeight == null) {
+            return buildCache();
+        }
+
+        return newBuilder().
+                maximumWeight(maxSchemaWeight).
+                <K, V>weigher((key, value) -> weigher.applyAsInt(value)).
+                build();
+    }
+
+    private Caffeine<Object, Object> newBuilder() {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        return builder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxSize, maxSchemaWeight, expireAfterWrite);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        if (this == obj) {
+            return true;
+        }
+        SchemaRegistryClientCacheConfig that = (SchemaRegistryClientCacheConfig)obj;
+        return
+                this.maxSize == that.maxSize &&
+                Objects.equals(this.maxSchemaWeight, that.maxSchemaWeight) &&
+                Objects.equals(this.expireAfterWrite, that.expireAfterWrite);
+    }
+
+    @Override
+    public String toString() {
+        return
+                "{maxSize: " + maxSize +
+                ", maxSchemaWeight: " + maxSchemaWeight +
+                ", expireAfterWrite: " + expireAfterWrite +
+                "}";
+    }
+
+    public Builder toBuilder() {
+        return builder(this);
+    }
+
+    public static Builder builder() {
+        return builder(null);
+    }
+
+    public static Builder builder(SchemaRegistryClientCacheConfig origin) {
+        return new Builder(origin);
+    }
+
+    public static final class Builder {
+
+        private long maxSize = DEFAULT_MAX_SIZE;
+        private Long maxSchemaWeight;
+        private Duration expireAfterWrite;
+
+        private Builder() {
+            this(null);
+        }
+
+        private Builder(SchemaRegistryClientCacheConfig origin) {
+            if (origin == null) {
+                return;
+            }
+
+            this.maxSize = origin.maxSize;
+            this.maxSchemaWeight = origin.maxSchemaWeight;
+            this.expireAfterWrite = origin.expireAfterWrite;
+        }
+
+        public Builder maxSize(long maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder maxSchemaWeight(Long maxSchemaWeight) {
+            this.maxSchemaWeight = maxSchemaWeight;
+            return this;
+        }
+
+        public Builder expireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        public SchemaRegistryClientCacheConfig build() {
+            return new SchemaRegistryClientCacheConfig(maxSize, maxSchemaWeight, expireAfterWrite);
+        }
+
+    }
+
+}
@@ -26,9 +26,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.epam.eco.commons.avro.FieldExtractor;
 import com.epam.eco.commons.avro.FieldInfo;
+import com.epam.eco.schemacatalog.utils.ParsedSchemaPool;
 
 import io.confluent.kafka.schemaregistry.ParsedSchema;
-import io.confluent.kafka.schemaregistry.avro.AvroSchema;
 
 /**
  * @author Andrei_Tytsik
@@ -36,7 +36,7 @@ import io.confluent.kafka.schemaregistry.avro.AvroSchema;
 public class BasicSchemaInfo extends IdentitySchemaInfo implements Schemafull {
 
     protected final String schemaJson;
-    protected final ParsedSchema schemaAvro;
+    private volatile ParsedSchema schemaAvro;
 
     public BasicSchemaInfo(
             @JsonProperty("subject") String subject,
@@ -48,10 +48,6 @@ public class BasicSchemaInfo extends IdentitySchemaInfo implements Schemafull {
         Validate.notBlank(schemaJson, "Schema (JSON) is blank");
 
         this.schemaJson = schemaJson;
-
-        //disabling cache as it eats too much memory and should be optimized...
-        //schemaAvro = CachedSchemaParser.parse(schemaJson);
-        this.schemaAvro = new AvroSchema(schemaJson);
     }
 
     @Override
@@ -62,13 +58,25 @@ public class BasicSchemaInfo extends IdentitySchemaInfo implements Schemafull {
     @JsonIgnore
     @Override
     public Schema getSchemaAvro() {
-        return (Schema) schemaAvro.rawSchema();
+        return (Schema) getParsedSchema().rawSchema();
     }
 
     @JsonIgnore
     @Override
     public ParsedSchema getParsedSchema() {
-        return schemaAvro;
+        // parsed on first access only, many callers never need more than the JSON
+        ParsedSchema schema = schemaAvro;
+        if (schema == null) {
+            synchronized (this) {
+                schema = schemaAvro;
+                if (schema == null) {
+                    // identical schemas are shared across subjects and versions, see ParsedSchemaPool
+                    schema = ParsedSchemaPool.getDefault().intern(schemaJson);
+                    schemaAvro = schema;
+                }
+            }
+        }
+        return schema;
     }
 
     @JsonIgnore
@@ -76,7 +84,7 @@ public class BasicSchemaInfo extends IdentitySchemaInfo implements Schemafull {
     public List<FieldInfo> getSchemaFieldInfosAsList() {
         //disabling cache as it eats too much memory and should be optimized...
         //return CachedFieldExtractor.fromSchema(schemaAvro);
-        return FieldExtractor.fromSchema((Schema) schemaAvro.rawSchema());
+        return FieldExtractor.fromSchema(getSchemaAvro());
     }
 
     @Override
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Page of a search that is paged by cursor rather than by offset, so it isn't limited
+ * by the max result window. The next page is requested with {@link #getNextCursor()},
+ * which is {@code null} once there are no more results.
+ *
+ * @author Andrei_Tytsik
+ */
+@JsonIgnoreProperties(ignoreUnknown=true)
+public final class CursorSearchResult<T> implements Iterable<T> {
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@class")
+    private final List<T> content;
+    private final String nextCursor;
+    private final long totalElements;
+
+    @JsonCreator
+    public CursorSearchResult(
+            @JsonProperty("content") List<T> content,
+            @JsonProperty("nextCursor") String nextCursor,
+            @JsonProperty("totalElements") long totalElements) {
+        Validate.notNull(content, "Content is null");
+        Validate.isTrue(totalElements >= 0, "Number of Total Elements is invalid");
+
+        this.content = Collections.unmodifiableList(new ArrayList<>(content));
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public boolean isLastPage() {
+        return nextCursor == null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return content.iterator();
+    }
+
+    public <S> CursorSearchResult<S> map(Function<T, S> mapper) {
+        Validate.notNull(mapper, "Mapper is null");
+
+        return new CursorSearchResult<>(
+                content.stream().map(mapper).collect(Collectors.toList()),
+                nextCursor,
+                totalElements);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CursorSearchResult<?> that = (CursorSearchResult<?>) obj;
+        return
+                Objects.equals(this.content, that.content) &&
+                Objects.equals(this.nextCursor, that.nextCursor) &&
+                this.totalElements == that.totalElements;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, nextCursor, totalElements);
+    }
+
+    @Override
+    public String toString() {
+        return
+                "{content: " + content +
+                ", nextCursor: " + nextCursor +
+                ", totalElements: " + totalElements +
+                "}";
+    }
+
+}
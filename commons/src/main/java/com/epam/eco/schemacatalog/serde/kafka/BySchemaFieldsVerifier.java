@@ -15,17 +15,21 @@
  */
 package com.epam.eco.schemacatalog.serde.kafka;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.avro.Schema;
-import org.apache.avro.Schema.Field;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.epam.eco.commons.avro.traversal.SchemaTraverseListener;
-import com.epam.eco.commons.avro.traversal.SchemaTraverser;
 import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
 import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.SchemaVersionRange;
@@ -33,18 +37,35 @@ import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
 import com.epam.eco.schemacatalog.serde.kafka.VerificationResult.Status;
 
 /**
+ * Verifies that data schema has required (and expected) fields. Allowed version range
+ * is computed over all subject schemas and recomputed whenever data of an unknown
+ * version comes.
+ * <p>
+ * If {@value #SCHEMA_FIELDS_REFRESH_INTERVAL_MS_CONFIG} is set, the range is additionally
+ * refreshed in the background, so new versions are usually known before their data
+ * comes and {@link #verify(GenericRecord, Schema)} doesn't wait for the registry.
+ *
  * @author Andrei_Tytsik
  */
 public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord>  {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(BySchemaFieldsVerifier.class);
+
     public static final String SCHEMA_FIELDS_REQUIRED_CONFIG = "schema.fields.required";
     public static final String SCHEMA_FIELDS_EXPECTED_CONFIG = "schema.fields.expected";
+    public static final String SCHEMA_FIELDS_REFRESH_INTERVAL_MS_CONFIG = "schema.fields.refresh.interval.ms";
 
     private final Set<String> requiredFields = new HashSet<>();
     private final Set<String> expectedFields = new HashSet<>();
 
-    private SubjectSchemas<BasicSchemaInfo> subjectSchemas;
-    private SchemaVersionRange allowedVersionRange;
+    private SchemaFieldIndex fieldIndex;
+    private volatile RangeState rangeState;
+    private volatile long resultEpoch;
+
+    private ScheduledExecutorService refreshExecutor;
+    private volatile long lastRefreshDurationNanos = -1;
+    private volatile long lastRefreshNanos;
+    private final AtomicLong refreshFailureCount = new AtomicLong();
 
     @Override
     public void init(
@@ -55,7 +76,8 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
 
         initRequiredFields();
         initExpectedFields();
-        updateAllowedVersionRangeIfNeeded(1);
+        refreshAllowedVersionRange(1);
+        initRefreshIfNeeded();
     }
 
     @Override
@@ -65,7 +87,7 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
         }
 
         int version = getSchemaVersion(originalSchema);
-        updateAllowedVersionRangeIfNeeded(version);
+        SchemaVersionRange allowedVersionRange = getAllowedVersionRange(version);
 
         if (allowedVersionRange.contains(version)) {
             return VerificationResult.with(Status.PASSED);
@@ -81,6 +103,45 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
         }
     }
 
+    @Override
+    public boolean isResultCacheable() {
+        return true;
+    }
+
+    @Override
+    public long getResultEpoch() {
+        return resultEpoch;
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns how long the last successful refresh of the allowed version range took.
+     */
+    public Duration getLastRefreshDuration() {
+        long durationNanos = lastRefreshDurationNanos;
+        return durationNanos >= 0 ? Duration.ofNanos(durationNanos) : null;
+    }
+
+    /**
+     * Returns the time passed since the last successful refresh of the allowed version range.
+     */
+    public Duration getStaleness() {
+        return lastRefreshDurationNanos >= 0 ? Duration.ofNanos(System.nanoTime() - lastRefreshNanos) : null;
+    }
+
+    /**
+     * Returns the number of background refreshes that failed.
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
     private void initRequiredFields() {
         String fieldsStr = readStringConfig(SCHEMA_FIELDS_REQUIRED_CONFIG, true);
         for (String field : fieldsStr.split(",")) {
@@ -106,30 +167,87 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
         }
     }
 
-    private void updateAllowedVersionRangeIfNeeded(Integer versionToExamine) {
-        if (subjectSchemas != null && subjectSchemas.getSchemasAsMap().containsKey(versionToExamine)) {
+    private void initRefreshIfNeeded() {
+        String intervalStr = readStringConfig(SCHEMA_FIELDS_REFRESH_INTERVAL_MS_CONFIG, false);
+        if (intervalStr == null) {
             return;
         }
 
-        subjectSchemas = schemaRegistryClient.getSubjectSchemaInfos(subject);
+        long intervalMs = Long.parseLong(intervalStr);
+        if (intervalMs <= 0) {
+            return;
+        }
+
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-fields-verifier-refresh-" + subject);
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(
+                this::refreshAllowedVersionRangeQuietly,
+                intervalMs,
+                intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the last known range if the version is known, otherwise waits for the
+     * range to be refreshed.
+     */
+    private SchemaVersionRange getAllowedVersionRange(int version) {
+        RangeState rangeState = this.rangeState;
+        if (rangeState != null && rangeState.versions.contains(version)) {
+            return rangeState.range;
+        }
+
+        return refreshAllowedVersionRange(version).range;
+    }
+
+    private void refreshAllowedVersionRangeQuietly() {
+        try {
+            refreshAllowedVersionRange(null);
+        } catch (RuntimeException ex) {
+            refreshFailureCount.incrementAndGet();
+            LOGGER.warn(String.format("Failed to refresh allowed version range of subject %s", subject), ex);
+        }
+    }
+
+    /**
+     * Recomputes the allowed version range over all subject schemas, unless the version to
+     * examine (if any) became known in the meantime.
+     */
+    private synchronized RangeState refreshAllowedVersionRange(Integer versionToExamine) {
+        RangeState current = this.rangeState;
+        if (versionToExamine != null && current != null && current.versions.contains(versionToExamine)) {
+            return current;
+        }
+
+        long startNanos = System.nanoTime();
+
+        SubjectSchemas<BasicSchemaInfo> subjectSchemas = schemaRegistryClient.getSubjectSchemaInfos(subject);
 
         // sanity checks
         if (subjectSchemas.getSchemas().isEmpty()) {
             throw new RuntimeException(
                     String.format("Subject %s has no schemas", subject));
         }
-        if (!subjectSchemas.getSchemasAsMap().containsKey(versionToExamine)) {
+        if (versionToExamine != null && !subjectSchemas.getSchemasAsMap().containsKey(versionToExamine)) {
             throw new RuntimeException(
                     String.format("Subject %s has no schema of version %d", subject, versionToExamine));
         }
 
+        if (fieldIndex == null) {
+            fieldIndex = new SchemaFieldIndex(requiredFields, expectedFields);
+        }
+        fieldIndex.update(subjectSchemas);
+
         int earliestVersion = -1;
         int latestVersion = -1;
         for (BasicSchemaInfo schemaInfo : subjectSchemas) {
-            Set<String> schemaFields = extractSchemaFields(schemaInfo.getSchemaAvro());
+            int version = schemaInfo.getVersion();
 
             // has required fields
-            if (!schemaFields.containsAll(requiredFields)) {
+            if (!fieldIndex.hasRequiredPaths(version)) {
                 if (earliestVersion == -1) {
                     continue;
                 } else {
@@ -137,11 +255,11 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
                 }
             }
 
-            earliestVersion = earliestVersion == -1 ? schemaInfo.getVersion() : earliestVersion;
+            earliestVersion = earliestVersion == -1 ? version : earliestVersion;
 
             // has expected fields
-            if (expectedFields.isEmpty() || schemaFields.containsAll(expectedFields)) {
-                latestVersion = schemaInfo.getVersion();
+            if (fieldIndex.hasExpectedPaths(version)) {
+                latestVersion = version;
             }
         }
 
@@ -152,22 +270,33 @@ public final class BySchemaFieldsVerifier extends AbstractVerifier<GenericRecord
                             requiredFields, expectedFields));
         }
 
-        allowedVersionRange = SchemaVersionRange.with(earliestVersion, latestVersion);
+        RangeState refreshed = new RangeState(
+                SchemaVersionRange.with(earliestVersion, latestVersion),
+                new HashSet<>(subjectSchemas.getSchemasAsMap().keySet()));
+        this.rangeState = refreshed;
+        if (current == null ||
+                current.range.earliest != earliestVersion ||
+                current.range.latest != latestVersion) {
+            resultEpoch++;
+        }
+
+        long endNanos = System.nanoTime();
+        lastRefreshDurationNanos = endNanos - startNanos;
+        lastRefreshNanos = endNanos;
+
+        return refreshed;
     }
 
-    private Set<String> extractSchemaFields(Schema schema) {
-        Set<String> allFields = new HashSet<>();
-        new SchemaTraverser(new SchemaTraverseListener() {
-            @Override
-            public void onSchemaField(String path, Schema parentSchema, Field field) {
-                allFields.add(path);
-            }
-            @Override
-            public void onSchema(String path, Schema parentSchema, Schema schema) {
-                // do nothing
-            }
-        }).walk(schema);
-        return allFields;
+    private static final class RangeState {
+
+        private final SchemaVersionRange range;
+        private final Set<Integer> versions;
+
+        private RangeState(SchemaVersionRange range, Set<Integer> versions) {
+            this.range = range;
+            this.versions = versions;
+        }
+
     }
 
 }
@@ -66,6 +66,11 @@ public final class BySchemaVersionVerifier extends AbstractVerifier<GenericConta
         }
     }
 
+    @Override
+    public boolean isResultCacheable() {
+        return true;
+    }
+
     private void initAllowedVersionRange() {
         String versionStr = readStringConfig(SCHEMA_VERSION_CONFIG, true);
         allowedVersionRange = SchemaVersionRange.parse(versionStr);
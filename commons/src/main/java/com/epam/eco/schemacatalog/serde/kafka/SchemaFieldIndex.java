@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.serde.kafka;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.commons.lang3.Validate;
+
+import com.epam.eco.commons.avro.traversal.SchemaTraverseListener;
+import com.epam.eco.commons.avro.traversal.SchemaTraverser;
+import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
+
+/**
+ * Incremental index of the field paths of subject schemas. Each tracked path is assigned
+ * a bit, each schema version is indexed as the bitset of tracked paths it has. Only
+ * versions not indexed yet are traversed on update, so checking a version for required
+ * and expected fields is a couple of bit operations.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SchemaFieldIndex {
+
+    private final Map<String, Integer> pathBits = new HashMap<>();
+    private final BitSet requiredBits = new BitSet();
+    private final BitSet expectedBits = new BitSet();
+
+    private final Map<Integer, IndexedVersion> versions = new HashMap<>();
+
+    SchemaFieldIndex(Set<String> requiredPaths, Set<String> expectedPaths) {
+        Validate.notNull(requiredPaths, "Set of required paths is null");
+        Validate.notNull(expectedPaths, "Set of expected paths is null");
+
+        requiredPaths.forEach(path -> requiredBits.set(bitOf(path)));
+        expectedPaths.forEach(path -> expectedBits.set(bitOf(path)));
+    }
+
+    /**
+     * Indexes versions of the subject that aren't indexed yet (or were re-registered under
+     * another id) and drops versions the subject doesn't have anymore.
+     *
+     * @return the number of traversed schemas
+     */
+    public int update(SubjectSchemas<BasicSchemaInfo> subjectSchemas) {
+        Validate.notNull(subjectSchemas, "Subject schemas are null");
+
+        Set<Integer> subjectVersions = new HashSet<>();
+        int traversedCount = 0;
+        for (BasicSchemaInfo schemaInfo : subjectSchemas) {
+            subjectVersions.add(schemaInfo.getVersion());
+
+            IndexedVersion indexed = versions.get(schemaInfo.getVersion());
+            if (indexed != null && indexed.schemaId == schemaInfo.getSchemaRegistryId()) {
+                continue;
+            }
+
+            versions.put(
+                    schemaInfo.getVersion(),
+                    new IndexedVersion(schemaInfo.getSchemaRegistryId(), indexPaths(schemaInfo.getSchemaAvro())));
+            traversedCount++;
+        }
+        versions.keySet().retainAll(subjectVersions);
+
+        return traversedCount;
+    }
+
+    public boolean contains(int version) {
+        return versions.containsKey(version);
+    }
+
+    public boolean hasRequiredPaths(int version) {
+        return containsAll(getIndexedVersion(version).pathBits, requiredBits);
+    }
+
+    public boolean hasExpectedPaths(int version) {
+        return containsAll(getIndexedVersion(version).pathBits, expectedBits);
+    }
+
+    private IndexedVersion getIndexedVersion(int version) {
+        IndexedVersion indexed = versions.get(version);
+        Validate.notNull(indexed, "Version %d isn't indexed", version);
+        return indexed;
+    }
+
+    private BitSet indexPaths(Schema schema) {
+        BitSet bits = new BitSet(pathBits.size());
+        new SchemaTraverser(new SchemaTraverseListener() {
+            @Override
+            public void onSchemaField(String path, Schema parentSchema, Field field) {
+                Integer bit = pathBits.get(path);
+                if (bit != null) {
+                    bits.set(bit);
+                }
+            }
+            @Override
+            public void onSchema(String path, Schema parentSchema, Schema schema) {
+                // do nothing
+            }
+        }).walk(schema);
+        return bits;
+    }
+
+    private int bitOf(String path) {
+        return pathBits.computeIfAbsent(path, key -> pathBits.size());
+    }
+
+    private static boolean containsAll(BitSet bits, BitSet mask) {
+        for (int bit = mask.nextSetBit(0); bit >= 0; bit = mask.nextSetBit(bit + 1)) {
+            if (!bits.get(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class IndexedVersion {
+
+        private final int schemaId;
+        private final BitSet pathBits;
+
+        private IndexedVersion(int schemaId, BitSet pathBits) {
+            this.schemaId = schemaId;
+            this.pathBits = pathBits;
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.serde.kafka;
+
+import java.util.function.IntFunction;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Map of values by schema id, tuned for reads: a lookup is a single probe of a
+ * primitive-keyed open addressing table, w/o boxing and locking. Writes copy the table,
+ * as the number of distinct schema ids seen by a deserializer is small. Once the map
+ * reaches its max size, it's cleared.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SchemaIdMap<V> {
+
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final int maxSize;
+
+    private volatile Table<V> table = new Table<>(8);
+
+    SchemaIdMap() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    SchemaIdMap(int maxSize) {
+        Validate.isTrue(maxSize > 0, "Max size is invalid");
+
+        this.maxSize = maxSize;
+    }
+
+    public V get(int id) {
+        return table.get(id);
+    }
+
+    public V computeIfAbsent(int id, IntFunction<V> function) {
+        V value = table.get(id);
+        if (value != null) {
+            return value;
+        }
+
+        synchronized (this) {
+            Table<V> current = table;
+            value = current.get(id);
+            if (value != null) {
+                return value;
+            }
+
+            value = function.apply(id);
+            Validate.notNull(value, "Value is null");
+
+            table = current.size >= maxSize ? new Table<V>(8).with(id, value) : current.with(id, value);
+            return value;
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    public synchronized void clear() {
+        table = new Table<>(8);
+    }
+
+    private static final class Table<V> {
+
+        private final int[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int size;
+
+        private Table(int capacity) {
+            this(new int[capacity], new Object[capacity], 0);
+        }
+
+        private Table(int[] keys, Object[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.mask = keys.length - 1;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(int key) {
+            for (int i = index(key); ; i = (i + 1) & mask) {
+                Object value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return (V) value;
+                }
+            }
+        }
+
+        /**
+         * Returns a copy of the table with the entry added, the table is kept at most
+         * half full.
+         */
+        private Table<V> with(int key, V value) {
+            int capacity = keys.length;
+            while ((size + 1) * 2 > capacity) {
+                capacity *= 2;
+            }
+
+            Table<V> copy = new Table<>(new int[capacity], new Object[capacity], size + 1);
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    copy.put(keys[i], values[i]);
+                }
+            }
+            copy.put(key, value);
+            return copy;
+        }
+
+        private void put(int key, Object value) {
+            int i = index(key);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private int index(int key) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+    }
+
+}
@@ -15,11 +15,17 @@
  */
 package com.epam.eco.schemacatalog.serde.kafka;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
 import org.apache.commons.lang3.Validate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 import com.epam.eco.schemacatalog.serde.kafka.VerificationResult.Status;
 
@@ -74,6 +80,62 @@ public final class Verifiable<T extends GenericContainer> {
         return result;
     }
 
+    /**
+     * Verifies keys and values of the records that are {@link Verifiable}, see
+     * {@link #verifyAll(Iterable)}.
+     */
+    public static void verifyAll(ConsumerRecords<?, ?> records) {
+        Validate.notNull(records, "Records are null");
+
+        List<Verifiable<?>> verifiables = new ArrayList<>(records.count());
+        for (ConsumerRecord<?, ?> record : records) {
+            if (record.key() instanceof Verifiable) {
+                verifiables.add((Verifiable<?>) record.key());
+            }
+            if (record.value() instanceof Verifiable) {
+                verifiables.add((Verifiable<?>) record.value());
+            }
+        }
+        verifyAll(verifiables);
+    }
+
+    /**
+     * Verifies all the data at once. If results of a verifier are cacheable (see
+     * {@link Verifier#isResultCacheable()}), data of the same original schema is verified
+     * once and the result is shared by the rest, so the number of verifications is the
+     * number of distinct schemas rather than the number of data.
+     */
+    public static void verifyAll(Iterable<? extends Verifiable<?>> verifiables) {
+        Validate.notNull(verifiables, "Collection of verifiables is null");
+
+        Map<Verifier<?>, Map<Schema, SharedResult>> sharedResults = new IdentityHashMap<>();
+        for (Verifiable<?> verifiable : verifiables) {
+            Validate.notNull(verifiable, "Verifiable is null");
+
+            if (verifiable.result != null) {
+                continue;
+            }
+
+            Verifier<?> verifier = verifiable.verifier;
+            if (verifiable.originalSchema == null || !verifier.isResultCacheable()) {
+                verifiable.verify();
+                continue;
+            }
+
+            Map<Schema, SharedResult> resultsBySchema =
+                    sharedResults.computeIfAbsent(verifier, key -> new IdentityHashMap<>());
+            long epoch = verifier.getResultEpoch(); // taken before verifying, see SharedResult
+            SharedResult sharedResult = resultsBySchema.get(verifiable.originalSchema);
+            if (sharedResult != null && sharedResult.epoch == epoch) {
+                verifiable.result = sharedResult.result;
+            } else {
+                resultsBySchema.put(
+                        verifiable.originalSchema,
+                        new SharedResult(verifiable.verify(), epoch));
+            }
+        }
+    }
+
     public static <T extends GenericContainer> Verifiable<T> with(
             T data,
             Schema originalSchema,
@@ -81,4 +143,20 @@ public final class Verifiable<T extends GenericContainer> {
         return new Verifiable<>(data, originalSchema, verifier);
     }
 
+    /**
+     * The epoch is the one taken before the result was computed, so a result computed
+     * concurrently with a change of the verifier is considered stale once it is done.
+     */
+    private static final class SharedResult {
+
+        private final VerificationResult result;
+        private final long epoch;
+
+        private SharedResult(VerificationResult result, long epoch) {
+            this.result = result;
+            this.epoch = epoch;
+        }
+
+    }
+
 }
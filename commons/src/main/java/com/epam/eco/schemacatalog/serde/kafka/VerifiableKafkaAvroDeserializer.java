@@ -22,14 +22,23 @@ import java.util.stream.Collectors;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.utils.Utils;
 
 import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
 
 import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
 
+import static io.confluent.kafka.serializers.KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG;
+
 /**
  * @author Andrei_Tytsik
  */
@@ -40,11 +49,23 @@ public final class VerifiableKafkaAvroDeserializer extends KafkaAvroDeserializer
 
     public static final String KEY_VERIFIER_CLASS_CONFIG = KEY_VERIFIER_CONFIG_PREFIX + "class";
     public static final String VALUE_VERIFIER_CLASS_CONFIG = VALUE_VERIFIER_CONFIG_PREFIX + "class";
+    /**
+     * Whether to decode data right from the payload with cached datum readers (generic
+     * records only), rather than passing it to {@link KafkaAvroDeserializer}.
+     */
+    public static final String DIRECT_DECODING_CONFIG = "avro.direct.decoding";
+
     private static final int MAGIC_BYTE = 0;
+    private static final int HEADER_SIZE = 1 + Integer.BYTES;
+
+    private static final ThreadLocal<BinaryDecoder> DECODERS = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> SCRATCH_ARRAYS = ThreadLocal.withInitial(() -> new byte[1024]);
 
     private Map<String, ?> configs;
     private boolean isKey;
+    private boolean directDecoding;
     private Verifier<GenericContainer> verifier;
+    private final SchemaIdMap<SchemaDecision> schemaDecisions = new SchemaIdMap<>();
 
     public VerifiableKafkaAvroDeserializer() {
         super();
@@ -64,43 +85,140 @@ public final class VerifiableKafkaAvroDeserializer extends KafkaAvroDeserializer
     public void configure(Map<String, ?> configs, boolean isKey) {
         this.configs = configs;
         this.isKey = isKey;
+        this.directDecoding = Boolean.parseBoolean(String.valueOf(configs.get(DIRECT_DECODING_CONFIG)));
+        if (directDecoding &&
+                Boolean.parseBoolean(String.valueOf(configs.get(SPECIFIC_AVRO_READER_CONFIG)))) {
+            throw new ConfigException(
+                    String.format(
+                            "%s can't be combined with %s",
+                            DIRECT_DECODING_CONFIG, SPECIFIC_AVRO_READER_CONFIG));
+        }
 
         super.configure(configs, isKey);
     }
 
     @Override
     public Object deserialize(String topic, byte[] bytes) {
+        return deserialize(topic, null, bytes);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] bytes) {
         initVerifierIfNeeded(topic);
 
-        GenericContainer data = (GenericContainer)super.deserialize(topic, bytes);
-        Schema originalSchema = getOriginalSchema(bytes);
-        return Verifiable.with(data, originalSchema, verifier);
+        if (bytes == null) {
+            return Verifiable.with(null, null, verifier);
+        }
+
+        SchemaDecision decision = getSchemaDecision(getSchemaId(bytes));
+        GenericContainer data =
+                directDecoding ?
+                decode(decision, bytes, HEADER_SIZE, bytes.length - HEADER_SIZE) :
+                (GenericContainer)super.deserialize(topic, headers, bytes);
+        return Verifiable.with(data, decision.originalSchema, decision.verifier);
     }
 
-    private Schema getOriginalSchema(byte[] payload) {
-        if (payload == null) {
-            return null;
+    /**
+     * Parses the header of the buffer once and, if direct decoding is enabled, decodes
+     * the data right from the backing array of a heap buffer. A direct buffer is copied
+     * once into a reused per-thread array.
+     */
+    @Override
+    public Object deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null || !directDecoding) {
+            return deserialize(topic, headers, Utils.toNullableArray(data));
+        }
+
+        initVerifierIfNeeded(topic);
+
+        SchemaDecision decision = getSchemaDecision(getSchemaId(data));
+        return Verifiable.with(decode(decision, data), decision.originalSchema, decision.verifier);
+    }
+
+    /**
+     * Closes the verifier, if any, as it might hold resources (e.g. a refresh thread).
+     */
+    @Override
+    public void close() {
+        try {
+            if (verifier != null) {
+                verifier.close();
+            }
+        } finally {
+            super.close();
         }
+    }
+
+    private SchemaDecision getSchemaDecision(int schemaId) {
+        return schemaDecisions.computeIfAbsent(schemaId, this::createSchemaDecision);
+    }
 
+    private SchemaDecision createSchemaDecision(int schemaId) {
+        Schema originalSchema = getOriginalSchema(schemaId);
+        return new SchemaDecision(
+                schemaId,
+                originalSchema,
+                directDecoding ? new GenericDatumReader<>(originalSchema) : null,
+                verifier);
+    }
+
+    private Schema getOriginalSchema(int schemaId) {
         try {
-            int schemaId = getSchemaId(payload);
             return (Schema) schemaRegistry.getSchemaById(schemaId).rawSchema();
         } catch (IOException | RestClientException ex) {
             throw new RuntimeException("Failed to get schema", ex);
         }
     }
 
-    private int getSchemaId(byte[] payload) {
-        ByteBuffer buffer = getByteBuffer(payload);
-        return buffer.getInt();
+    private static GenericContainer decode(SchemaDecision decision, ByteBuffer buffer) {
+        int offset = buffer.position() + HEADER_SIZE;
+        int length = buffer.remaining() - HEADER_SIZE;
+        if (buffer.hasArray()) {
+            return decode(decision, buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+
+        // decoded values never refer to the array, so it's reused
+        byte[] array = SCRATCH_ARRAYS.get();
+        if (array.length < length) {
+            array = new byte[Math.max(length, array.length * 2)];
+            SCRATCH_ARRAYS.set(array);
+        }
+        buffer.get(offset, array, 0, length);
+        return decode(decision, array, 0, length);
+    }
+
+    private static GenericContainer decode(SchemaDecision decision, byte[] bytes, int offset, int length) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, DECODERS.get());
+        DECODERS.set(decoder);
+        try {
+            return (GenericContainer)decision.datumReader.read(null, decoder);
+        } catch (IOException | RuntimeException ex) {
+            throw new SerializationException(
+                    String.format("Error deserializing Avro message for id %d", decision.schemaId), ex);
+        }
+    }
+
+    private static int getSchemaId(byte[] payload) {
+        if (payload.length < HEADER_SIZE || payload[0] != MAGIC_BYTE) {
+            throw new SerializationException("Unknown magic byte!");
+        }
+        return
+                (payload[1] & 0xFF) << 24 |
+                (payload[2] & 0xFF) << 16 |
+                (payload[3] & 0xFF) << 8 |
+                (payload[4] & 0xFF);
     }
 
-    private ByteBuffer getByteBuffer(byte[] payload) {
-        ByteBuffer buffer = ByteBuffer.wrap(payload);
-        if (buffer.get() != MAGIC_BYTE) {
-          throw new SerializationException("Unknown magic byte!");
+    private static int getSchemaId(ByteBuffer payload) {
+        int position = payload.position();
+        if (payload.remaining() < HEADER_SIZE || payload.get(position) != MAGIC_BYTE) {
+            throw new SerializationException("Unknown magic byte!");
         }
-        return buffer;
+        return
+                (payload.get(position + 1) & 0xFF) << 24 |
+                (payload.get(position + 2) & 0xFF) << 16 |
+                (payload.get(position + 3) & 0xFF) << 8 |
+                (payload.get(position + 4) & 0xFF);
     }
 
     private void initVerifierIfNeeded(String topic) {
@@ -165,4 +283,98 @@ public final class VerifiableKafkaAvroDeserializer extends KafkaAvroDeserializer
         return (ExtendedSchemaRegistryClient)schemaRegistry;
     }
 
+    /**
+     * Original schema of a schema id along with its datum reader (if direct decoding is
+     * enabled) and the verifier of its data.
+     */
+    private static final class SchemaDecision {
+
+        private final int schemaId;
+        private final Schema originalSchema;
+        private final DatumReader<Object> datumReader;
+        private final ResultCachingVerifier verifier;
+
+        private SchemaDecision(
+                int schemaId,
+                Schema originalSchema,
+                DatumReader<Object> datumReader,
+                Verifier<GenericContainer> verifier) {
+            this.schemaId = schemaId;
+            this.originalSchema = originalSchema;
+            this.datumReader = datumReader;
+            this.verifier = new ResultCachingVerifier(verifier);
+        }
+
+    }
+
+    /**
+     * Delegates to the verifier and caches the result for the data of a single schema,
+     * if the verifier allows.
+     */
+    private static final class ResultCachingVerifier implements Verifier<GenericContainer> {
+
+        private final Verifier<GenericContainer> verifier;
+
+        private volatile CachedResult cachedResult;
+
+        private ResultCachingVerifier(Verifier<GenericContainer> verifier) {
+            this.verifier = verifier;
+        }
+
+        @Override
+        public void init(
+                String subject,
+                ExtendedSchemaRegistryClient schemaRegistryClient,
+                Map<String, ?> config) {
+            verifier.init(subject, schemaRegistryClient, config);
+        }
+
+        @Override
+        public boolean isResultCacheable() {
+            return verifier.isResultCacheable();
+        }
+
+        @Override
+        public long getResultEpoch() {
+            return verifier.getResultEpoch();
+        }
+
+        @Override
+        public VerificationResult verify(GenericContainer data, Schema originalSchema) {
+            if (!verifier.isResultCacheable()) {
+                return verifier.verify(data, originalSchema);
+            }
+
+            // epoch is taken before verifying, so a result racing with a change is never
+            // cached under the epoch that follows the change
+            long epoch = verifier.getResultEpoch();
+            CachedResult cachedResult = this.cachedResult;
+            if (cachedResult != null && cachedResult.epoch == epoch) {
+                return cachedResult.result;
+            }
+
+            VerificationResult result = verifier.verify(data, originalSchema);
+            this.cachedResult = new CachedResult(result, epoch);
+            return result;
+        }
+
+        @Override
+        public void close() {
+            verifier.close();
+        }
+
+    }
+
+    private static final class CachedResult {
+
+        private final VerificationResult result;
+        private final long epoch;
+
+        private CachedResult(VerificationResult result, long epoch) {
+            this.result = result;
+            this.epoch = epoch;
+        }
+
+    }
+
 }
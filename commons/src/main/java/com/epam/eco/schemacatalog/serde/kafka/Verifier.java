@@ -32,6 +32,20 @@ public interface Verifier<T extends GenericContainer> extends Closeable {
             ExtendedSchemaRegistryClient schemaRegistryClient,
             Map<String, ?> config);
     VerificationResult verify(T data, Schema originalSchema);
+    /**
+     * Whether the result depends on the original schema only (not on the data), so it
+     * might be reused for all data of the same schema as long as {@link #getResultEpoch()}
+     * stays the same.
+     */
+    default boolean isResultCacheable() {
+        return false;
+    }
+    /**
+     * Changes whenever results returned before might have become stale.
+     */
+    default long getResultEpoch() {
+        return 0;
+    }
     @Override
     void close();
 }
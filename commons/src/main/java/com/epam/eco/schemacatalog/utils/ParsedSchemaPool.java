@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+
+/**
+ * Canonicalizing pool of parsed Avro schemas. Identical schema texts are parsed once
+ * and the resulting {@link ParsedSchema} instance is shared by all holders.
+ * <p>
+ * The pool references schemas weakly, so an entry lives only as long as somebody
+ * else keeps the schema. The number of entries is additionally capped, schemas
+ * requested beyond the cap are parsed but not pooled.
+ * <p>
+ * Pooled schemas are shared, so they must be treated as read-only (no
+ * {@code addProp} and similar calls).
+ *
+ * @author Andrei_Tytsik
+ */
+public final class ParsedSchemaPool {
+
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private static final ParsedSchemaPool DEFAULT = new ParsedSchemaPool(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+
+    private final Map<String, SchemaReference> pool = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ParsedSchema> referenceQueue = new ReferenceQueue<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public ParsedSchemaPool(int maxSize) {
+        Validate.isTrue(maxSize >= 0, "Max size is invalid");
+
+        this.maxSize = maxSize;
+    }
+
+    public static ParsedSchemaPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the pooled schema parsed from the given Avro JSON, parsing it if needed.
+     */
+    public ParsedSchema intern(String schemaJson) {
+        Validate.notBlank(schemaJson, "Schema (JSON) is blank");
+
+        ParsedSchema schema = getIfPresent(schemaJson);
+        if (schema != null) {
+            hitCount.increment();
+            return schema;
+        }
+        missCount.increment();
+
+        return putIfAbsent(schemaJson, new AvroSchema(schemaJson));
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return pool.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public void clear() {
+        pool.clear();
+    }
+
+    private ParsedSchema getIfPresent(String schemaJson) {
+        SchemaReference reference = pool.get(schemaJson);
+        return reference != null ? reference.get() : null;
+    }
+
+    private ParsedSchema putIfAbsent(String schemaJson, ParsedSchema schema) {
+        expungeStaleEntries();
+
+        if (pool.size() >= maxSize) {
+            return schema;
+        }
+
+        ParsedSchema[] result = new ParsedSchema[1];
+        pool.compute(schemaJson, (key, existing) -> {
+            ParsedSchema existingSchema = existing != null ? existing.get() : null;
+            if (existingSchema != null) {
+                result[0] = existingSchema;
+                return existing;
+            }
+            result[0] = schema;
+            return new SchemaReference(key, schema, referenceQueue);
+        });
+        return result[0];
+    }
+
+    private void expungeStaleEntries() {
+        SchemaReference reference;
+        while ((reference = (SchemaReference) referenceQueue.poll()) != null) {
+            pool.remove(reference.schemaJson, reference);
+        }
+    }
+
+    private static final class SchemaReference extends WeakReference<ParsedSchema> {
+
+        private final String schemaJson;
+
+        private SchemaReference(
+                String schemaJson,
+                ParsedSchema schema,
+                ReferenceQueue<ParsedSchema> referenceQueue) {
+            super(schema, referenceQueue);
+            this.schemaJson = schemaJson;
+        }
+
+    }
+
+}
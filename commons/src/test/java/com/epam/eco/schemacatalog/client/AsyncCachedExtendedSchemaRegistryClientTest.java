@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class AsyncCachedExtendedSchemaRegistryClientTest {
+
+    private static final String SCHEMA_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+
+    private HttpServer server;
+    private CachedExtendedSchemaRegistryClient cachedClient;
+    private AsyncCachedExtendedSchemaRegistryClient asyncClient;
+
+    private final AtomicInteger schemaByIdRequestCount = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/schemas/ids/1", exchange -> {
+            schemaByIdRequestCount.incrementAndGet();
+            await(release);
+            respond(exchange, 200, "{\"schema\":" + quote(SCHEMA_JSON) + "}");
+        });
+        server.createContext("/subjects/s1/versions/1", exchange -> respond(
+                exchange,
+                404,
+                "{\"error_code\":40402,\"message\":\"Version not found.\"}"));
+        server.start();
+
+        String url = "http://localhost:" + server.getAddress().getPort();
+        cachedClient = new CachedExtendedSchemaRegistryClient(url);
+        asyncClient = new AsyncCachedExtendedSchemaRegistryClient(cachedClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testConcurrentLookupsShareRequestAndCache() throws Exception {
+        List<CompletableFuture<ParsedSchema>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(asyncClient.getSchemaById(1));
+        }
+        while (schemaByIdRequestCount.get() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        ParsedSchema schema = futures.get(0).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<ParsedSchema> future : futures) {
+            assertSame(schema, future.get(10, TimeUnit.SECONDS));
+        }
+        assertSame(schema, cachedClient.getSchemaById(1));
+        assertSame(schema, asyncClient.getSchemaById(1).get(10, TimeUnit.SECONDS));
+        assertEquals(1, schemaByIdRequestCount.get());
+        assertEquals(0, asyncClient.getInFlightRequestCount());
+    }
+
+    @Test
+    void testErrorIsPassedAsRestClientException() {
+        ExecutionException ee = assertThrows(
+                ExecutionException.class,
+                () -> asyncClient.getSchemaInfo("s1", 1).get(10, TimeUnit.SECONDS));
+
+        RestClientException rce = assertInstanceOf(RestClientException.class, ee.getCause());
+        assertEquals(404, rce.getStatus());
+        assertEquals(40402, rce.getErrorCode());
+        assertTrue(rce.getMessage().contains("Version not found"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.schemaregistry.v1+json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException ie) {
+            throw new IOException(ie);
+        }
+    }
+
+}
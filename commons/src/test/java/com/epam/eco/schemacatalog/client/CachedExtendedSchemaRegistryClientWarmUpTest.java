@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class CachedExtendedSchemaRegistryClientWarmUpTest {
+
+    private static final String SCHEMA_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+
+    private HttpServer server;
+    private CachedExtendedSchemaRegistryClient client;
+
+    private volatile int schemasStatus = 200;
+    private volatile String schemasBody;
+
+    private final AtomicInteger subjectRequestCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/schemas", exchange -> respond(exchange, schemasStatus, schemasBody));
+        server.createContext("/subjects", exchange -> {
+            if (!"/subjects".equals(exchange.getRequestURI().getPath())) {
+                respond(exchange, 404, "{\"error_code\":40401,\"message\":\"Subject not found.\"}");
+                return;
+            }
+            subjectRequestCount.incrementAndGet();
+            respond(exchange, 200, "[\"s1\",\"s2\"]");
+        });
+        server.createContext("/subjects/s1/versions", exchange -> respond(exchange, 200, "[1]"));
+        server.createContext("/subjects/s2/versions", exchange -> respond(exchange, 200, "[1,2]"));
+        server.createContext("/subjects/s1/versions/1", exchange -> respond(exchange, 200, schema("s1", 1, 1)));
+        server.createContext("/subjects/s2/versions/1", exchange -> respond(exchange, 200, schema("s2", 1, 2)));
+        server.createContext("/subjects/s2/versions/2", exchange -> respond(exchange, 200, schema("s2", 2, 3)));
+        server.start();
+
+        client = new CachedExtendedSchemaRegistryClient("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testSchemasAreFetchedInBulk() {
+        schemasBody = "[" + schema("s1", 1, 1) + "," + schema("s2", 1, 2) + "," + schema("s2", 2, 3) + "]";
+        List<int[]> progress = new ArrayList<>();
+
+        CacheWarmUpResult result = client.warmUp(
+                "",
+                2,
+                (processed, total, schemas) -> progress.add(new int[]{processed, total, schemas}));
+
+        assertTrue(result.isBatched());
+        assertEquals(2, result.getSubjectCount());
+        assertEquals(3, result.getSchemaCount());
+        assertTrue(result.getFailedSubjects().isEmpty());
+        assertEquals(0, subjectRequestCount.get());
+        assertEquals(1, progress.size());
+        assertTrue(Arrays.equals(new int[]{2, 2, 3}, progress.get(0)));
+        assertNotNull(client.getCachedSchemaInfo("s1", 1));
+        assertNotNull(client.getCachedSchemaInfo("s2", 2));
+    }
+
+    @Test
+    void testSchemasAreFetchedBySubjectIfBulkIsUnsupported() {
+        schemasStatus = 404;
+        schemasBody = "{\"error_code\":404,\"message\":\"HTTP 404 Not Found\"}";
+        List<int[]> progress = Collections.synchronizedList(new ArrayList<>());
+
+        CacheWarmUpResult result = client.warmUp(
+                "",
+                2,
+                (processed, total, schemas) -> progress.add(new int[]{processed, total, schemas}));
+
+        assertFalse(result.isBatched());
+        assertEquals(2, result.getSubjectCount());
+        assertEquals(3, result.getSchemaCount());
+        assertTrue(result.getFailedSubjects().isEmpty());
+        assertEquals(2, progress.size());
+        progress.forEach(values -> assertEquals(2, values[1]));
+        assertTrue(progress.stream().anyMatch(values -> values[0] == 2 && values[2] == 3));
+        assertNotNull(client.getCachedSchemaInfo("s1", 1));
+        assertNotNull(client.getCachedSchemaInfo("s2", 1));
+        assertNotNull(client.getCachedSchemaInfo("s2", 2));
+    }
+
+    @Test
+    void testBulkErrorIsRethrown() {
+        schemasStatus = 401;
+        schemasBody = "{\"error_code\":401,\"message\":\"Unauthorized\"}";
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> client.warmUp(""));
+
+        RestClientException rce = assertInstanceOf(RestClientException.class, ex.getCause());
+        assertEquals(401, rce.getStatus());
+        assertEquals(0, subjectRequestCount.get());
+    }
+
+    @Test
+    void testFailedSubjectsAreReported() {
+        CacheWarmUpResult result = client.warmUp(Arrays.asList("s1", "s3", "s1"), 4, null);
+
+        assertFalse(result.isBatched());
+        assertEquals(2, result.getSubjectCount());
+        assertEquals(1, result.getSchemaCount());
+        assertEquals(Collections.singletonList("s3"), result.getFailedSubjects());
+    }
+
+    private static String schema(String subject, int version, int id) {
+        return String.format(
+                "{\"subject\":\"%s\",\"version\":%d,\"id\":%d,\"schema\":%s}",
+                subject, version, id, quote(SCHEMA_JSON));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.schemaregistry.v1+json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import org.junit.jupiter.api.Test;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaKeyTest {
+
+    private static final String SCHEMA_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+    private static final String SCHEMA_WITH_DOC_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"doc\":\"doc\"," +
+            "\"fields\":[{\"name\":\"a\",\"type\":\"string\",\"doc\":\"doc\"}]}";
+    private static final String SCHEMA_WITH_DEFAULT_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\"," +
+            "\"fields\":[{\"name\":\"a\",\"type\":\"string\",\"default\":\"x\"}]}";
+
+    @Test
+    void testKeysOfEqualSchemasAreEqual() {
+        SchemaKey key1 = SchemaKey.of(new AvroSchema(SCHEMA_JSON));
+        SchemaKey key2 = SchemaKey.of(new AvroSchema(SCHEMA_JSON));
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+    }
+
+    @Test
+    void testKeysOfWrappersOfSameRawSchemaAreEqual() {
+        AvroSchema schema = new AvroSchema(SCHEMA_JSON);
+        AvroSchema wrapper = new AvroSchema(schema.rawSchema());
+
+        assertEquals(SchemaKey.of(schema), SchemaKey.of(wrapper));
+        assertEquals(SchemaKey.fingerprint(schema), SchemaKey.of(wrapper).getFingerprint());
+    }
+
+    @Test
+    void testKeysOfSchemasWithSameCanonicalFormAreComparedBySchemas() {
+        AvroSchema schema = new AvroSchema(SCHEMA_JSON);
+        AvroSchema schemaWithDefault = new AvroSchema(SCHEMA_WITH_DEFAULT_JSON);
+
+        SchemaKey key = SchemaKey.of(schema);
+        SchemaKey keyWithDefault = SchemaKey.of(schemaWithDefault);
+
+        // defaults are stripped from the canonical form, so fingerprints collide
+        assertEquals(key.getFingerprint(), keyWithDefault.getFingerprint());
+        assertNotEquals(schema, schemaWithDefault);
+        assertNotEquals(key, keyWithDefault);
+    }
+
+    @Test
+    void testKeyIsConsistentWithSchemaEquality() {
+        AvroSchema schema = new AvroSchema(SCHEMA_JSON);
+        AvroSchema schemaWithDoc = new AvroSchema(SCHEMA_WITH_DOC_JSON);
+
+        assertEquals(schema.equals(schemaWithDoc), SchemaKey.of(schema).equals(SchemaKey.of(schemaWithDoc)));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaRegistryClientCacheConfigTest {
+
+    @Test
+    void testCacheIsBoundedBySize() {
+        Cache<Integer, String> cache = SchemaRegistryClientCacheConfig.builder().
+                maxSize(10).
+                build().
+                buildCache();
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.estimatedSize() <= 10);
+        assertTrue(cache.stats().evictionCount() >= 90);
+    }
+
+    @Test
+    void testSchemaCacheIsBoundedByWeight() {
+        Cache<Integer, String> cache = SchemaRegistryClientCacheConfig.builder().
+                maxSchemaWeight(100L).
+                build().
+                buildSchemaCache(String::length);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "0123456789012345678901234");
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.estimatedSize() <= 4);
+    }
+
+    @Test
+    void testStatsAreRecorded() {
+        Cache<Integer, String> cache = SchemaRegistryClientCacheConfig.DEFAULT.buildCache();
+
+        assertNull(cache.getIfPresent(1));
+        assertEquals("v1", cache.get(1, key -> "v" + key));
+        assertNotNull(cache.getIfPresent(1));
+
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    void testBuilderCopiesOrigin() {
+        SchemaRegistryClientCacheConfig config = SchemaRegistryClientCacheConfig.builder().
+                maxSize(5).
+                maxSchemaWeight(1024L).
+                expireAfterWrite(Duration.ofMinutes(1)).
+                build();
+
+        assertEquals(config, config.toBuilder().build());
+        assertThrows(IllegalArgumentException.class, () -> config.toBuilder().maxSize(-1).build());
+    }
+
+}
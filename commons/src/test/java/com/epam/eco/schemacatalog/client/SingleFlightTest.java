@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.client;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentRequestsForSameKeyAreCoalesced() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.execute("k", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Future<Integer> follower = executor.submit(() -> singleFlight.execute("k", () -> {
+                executions.incrementAndGet();
+                return -1;
+            }));
+            while (singleFlight.getCoalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, singleFlight.getInFlightCount());
+
+            release.countDown();
+
+            assertEquals(42, leader.get(10, TimeUnit.SECONDS));
+            assertEquals(42, follower.get(10, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(0, singleFlight.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExceptionIsPassedToCoalescedRequests() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        IOException failure = new IOException("failure");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.<Integer>execute("k", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Future<Integer> follower = executor.submit(() -> singleFlight.<Integer>execute("k", () -> -1));
+            while (singleFlight.getCoalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+
+            release.countDown();
+
+            ExecutionException leaderEx = assertThrows(ExecutionException.class, leader::get);
+            ExecutionException followerEx = assertThrows(ExecutionException.class, follower::get);
+            assertSame(failure, leaderEx.getCause());
+            assertSame(failure, followerEx.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRequestsForDifferentKeysAreNotCoalesced() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+
+        assertEquals(1, (int) singleFlight.execute("k1", () -> 1));
+        assertEquals(2, (int) singleFlight.execute("k2", () -> 2));
+        assertEquals(3, (int) singleFlight.execute("k1", () -> 3));
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException ie) {
+            throw new IOException(ie);
+        }
+    }
+
+}
@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author Andrei_Tytsik
@@ -40,6 +41,19 @@ class BasicSchemaInfoTest {
         assertFalse(schemaInfo.getSchemaFieldInfosAsList().isEmpty());
     }
 
+    @Test
+    void testSchemaParsedOnFirstAccess() {
+        BasicSchemaInfo schemaInfo = BasicSchemaInfo.builder().
+                subject("subject").
+                version(1).
+                schemaRegistryId(1).
+                schemaJson("not a schema").
+                build();
+
+        assertEquals("not a schema", schemaInfo.getSchemaJson());
+        assertThrows(RuntimeException.class, schemaInfo::getParsedSchema);
+    }
+
     @Test
     void testSerializedToJsonAndBack() {
         BasicSchemaInfo origin = SchemaTestData.randomBasicSchemaInfo();
@@ -34,6 +34,7 @@ import io.confluent.kafka.schemaregistry.ParsedSchema;
 import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -159,6 +160,50 @@ class BySchemaFieldsVerifierTest {
         }
     }
 
+    @Test
+    void testAllowedVersionRangeIsRefreshedInBackground() throws Exception {
+        SubjectSchemas<BasicSchemaInfo> subjectSchemas = testSubject(
+                new String[]{"a"},                     // 1
+                new String[]{"a", "b"}                  // 2
+        );
+        SubjectSchemas<BasicSchemaInfo> subjectSchemasUpdated = testSubject(
+                new String[]{"a"},                     // 1
+                new String[]{"a", "b"},                 // 2
+                new String[]{"a", "b", "c"}             // 3
+        );
+
+        ExtendedSchemaRegistryClient schemaRegistryClient = Mockito.mock(ExtendedSchemaRegistryClient.class);
+        Mockito.
+                when(schemaRegistryClient.getVersion(Mockito.anyString(), Mockito.any(ParsedSchema.class))).
+                thenReturn(3);
+        Mockito.
+                when(schemaRegistryClient.getSubjectSchemaInfos(Mockito.anyString())).
+                thenReturn(subjectSchemas, subjectSchemasUpdated);
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(BySchemaFieldsVerifier.SCHEMA_FIELDS_REQUIRED_CONFIG, "a");
+        config.put(BySchemaFieldsVerifier.SCHEMA_FIELDS_EXPECTED_CONFIG, "b");
+        config.put(BySchemaFieldsVerifier.SCHEMA_FIELDS_REFRESH_INTERVAL_MS_CONFIG, "10");
+
+        try (BySchemaFieldsVerifier verifier = new BySchemaFieldsVerifier()) {
+            verifier.init("nomatter", schemaRegistryClient, config);
+            long initialEpoch = verifier.getResultEpoch();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (verifier.getResultEpoch() == initialEpoch && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertNotEquals(initialEpoch, verifier.getResultEpoch());
+            assertNotNull(verifier.getLastRefreshDuration());
+            assertNotNull(verifier.getStaleness());
+            assertEquals(0, verifier.getRefreshFailureCount());
+
+            VerificationResult result = verifier.verify(
+                    TEST_RECORD, subjectSchemasUpdated.getSchema(3).getSchemaAvro());
+            assertEquals(VerificationResult.Status.PASSED, result.getStatus());
+        }
+    }
+
     @Test
     void testInitFailedOnUnfeasibleConfig() {
         assertThrows(
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.serde.kafka;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaFieldIndexTest {
+
+    @Test
+    void testOnlyNewVersionsAreTraversed() {
+        SchemaFieldIndex index = new SchemaFieldIndex(
+                new HashSet<>(Arrays.asList("a", "b")),
+                new HashSet<>(Arrays.asList("c")));
+
+        List<BasicSchemaInfo> schemas = new ArrayList<>();
+        schemas.add(testSchema(1, "a"));
+        schemas.add(testSchema(2, "a", "b"));
+        assertEquals(2, index.update(SubjectSchemas.with(schemas)));
+
+        schemas.add(testSchema(3, "a", "b", "c"));
+        assertEquals(1, index.update(SubjectSchemas.with(schemas)));
+        assertEquals(0, index.update(SubjectSchemas.with(schemas)));
+
+        assertFalse(index.hasRequiredPaths(1));
+        assertTrue(index.hasRequiredPaths(2));
+        assertFalse(index.hasExpectedPaths(2));
+        assertTrue(index.hasRequiredPaths(3));
+        assertTrue(index.hasExpectedPaths(3));
+    }
+
+    @Test
+    void testRemovedVersionsAreDropped() {
+        SchemaFieldIndex index = new SchemaFieldIndex(
+                new HashSet<>(Arrays.asList("a")),
+                new HashSet<>());
+
+        index.update(SubjectSchemas.with(Arrays.asList(testSchema(1, "a"), testSchema(2, "a"))));
+        index.update(SubjectSchemas.with(Arrays.asList(testSchema(2, "a"))));
+
+        assertFalse(index.contains(1));
+        assertTrue(index.contains(2));
+        assertTrue(index.hasExpectedPaths(2));
+    }
+
+    private static BasicSchemaInfo testSchema(int version, String... fields) {
+        StringBuilder fieldsBuilder = new StringBuilder();
+        for (String field : fields) {
+            if (fieldsBuilder.length() > 0) {
+                fieldsBuilder.append(",");
+            }
+            fieldsBuilder.append(String.format("{\"name\":\"%s\",\"type\":\"int\"}", field));
+        }
+        return BasicSchemaInfo.builder().
+                subject("nomatter").
+                version(version).
+                schemaRegistryId(version).
+                schemaJson(String.format(
+                        "{\"type\":\"record\",\"name\":\"testSchema\",\"fields\":[%s]}",
+                        fieldsBuilder)).
+                build();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.serde.kafka;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaIdMapTest {
+
+    @Test
+    void testValuesAreComputedOncePerId() {
+        SchemaIdMap<String> map = new SchemaIdMap<>();
+        AtomicInteger computations = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            for (int id = 0; id < 1000; id++) {
+                assertEquals("v" + id, map.computeIfAbsent(id, key -> {
+                    computations.incrementAndGet();
+                    return "v" + key;
+                }));
+            }
+        }
+
+        assertEquals(1000, computations.get());
+        assertEquals(1000, map.size());
+        assertNull(map.get(1000));
+        assertEquals("v999", map.get(999));
+    }
+
+    @Test
+    void testCollidingIdsAreKeptApart() {
+        SchemaIdMap<Integer> map = new SchemaIdMap<>();
+
+        for (int i = 0; i < 64; i++) {
+            int id = i << 16;
+            map.computeIfAbsent(id, key -> key);
+        }
+
+        for (int i = 0; i < 64; i++) {
+            int id = i << 16;
+            assertEquals(id, (int) map.get(id));
+        }
+        assertNull(map.get(-1));
+    }
+
+    @Test
+    void testMapIsClearedOnceMaxSizeIsReached() {
+        SchemaIdMap<Integer> map = new SchemaIdMap<>(2);
+
+        map.computeIfAbsent(1, key -> key);
+        map.computeIfAbsent(2, key -> key);
+        map.computeIfAbsent(3, key -> key);
+
+        assertEquals(1, map.size());
+        assertNull(map.get(1));
+        assertEquals(3, (int) map.get(3));
+    }
+
+}
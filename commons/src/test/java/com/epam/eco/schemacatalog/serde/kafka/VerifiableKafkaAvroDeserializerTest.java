@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.serde.kafka;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
+import com.epam.eco.schemacatalog.serde.kafka.VerificationResult.Status;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class VerifiableKafkaAvroDeserializerTest {
+
+    private static final String TOPIC = "topic";
+    private static final int SCHEMA_ID = 1;
+
+    private static final Schema TEST_SCHEMA = new Schema.Parser().parse(
+            "{\"type\":\"record\",\"name\":\"x\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}");
+
+    private ExtendedSchemaRegistryClient schemaRegistryClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schemaRegistryClient = mock(ExtendedSchemaRegistryClient.class);
+        when(schemaRegistryClient.subjectExists(anyString())).thenReturn(true);
+        when(schemaRegistryClient.getSchemaById(SCHEMA_ID)).thenReturn(new AvroSchema(TEST_SCHEMA));
+
+        CountingVerifier.VERIFICATIONS.set(0);
+        CountingVerifier.EPOCH.set(0);
+        CountingVerifier.changeEpochOnVerify = false;
+        CountingVerifier.CLOSES.set(0);
+    }
+
+    @Test
+    void testDecisionIsMadeOncePerSchemaId() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+
+        for (int i = 0; i < 10; i++) {
+            Verifiable<?> verifiable = (Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v" + i));
+            assertEquals(Status.PASSED, verifiable.verify().getStatus());
+            assertEquals("v" + i, ((GenericRecord) verifiable.get()).get("a").toString());
+        }
+
+        assertEquals(1, CountingVerifier.VERIFICATIONS.get());
+        verify(schemaRegistryClient, times(1)).getSchemaById(SCHEMA_ID);
+    }
+
+    @Test
+    void testCachedResultIsDroppedOnEpochChange() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v1"))).verify();
+        CountingVerifier.EPOCH.incrementAndGet();
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v2"))).verify();
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v3"))).verify();
+
+        assertEquals(2, CountingVerifier.VERIFICATIONS.get());
+    }
+
+    @Test
+    void testResultRacingWithEpochChangeIsNotReused() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+        CountingVerifier.changeEpochOnVerify = true;
+
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v1"))).verify();
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v2"))).verify();
+        ((Verifiable<?>) deserializer.deserialize(TOPIC, serialize("v3"))).verify();
+
+        assertEquals(2, CountingVerifier.VERIFICATIONS.get());
+    }
+
+    @Test
+    void testVerifierIsClosedWithDeserializer() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+        deserializer.deserialize(TOPIC, serialize("v1"));
+
+        deserializer.close();
+
+        assertEquals(1, CountingVerifier.CLOSES.get());
+    }
+
+    @Test
+    void testDeserializerWithoutVerifierIsClosed() {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+
+        deserializer.close();
+
+        assertEquals(0, CountingVerifier.CLOSES.get());
+    }
+
+    @Test
+    void testHeapBufferIsDecodedInPlace() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+        byte[] payload = serialize("value");
+        byte[] array = new byte[7 + payload.length + 4];
+        Arrays.fill(array, (byte) -1);
+        System.arraycopy(payload, 0, array, 7, payload.length);
+        ByteBuffer buffer = ByteBuffer.wrap(array, 2, array.length - 2).slice();
+        buffer.position(5).limit(5 + payload.length);
+
+        Verifiable<?> verifiable = (Verifiable<?>) deserializer.deserialize(TOPIC, null, buffer);
+
+        assertEquals(2, buffer.arrayOffset());
+        assertEquals("value", ((GenericRecord) verifiable.get()).get("a").toString());
+        assertEquals(Status.PASSED, verifiable.verify().getStatus());
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    void testDirectBufferIsDecodedThroughScratchArray() throws Exception {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+
+        String small = "value";
+        String large = StringUtils.repeat('x', 5_000); // beyond the initial scratch array
+        for (String value : Arrays.asList(small, large, small)) {
+            byte[] payload = serialize(value);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(3 + payload.length + 4);
+            buffer.put(new byte[]{-1, -1, -1}).put(payload).put(new byte[]{-1, -1, -1, -1});
+            buffer.position(3).limit(3 + payload.length);
+
+            Verifiable<?> verifiable = (Verifiable<?>) deserializer.deserialize(TOPIC, null, buffer);
+
+            assertEquals(value, ((GenericRecord) verifiable.get()).get("a").toString());
+            assertEquals(3, buffer.position());
+        }
+    }
+
+    @Test
+    void testBufferWithUnknownMagicByteIsRejected() {
+        VerifiableKafkaAvroDeserializer deserializer = createDeserializer(Map.of());
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 1, 0, 0, 0, 0, 2}, 1, 6);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, null, buffer));
+    }
+
+    @Test
+    void testDirectDecodingCantBeCombinedWithSpecificReader() {
+        assertThrows(
+                ConfigException.class,
+                () -> createDeserializer(Map.of(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true")));
+    }
+
+    private VerifiableKafkaAvroDeserializer createDeserializer(Map<String, ?> extraConfigs) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("schema.registry.url", "http://localhost:8081");
+        configs.put(VerifiableKafkaAvroDeserializer.VALUE_VERIFIER_CLASS_CONFIG, CountingVerifier.class.getName());
+        configs.put(VerifiableKafkaAvroDeserializer.DIRECT_DECODING_CONFIG, "true");
+        configs.putAll(extraConfigs);
+
+        VerifiableKafkaAvroDeserializer deserializer = new VerifiableKafkaAvroDeserializer(schemaRegistryClient);
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+
+    private static byte[] serialize(String value) throws IOException {
+        GenericRecord record = new GenericData.Record(TEST_SCHEMA);
+        record.put("a", value);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(new byte[]{0, 0, 0, SCHEMA_ID});
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(TEST_SCHEMA).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    public static final class CountingVerifier implements Verifier<GenericContainer> {
+
+        static final AtomicInteger VERIFICATIONS = new AtomicInteger();
+        static final AtomicLong EPOCH = new AtomicLong();
+        static final AtomicInteger CLOSES = new AtomicInteger();
+        static volatile boolean changeEpochOnVerify;
+
+        @Override
+        public void init(
+                String subject,
+                ExtendedSchemaRegistryClient schemaRegistryClient,
+                Map<String, ?> config) {
+        }
+
+        @Override
+        public VerificationResult verify(GenericContainer data, Schema originalSchema) {
+            VERIFICATIONS.incrementAndGet();
+            if (changeEpochOnVerify) {
+                // as if the verifier got refreshed while verifying
+                changeEpochOnVerify = false;
+                EPOCH.incrementAndGet();
+            }
+            return VerificationResult.with(Status.PASSED);
+        }
+
+        @Override
+        public boolean isResultCacheable() {
+            return true;
+        }
+
+        @Override
+        public long getResultEpoch() {
+            return EPOCH.get();
+        }
+
+        @Override
+        public void close() {
+            CLOSES.incrementAndGet();
+        }
+
+    }
+
+}
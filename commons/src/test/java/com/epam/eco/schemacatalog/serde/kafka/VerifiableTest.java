@@ -15,11 +15,19 @@
  */
 package com.epam.eco.schemacatalog.serde.kafka;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.Test;
 
 import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
@@ -129,6 +137,110 @@ class VerifiableTest {
         );
     }
 
+    @Test
+    void testDataOfSameSchemaIsVerifiedOnceInBatch() {
+        Schema otherSchema = new Schema.Parser().parse(
+                "{\"type\":\"record\",\"name\":\"y\",\"fields\":[]}");
+        AtomicInteger verifications = new AtomicInteger();
+        Verifier<GenericContainer> verifier = countingVerifier(verifications, true);
+
+        List<ConsumerRecord<Object, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add(new ConsumerRecord<>(
+                    "topic",
+                    0,
+                    i,
+                    null,
+                    Verifiable.with(TEST_RECORD, i % 2 == 0 ? TEST_SCHEMA : otherSchema, verifier)));
+        }
+        Verifiable.verifyAll(
+                new ConsumerRecords<>(Collections.singletonMap(new TopicPartition("topic", 0), records), Map.of()));
+
+        assertEquals(2, verifications.get());
+        for (ConsumerRecord<Object, Object> record : records) {
+            assertEquals(Status.PASSED, ((Verifiable<?>) record.value()).verify().getStatus());
+        }
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testDataIsVerifiedOneByOneInBatchIfResultsAreNotCacheable() {
+        AtomicInteger verifications = new AtomicInteger();
+        Verifier<GenericContainer> verifier = countingVerifier(verifications, false);
+
+        List<Verifiable<GenericContainer>> verifiables = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            verifiables.add(Verifiable.with(TEST_RECORD, TEST_SCHEMA, verifier));
+        }
+        Verifiable.verifyAll(verifiables);
+
+        assertEquals(10, verifications.get());
+    }
+
+    @Test
+    void testResultRacingWithEpochChangeIsNotSharedInBatch() {
+        AtomicInteger verifications = new AtomicInteger();
+        AtomicLong epoch = new AtomicLong();
+        Verifier<GenericContainer> verifier = new Verifier<GenericContainer>() {
+            @Override
+            public void init(String subject, ExtendedSchemaRegistryClient schemaRegistryClient, Map<String, ?> config) {
+            }
+
+            @Override
+            public VerificationResult verify(GenericContainer data, Schema originalSchema) {
+                if (verifications.incrementAndGet() == 1) {
+                    epoch.incrementAndGet(); // as if the verifier got refreshed while verifying
+                }
+                return VerificationResult.with(Status.PASSED);
+            }
+
+            @Override
+            public boolean isResultCacheable() {
+                return true;
+            }
+
+            @Override
+            public long getResultEpoch() {
+                return epoch.get();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        List<Verifiable<GenericContainer>> verifiables = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            verifiables.add(Verifiable.with(TEST_RECORD, TEST_SCHEMA, verifier));
+        }
+        Verifiable.verifyAll(verifiables);
+
+        assertEquals(2, verifications.get());
+    }
+
+    private Verifier<GenericContainer> countingVerifier(AtomicInteger verifications, boolean cacheable) {
+        return new Verifier<GenericContainer>() {
+            @Override
+            public void init(String subject, ExtendedSchemaRegistryClient schemaRegistryClient, Map<String, ?> config) {
+            }
+
+            @Override
+            public VerificationResult verify(GenericContainer data, Schema originalSchema) {
+                verifications.incrementAndGet();
+                return VerificationResult.with(Status.PASSED);
+            }
+
+            @Override
+            public boolean isResultCacheable() {
+                return cacheable;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
     @Test
     void testInitFailedOnInconsistentDataAndSchemaArguments1() {
         assertThrows(
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.utils;
+
+import org.junit.jupiter.api.Test;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class ParsedSchemaPoolTest {
+
+    private static final String SCHEMA_JSON =
+            "{\"type\":\"record\",\"name\":\"TestRecord\",\"fields\":[{\"name\":\"a\",\"type\":\"string\"}]}";
+
+    @Test
+    void testIdenticalTextsAreParsedOnce() {
+        ParsedSchemaPool pool = new ParsedSchemaPool(10);
+
+        ParsedSchema schema1 = pool.intern(SCHEMA_JSON);
+        ParsedSchema schema2 = pool.intern(new String(SCHEMA_JSON));
+
+        assertSame(schema1, schema2);
+        assertEquals(1, pool.getMissCount());
+        assertEquals(1, pool.getHitCount());
+    }
+
+    @Test
+    void testSchemasBeyondMaxSizeAreNotPooled() {
+        ParsedSchemaPool pool = new ParsedSchemaPool(0);
+
+        ParsedSchema schema1 = pool.intern(SCHEMA_JSON);
+        ParsedSchema schema2 = pool.intern(SCHEMA_JSON);
+
+        assertNotSame(schema1, schema2);
+        assertEquals(schema1, schema2);
+        assertEquals(0, pool.size());
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Bounded queue that coalesces values of the same key: a value put while another value
+ * of its key is still queued replaces that value (keeping its position and enqueue time),
+ * so only the latest value of each key is taken.
+ * <p>
+ * Values are taken in batches: {@link #take()} waits until either a full batch is queued
+ * or the oldest value has been waiting for the max delay.
+ *
+ * @author Andrei_Tytsik
+ */
+final class CoalescingBlockingQueue<K, V> {
+
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private boolean closed = false;
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public CoalescingBlockingQueue(int capacity, int batchSize, long maxDelayMs) {
+        Validate.isTrue(capacity > 0, "Capacity is invalid");
+        Validate.isTrue(batchSize > 0, "Batch size is invalid");
+        Validate.isTrue(maxDelayMs >= 0, "Max delay is invalid");
+
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    }
+
+    /**
+     * Puts the value, waiting for space to become available if the key isn't queued yet
+     * and the queue is full.
+     */
+    public void put(K key, V value) throws InterruptedException {
+        Validate.validState(putIfOpen(key, value), "Queue is closed");
+    }
+
+    /**
+     * Same as {@link #put(Object, Object)}, but returns {@code false} rather than failing
+     * if the queue is closed.
+     */
+    public boolean putIfOpen(K key, V value) throws InterruptedException {
+        Validate.notNull(key, "Key is null");
+        Validate.notNull(value, "Value is null");
+
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (closed) {
+                    return false;
+                }
+
+                Entry<V> entry = entries.get(key);
+                if (entry != null) {
+                    entry.value = value;
+                    coalescedCount.increment();
+                    return true;
+                }
+
+                if (entries.size() < capacity) {
+                    entries.put(key, new Entry<>(value, System.nanoTime()));
+                    if (entries.size() == 1 || entries.size() >= batchSize) {
+                        batchReady.signalAll();
+                    }
+                    return true;
+                }
+
+                notFull.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next batch of values in the order their keys were queued. Returns an empty
+     * list only if the queue is closed and drained.
+     */
+    public List<V> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (entries.size() < batchSize && !closed) {
+                if (entries.isEmpty()) {
+                    batchReady.await();
+                    continue;
+                }
+
+                long waitNanos = entries.values().iterator().next().enqueuedNanos + maxDelayNanos - System.nanoTime();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                batchReady.awaitNanos(waitNanos);
+            }
+
+            if (entries.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<V> batch = new ArrayList<>(Math.min(batchSize, entries.size()));
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next().value);
+                iterator.remove();
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the queue: no more values are accepted, those already queued are taken
+     * without waiting.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the time the oldest queued value has been waiting, in nanoseconds.
+     */
+    public long getOldestAgeNanos() {
+        lock.lock();
+        try {
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            return System.nanoTime() - entries.values().iterator().next().enqueuedNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    private static final class Entry<V> {
+
+        private V value;
+        private final long enqueuedNanos;
+
+        private Entry(V value, long enqueuedNanos) {
+            this.value = value;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+    }
+
+}
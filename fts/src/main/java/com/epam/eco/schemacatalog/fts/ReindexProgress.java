@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.Date;
+import java.util.Objects;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Snapshot of the progress of a full reindex (see {@link SchemaDocumentReindexer}).
+ *
+ * @author Andrei_Tytsik
+ */
+public final class ReindexProgress {
+
+    public static final ReindexProgress NOT_STARTED =
+            new ReindexProgress(State.NOT_STARTED, null, 0, 0, 0, null, 0, null);
+
+    private final State state;
+    private final String target;
+    private final long totalCount;
+    private final long indexedCount;
+    private final long failedCount;
+    private final Date startedAt;
+    private final long elapsedMs;
+    private final String error;
+
+    public ReindexProgress(
+            State state,
+            String target,
+            long totalCount,
+            long indexedCount,
+            long failedCount,
+            Date startedAt,
+            long elapsedMs,
+            String error) {
+        Validate.notNull(state, "State is null");
+        Validate.isTrue(totalCount >= 0, "Total count is invalid");
+        Validate.isTrue(indexedCount >= 0, "Indexed count is invalid");
+        Validate.isTrue(failedCount >= 0, "Failed count is invalid");
+        Validate.isTrue(elapsedMs >= 0, "Elapsed time is invalid");
+
+        this.state = state;
+        this.target = target;
+        this.totalCount = totalCount;
+        this.indexedCount = indexedCount;
+        this.failedCount = failedCount;
+        this.startedAt = startedAt != null ? new Date(startedAt.getTime()) : null;
+        this.elapsedMs = elapsedMs;
+        this.error = error;
+    }
+
+    public State getState() {
+        return state;
+    }
+    public String getTarget() {
+        return target;
+    }
+    public long getTotalCount() {
+        return totalCount;
+    }
+    public long getIndexedCount() {
+        return indexedCount;
+    }
+    public long getFailedCount() {
+        return failedCount;
+    }
+    public Date getStartedAt() {
+        return startedAt != null ? new Date(startedAt.getTime()) : null;
+    }
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Share of schemas processed (indexed or failed), from 0 to 1.
+     */
+    public double getProgress() {
+        if (totalCount == 0) {
+            return state == State.COMPLETED ? 1 : 0;
+        }
+        return Math.min(1, (double) (indexedCount + failedCount) / totalCount);
+    }
+
+    /**
+     * Documents indexed per second.
+     */
+    public double getThroughput() {
+        return elapsedMs > 0 ? indexedCount * 1000d / elapsedMs : 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(state, target, totalCount, indexedCount, failedCount, startedAt, elapsedMs, error);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ReindexProgress that = (ReindexProgress) obj;
+        return
+                Objects.equals(this.state, that.state) &&
+                Objects.equals(this.target, that.target) &&
+                this.totalCount == that.totalCount &&
+                this.indexedCount == that.indexedCount &&
+                this.failedCount == that.failedCount &&
+                Objects.equals(this.startedAt, that.startedAt) &&
+                this.elapsedMs == that.elapsedMs &&
+                Objects.equals(this.error, that.error);
+    }
+
+    @Override
+    public String toString() {
+        return
+                "{state: " + state +
+                ", target: " + target +
+                ", totalCount: " + totalCount +
+                ", indexedCount: " + indexedCount +
+                ", failedCount: " + failedCount +
+                ", startedAt: " + startedAt +
+                ", elapsedMs: " + elapsedMs +
+                ", error: " + error +
+                "}";
+    }
+
+    public enum State {
+        NOT_STARTED, RUNNING, COMPLETED, FAILED
+    }
+
+}
@@ -19,8 +19,17 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
@@ -28,62 +37,341 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
 
 import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.SubjectAndVersion;
+import com.epam.eco.schemacatalog.fts.autoconfigure.SchemaCatalogFtsProperties;
 import com.epam.eco.schemacatalog.fts.convert.SchemaDocumentConverter;
 import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentRepository;
 import com.epam.eco.schemacatalog.store.SchemaCatalogStoreUpdateListener;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 /**
+ * Indexes schemas asynchronously, so a slow index doesn't hold up threads that deliver
+ * store updates. Updates are queued (see {@link CoalescingBlockingQueue}), so repeated
+ * updates of the same schema are indexed once. Queued updates are flushed in bulks by
+ * a single thread, either once a bulk is full or once the oldest update has waited for
+ * the flush interval. Schemas of a bulk are converted into documents in parallel, bulk
+ * requests that fail are retried with exponential backoff.
+ * <p>
+ * Threads delivering updates block only if the queue is full. Updates delivered once
+ * the indexer is stopped are dropped.
+ *
  * @author Andrei_Tytsik
  */
-public class SchemaDocumentIndexer implements SchemaCatalogStoreUpdateListener {
+public class SchemaDocumentIndexer implements SchemaCatalogStoreUpdateListener, SmartLifecycle, MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SchemaDocumentIndexer.class);
 
-    private static final int MAX_BULK_SIZE = 1000;
+    public static final String QUEUE_DEPTH_METRIC_NAME = "schemacatalog.fts.indexing.queue.depth";
+    public static final String LAG_METRIC_NAME = "schemacatalog.fts.indexing.lag";
+    public static final String COALESCED_METRIC_NAME = "schemacatalog.fts.indexing.coalesced";
+    public static final String INDEXED_METRIC_NAME = "schemacatalog.fts.indexing.indexed";
+    public static final String DELETED_METRIC_NAME = "schemacatalog.fts.indexing.deleted";
+    public static final String FAILED_METRIC_NAME = "schemacatalog.fts.indexing.failed";
+    public static final String RETRIES_METRIC_NAME = "schemacatalog.fts.indexing.retries";
 
     @Autowired
     private SchemaDocumentRepository repository;
 
+    @Autowired
+    private SchemaCatalogFtsProperties properties;
+
+    private CoalescingBlockingQueue<String, IndexOperation> queue;
+
+    private ExecutorService conversionExecutor;
+    private Thread flusherThread;
+    private volatile boolean running = false;
+
+    /**
+     * Enqueue time of the oldest operation of the bulk being flushed (or 0).
+     */
+    private volatile long inFlightEnqueuedNanos;
+
+    private final LongAdder indexedCount = new LongAdder();
+    private final LongAdder deletedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+
+    @PostConstruct
+    private void init() {
+        queue = new CoalescingBlockingQueue<>(
+                properties.getIndexingQueueCapacity(),
+                properties.getIndexingBulkSize(),
+                properties.getIndexingFlushIntervalMs());
+    }
+
     @Override
     public void onSchemasUpdated(Collection<FullSchemaInfo> schemas) {
-        List<FullSchemaInfo> schemaList =
-                schemas instanceof List ?
-                (List<FullSchemaInfo>)schemas :
-                new ArrayList<>(schemas);
-
-        List<List<FullSchemaInfo>> schemaBulks = ListUtils.partition(schemaList, MAX_BULK_SIZE);
-        for (List<FullSchemaInfo> schemaBulk : schemaBulks) {
-            try {
-                List<SchemaDocument> documents = schemaBulk.stream().
-                        filter(s -> !schemaFiltered(s)).
-                        map(SchemaDocumentConverter::convert).
-                        collect(Collectors.toList());
-                if (!CollectionUtils.isEmpty(documents)) {
-                    repository.saveAll(documents);
+        long enqueuedNanos = System.nanoTime();
+        try {
+            for (FullSchemaInfo schemaInfo : schemas) {
+                if (schemaFiltered(schemaInfo)) {
+                    continue;
+                }
+                if (!queue.putIfOpen(schemaInfo.getEcoId(), IndexOperation.update(schemaInfo, enqueuedNanos))) {
+                    LOGGER.warn("Indexer is stopped, {} updated schema(s) dropped", schemas.size());
+                    return;
                 }
-            } catch (Exception ex) {
-                LOGGER.error("Failed to index schemas", ex);
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while queueing schemas to index", ie);
         }
     }
 
     @Override
     public void onSchemasDeleted(Collection<SubjectAndVersion> subjectAndVersions) {
-        List<SchemaDocument> schemaList = subjectAndVersions.stream().
-                map(SchemaDocumentConverter::convert).
-                collect(Collectors.toList());
+        long enqueuedNanos = System.nanoTime();
+        try {
+            for (SubjectAndVersion subjectAndVersion : subjectAndVersions) {
+                SchemaDocument document = SchemaDocumentConverter.convert(subjectAndVersion);
+                if (!queue.putIfOpen(document.getEcoId(), IndexOperation.delete(document, enqueuedNanos))) {
+                    LOGGER.warn("Indexer is stopped, {} deleted schema(s) dropped", subjectAndVersions.size());
+                    return;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while queueing schemas to delete", ie);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+
+        int parallelism = properties.getIndexingConversionParallelism();
+        if (parallelism > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            conversionExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "schema-document-converter-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        flusherThread = new Thread(this::runFlusher, "schema-document-indexer");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        // flush what is queued and stop
+        queue.close();
+        try {
+            flusherThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            flusherThread.interrupt();
+        }
+        if (conversionExecutor != null) {
+            conversionExecutor.shutdownNow();
+        }
+
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the store, so store updates are never left unflushed.
+     */
+    @Override
+    public int getPhase() {
+        return -1;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(QUEUE_DEPTH_METRIC_NAME, this, SchemaDocumentIndexer::getQueueDepth).
+                description("Schemas waiting to be indexed").
+                register(registry);
+        TimeGauge.builder(LAG_METRIC_NAME, this, TimeUnit.NANOSECONDS, SchemaDocumentIndexer::getLagNanos).
+                description("Time the oldest schema not yet indexed has been waiting").
+                register(registry);
+        FunctionCounter.builder(COALESCED_METRIC_NAME, queue, CoalescingBlockingQueue::getCoalescedCount).
+                description("Schema updates coalesced with updates already queued").
+                register(registry);
+        FunctionCounter.builder(INDEXED_METRIC_NAME, indexedCount, LongAdder::sum).
+                description("Schema documents indexed").
+                register(registry);
+        FunctionCounter.builder(DELETED_METRIC_NAME, deletedCount, LongAdder::sum).
+                description("Schema documents deleted").
+                register(registry);
+        FunctionCounter.builder(FAILED_METRIC_NAME, failedCount, LongAdder::sum).
+                description("Schema documents failed to be indexed or deleted").
+                register(registry);
+        FunctionCounter.builder(RETRIES_METRIC_NAME, retryCount, LongAdder::sum).
+                description("Bulk requests retried").
+                register(registry);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getLagNanos() {
+        long inFlightEnqueuedNanos = this.inFlightEnqueuedNanos;
+        long inFlightAgeNanos = inFlightEnqueuedNanos != 0 ? System.nanoTime() - inFlightEnqueuedNanos : 0;
+        return Math.max(inFlightAgeNanos, queue.getOldestAgeNanos());
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<IndexOperation> bulk;
+            try {
+                bulk = queue.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (bulk.isEmpty()) {
+                return;
+            }
+
+            inFlightEnqueuedNanos = bulk.stream().mapToLong(op -> op.enqueuedNanos).min().getAsLong();
+            try {
+                flush(bulk);
+            } catch (Exception ex) {
+                LOGGER.error("Failed to flush schemas", ex);
+            } finally {
+                inFlightEnqueuedNanos = 0;
+            }
+        }
+    }
+
+    private void flush(List<IndexOperation> bulk) {
+        List<FullSchemaInfo> schemasToIndex = new ArrayList<>();
+        List<SchemaDocument> documentsToDelete = new ArrayList<>();
+        for (IndexOperation operation : bulk) {
+            if (operation.schemaInfo != null) {
+                schemasToIndex.add(operation.schemaInfo);
+            } else {
+                documentsToDelete.add(operation.deletedDocument);
+            }
+        }
+
+        List<SchemaDocument> documentsToIndex = convert(schemasToIndex);
+        if (!CollectionUtils.isEmpty(documentsToIndex)) {
+            if (executeWithRetry("index schemas", () -> repository.saveAll(documentsToIndex))) {
+                indexedCount.add(documentsToIndex.size());
+            } else {
+                failedCount.add(documentsToIndex.size());
+            }
+        }
+        if (!CollectionUtils.isEmpty(documentsToDelete)) {
+            if (executeWithRetry("delete schemas", () -> repository.deleteAll(documentsToDelete))) {
+                deletedCount.add(documentsToDelete.size());
+            } else {
+                failedCount.add(documentsToDelete.size());
+            }
+        }
+    }
+
+    private List<SchemaDocument> convert(List<FullSchemaInfo> schemas) {
+        if (conversionExecutor == null || schemas.size() < 2) {
+            return convertSequentially(schemas);
+        }
+
+        int partitionSize = (schemas.size() + properties.getIndexingConversionParallelism() - 1) /
+                properties.getIndexingConversionParallelism();
+        List<Callable<List<SchemaDocument>>> tasks = new ArrayList<>();
+        for (List<FullSchemaInfo> partition : ListUtils.partition(schemas, partitionSize)) {
+            tasks.add(() -> convertSequentially(partition));
+        }
 
+        List<SchemaDocument> documents = new ArrayList<>(schemas.size());
         try {
-            repository.deleteAll(schemaList);
-        } catch (Exception ex) {
-            LOGGER.error("Failed to delete schemas", ex);
+            for (Future<List<SchemaDocument>> future : conversionExecutor.invokeAll(tasks)) {
+                documents.addAll(future.get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while converting schemas", ie);
+        } catch (ExecutionException ee) {
+            throw new RuntimeException("Failed to convert schemas", ee.getCause());
+        }
+        return documents;
+    }
+
+    private List<SchemaDocument> convertSequentially(List<FullSchemaInfo> schemas) {
+        List<SchemaDocument> documents = new ArrayList<>(schemas.size());
+        for (FullSchemaInfo schemaInfo : schemas) {
+            try {
+                documents.add(SchemaDocumentConverter.convert(schemaInfo));
+            } catch (Exception ex) {
+                failedCount.increment();
+                LOGGER.error(
+                        String.format(
+                                "Failed to convert schema subject=%s version=%d",
+                                StringUtils.abbreviate(schemaInfo.getSubject(), 100),
+                                schemaInfo.getVersion()),
+                        ex);
+            }
+        }
+        return documents;
+    }
+
+    private boolean executeWithRetry(String action, Runnable request) {
+        long backoffMs = properties.getIndexingRetryBackoffMs();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                request.run();
+                return true;
+            } catch (Exception ex) {
+                if (attempt > properties.getIndexingMaxRetries()) {
+                    LOGGER.error(String.format("Failed to %s", action), ex);
+                    return false;
+                }
+
+                LOGGER.warn(
+                        "Failed to {} (attempt {}), retrying in {} ms: {}",
+                        action, attempt, backoffMs, ex.getMessage());
+                retryCount.increment();
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.error(String.format("Interrupted while retrying to %s", action), ex);
+                    return false;
+                }
+                backoffMs = Math.min(backoffMs * 2, properties.getIndexingMaxRetryBackoffMs());
+            }
         }
     }
 
-    private static boolean schemaFiltered(FullSchemaInfo schemaInfo) {
+    static boolean schemaFiltered(FullSchemaInfo schemaInfo) {
         for (SchemaFilter filter : SchemaFilter.values()) {
             FilterResult result = filter.test(schemaInfo);
             if (!result.isPass()) {
@@ -98,6 +386,28 @@ public class SchemaDocumentIndexer implements SchemaCatalogStoreUpdateListener {
         return false;
     }
 
+    private static final class IndexOperation {
+
+        private final FullSchemaInfo schemaInfo;
+        private final SchemaDocument deletedDocument;
+        private final long enqueuedNanos;
+
+        private IndexOperation(FullSchemaInfo schemaInfo, SchemaDocument deletedDocument, long enqueuedNanos) {
+            this.schemaInfo = schemaInfo;
+            this.deletedDocument = deletedDocument;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        public static IndexOperation update(FullSchemaInfo schemaInfo, long enqueuedNanos) {
+            return new IndexOperation(schemaInfo, null, enqueuedNanos);
+        }
+
+        public static IndexOperation delete(SchemaDocument document, long enqueuedNanos) {
+            return new IndexOperation(null, document, enqueuedNanos);
+        }
+
+    }
+
     private enum SchemaFilter {
 
         ID_TOO_LONG {
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
+import com.epam.eco.schemacatalog.fts.ReindexProgress.State;
+import com.epam.eco.schemacatalog.fts.autoconfigure.SchemaCatalogFtsProperties;
+import com.epam.eco.schemacatalog.fts.convert.SchemaDocumentConverter;
+import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentBackend;
+import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentReindex;
+import com.epam.eco.schemacatalog.store.SchemaCatalogStore;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Rebuilds the schema index from all schemas of the store, in the background and without
+ * downtime (see {@link SchemaDocumentReindex}). Schemas are converted and loaded in bulks
+ * by parallel workers. Updates of the store keep being indexed meanwhile, into both the
+ * current and the rebuilt index.
+ * <p>
+ * If any bulk fails to load, the rebuilt index is discarded and the current one is kept.
+ * Progress and throughput are logged periodically and exposed as metrics.
+ *
+ * @author Andrei_Tytsik
+ */
+public class SchemaDocumentReindexer implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaDocumentReindexer.class);
+
+    public static final String RUNNING_METRIC_NAME = "schemacatalog.fts.reindex.running";
+    public static final String PROGRESS_METRIC_NAME = "schemacatalog.fts.reindex.progress";
+    public static final String INDEXED_METRIC_NAME = "schemacatalog.fts.reindex.indexed";
+    public static final String THROUGHPUT_METRIC_NAME = "schemacatalog.fts.reindex.throughput";
+
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long WORKERS_TERMINATION_TIMEOUT_MS = 60_000;
+
+    @Autowired
+    private SchemaCatalogStore store;
+
+    @Autowired
+    private SchemaDocumentBackend backend;
+
+    @Autowired
+    private SchemaCatalogFtsProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile State state = State.NOT_STARTED;
+    private volatile String target;
+    private volatile Date startedAt;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile long totalCount;
+    private volatile String error;
+
+    private final LongAdder indexedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicLong lastLoggedNanos = new AtomicLong();
+
+    /**
+     * Starts a reindex in the background.
+     *
+     * @return progress of the started reindex
+     * @throws IllegalStateException if another reindex is in progress
+     */
+    public ReindexProgress startReindex() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reindex is already in progress");
+        }
+
+        SchemaDocumentReindex reindex;
+        try {
+            reindex = backend.beginReindex();
+        } catch (RuntimeException ex) {
+            running.set(false);
+            throw ex;
+        }
+
+        indexedCount.reset();
+        failedCount.reset();
+        totalCount = 0;
+        error = null;
+        target = reindex.getTarget();
+        startedAt = new Date();
+        startedNanos = System.nanoTime();
+        lastLoggedNanos.set(startedNanos);
+        finishedNanos = 0;
+        state = State.RUNNING;
+
+        LOGGER.info("Reindex into {} started", target);
+
+        Thread thread = new Thread(() -> run(reindex), "schema-document-reindexer");
+        thread.setDaemon(true);
+        thread.start();
+
+        return getProgress();
+    }
+
+    public ReindexProgress getProgress() {
+        State state = this.state;
+        if (state == State.NOT_STARTED) {
+            return ReindexProgress.NOT_STARTED;
+        }
+
+        long finishedNanos = this.finishedNanos;
+        long elapsedNanos = (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startedNanos;
+        return new ReindexProgress(
+                state,
+                target,
+                totalCount,
+                indexedCount.sum(),
+                failedCount.sum(),
+                startedAt,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                error);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(RUNNING_METRIC_NAME, running, value -> value.get() ? 1 : 0).
+                description("Whether the schema index is being rebuilt").
+                register(registry);
+        Gauge.builder(PROGRESS_METRIC_NAME, this, reindexer -> reindexer.getProgress().getProgress()).
+                description("Share of schemas processed by the last reindex").
+                register(registry);
+        Gauge.builder(INDEXED_METRIC_NAME, indexedCount, LongAdder::sum).
+                description("Schema documents indexed by the last reindex").
+                register(registry);
+        Gauge.builder(THROUGHPUT_METRIC_NAME, this, reindexer -> reindexer.getProgress().getThroughput()).
+                description("Schema documents indexed per second by the last reindex").
+                register(registry);
+    }
+
+    private void run(SchemaDocumentReindex reindex) {
+        Exception failure = null;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.getReindexParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "schema-document-reindex-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<FullSchemaInfo> schemas = store.getAllSchemas();
+            totalCount = schemas.size();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<FullSchemaInfo> bulk : ListUtils.partition(schemas, properties.getIndexingBulkSize())) {
+                futures.add(workers.submit(() -> load(reindex, bulk)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            failure = ie;
+        } catch (ExecutionException ee) {
+            failure = ee.getCause() instanceof Exception ? (Exception) ee.getCause() : ee;
+        } catch (Exception ex) {
+            failure = ex;
+        } finally {
+            // no loads must be running once the reindex is completed or aborted
+            shutdown(workers);
+        }
+
+        try {
+            if (failure == null) {
+                reindex.complete();
+            }
+        } catch (Exception ex) {
+            failure = ex;
+        }
+
+        if (failure != null) {
+            reindex.abort();
+            error = failure.getMessage();
+            finish(State.FAILED);
+            LOGGER.error(String.format("Reindex into %s failed: %s", target, getProgress()), failure);
+        } else {
+            finish(State.COMPLETED);
+            LOGGER.info("Reindex into {} completed: {}", target, getProgress());
+        }
+    }
+
+    private void finish(State state) {
+        finishedNanos = System.nanoTime();
+        this.state = state;
+        running.set(false);
+    }
+
+    private void load(SchemaDocumentReindex reindex, List<FullSchemaInfo> schemas) {
+        List<SchemaDocument> documents = new ArrayList<>(schemas.size());
+        for (FullSchemaInfo schemaInfo : schemas) {
+            if (SchemaDocumentIndexer.schemaFiltered(schemaInfo)) {
+                failedCount.increment();
+                continue;
+            }
+            try {
+                documents.add(SchemaDocumentConverter.convert(schemaInfo));
+            } catch (Exception ex) {
+                failedCount.increment();
+                LOGGER.error(
+                        String.format(
+                                "Failed to convert schema subject=%s version=%d",
+                                StringUtils.abbreviate(schemaInfo.getSubject(), 100),
+                                schemaInfo.getVersion()),
+                        ex);
+            }
+        }
+
+        reindex.load(documents);
+        indexedCount.add(documents.size());
+
+        logProgress();
+    }
+
+    private void logProgress() {
+        long lastLogged = lastLoggedNanos.get();
+        long now = System.nanoTime();
+        if (now - lastLogged >= PROGRESS_LOG_INTERVAL_NANOS && lastLoggedNanos.compareAndSet(lastLogged, now)) {
+            ReindexProgress progress = getProgress();
+            LOGGER.info(
+                    "Reindex into {}: {}/{} schemas processed ({} failed), {} documents/s",
+                    target,
+                    progress.getIndexedCount() + progress.getFailedCount(),
+                    progress.getTotalCount(),
+                    progress.getFailedCount(),
+                    String.format("%.1f", progress.getThroughput()));
+        }
+    }
+
+    private static void shutdown(ExecutorService workers) {
+        workers.shutdownNow();
+        try {
+            if (!workers.awaitTermination(WORKERS_TERMINATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Reindex workers haven't terminated in {} ms", WORKERS_TERMINATION_TIMEOUT_MS);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -15,13 +15,22 @@
  */
 package com.epam.eco.schemacatalog.fts.autoconfigure;
 
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
 import com.epam.eco.schemacatalog.fts.SchemaDocumentIndexer;
+import com.epam.eco.schemacatalog.fts.SchemaDocumentReindexer;
+import com.epam.eco.schemacatalog.fts.repo.ElasticsearchSchemaDocumentBackend;
+import com.epam.eco.schemacatalog.fts.repo.LuceneSchemaDocumentBackend;
+import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentBackend;
 
 /**
  * @author Andrei_Tytsik
@@ -31,9 +40,42 @@ import com.epam.eco.schemacatalog.fts.SchemaDocumentIndexer;
 @EnableConfigurationProperties(SchemaCatalogFtsProperties.class)
 public class SchemaCatalogFtsAutoConfiguration {
 
+    @Autowired
+    private SchemaCatalogFtsProperties properties;
+
     @Bean
     public SchemaDocumentIndexer schemaDocumentIndexer() {
         return new SchemaDocumentIndexer();
     }
 
+    @Bean
+    public SchemaDocumentReindexer schemaDocumentReindexer() {
+        return new SchemaDocumentReindexer();
+    }
+
+    @Bean
+    @ConditionalOnProperty(
+            prefix = "eco.schemacatalog.fts",
+            name = "backend",
+            havingValue = SchemaCatalogFtsProperties.BACKEND_ELASTICSEARCH,
+            matchIfMissing = true)
+    public SchemaDocumentBackend elasticsearchSchemaDocumentBackend() {
+        return new ElasticsearchSchemaDocumentBackend(properties.getCursorKeepAliveMs());
+    }
+
+    @Bean
+    @ConditionalOnProperty(
+            prefix = "eco.schemacatalog.fts",
+            name = "backend",
+            havingValue = SchemaCatalogFtsProperties.BACKEND_LUCENE)
+    public SchemaDocumentBackend luceneSchemaDocumentBackend() {
+        String indexPath = properties.getLuceneIndexPath() != null ?
+                properties.getLuceneIndexPath() :
+                Paths.get(System.getProperty("java.io.tmpdir"), SchemaDocument.INDEX_NAME).toString();
+        return new LuceneSchemaDocumentBackend(
+                Paths.get(indexPath),
+                LuceneSchemaDocumentBackend.DEFAULT_MAX_RESULT_WINDOW,
+                properties.getCursorKeepAliveMs());
+    }
+
 }
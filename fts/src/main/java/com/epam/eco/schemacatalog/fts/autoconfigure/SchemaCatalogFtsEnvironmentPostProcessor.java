@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.autoconfigure;
+
+import java.util.Collections;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Disables the Elasticsearch health indicator if the Lucene backend is enabled, so the
+ * health of the application doesn't depend on a cluster it doesn't use. The indicator
+ * is disabled by a property source of the lowest precedence, so an explicitly configured
+ * {@code management.health.elasticsearch.enabled} is kept.
+ *
+ * @author Andrei_Tytsik
+ */
+public class SchemaCatalogFtsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String PROPERTY_SOURCE_NAME = "schemaCatalogFtsDefaults";
+
+    private static final String BACKEND_PROPERTY = "eco.schemacatalog.fts.backend";
+    private static final String ELASTICSEARCH_HEALTH_ENABLED_PROPERTY = "management.health.elasticsearch.enabled";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String backend = environment.getProperty(BACKEND_PROPERTY);
+        if (!SchemaCatalogFtsProperties.BACKEND_LUCENE.equalsIgnoreCase(backend)) {
+            return;
+        }
+
+        environment.getPropertySources().addLast(
+                new MapPropertySource(
+                        PROPERTY_SOURCE_NAME,
+                        Collections.singletonMap(ELASTICSEARCH_HEALTH_ENABLED_PROPERTY, false)));
+    }
+
+}
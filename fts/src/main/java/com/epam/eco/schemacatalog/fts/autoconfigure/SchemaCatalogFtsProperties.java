@@ -22,4 +22,87 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "eco.schemacatalog.fts")
 public class SchemaCatalogFtsProperties {
+
+    public static final String BACKEND_ELASTICSEARCH = "elasticsearch";
+    public static final String BACKEND_LUCENE = "lucene";
+
+    private String backend = BACKEND_ELASTICSEARCH;
+    private String luceneIndexPath;
+    private long cursorKeepAliveMs = 300_000;
+    private int indexingQueueCapacity = 100_000;
+    private int indexingBulkSize = 1000;
+    private long indexingFlushIntervalMs = 1000;
+    private int indexingConversionParallelism = 4;
+    private int indexingMaxRetries = 5;
+    private long indexingRetryBackoffMs = 500;
+    private long indexingMaxRetryBackoffMs = 30_000;
+    private int reindexParallelism = 4;
+
+    public String getBackend() {
+        return backend;
+    }
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+    public String getLuceneIndexPath() {
+        return luceneIndexPath;
+    }
+    public void setLuceneIndexPath(String luceneIndexPath) {
+        this.luceneIndexPath = luceneIndexPath;
+    }
+    public long getCursorKeepAliveMs() {
+        return cursorKeepAliveMs;
+    }
+    public void setCursorKeepAliveMs(long cursorKeepAliveMs) {
+        this.cursorKeepAliveMs = cursorKeepAliveMs;
+    }
+    public int getIndexingQueueCapacity() {
+        return indexingQueueCapacity;
+    }
+    public void setIndexingQueueCapacity(int indexingQueueCapacity) {
+        this.indexingQueueCapacity = indexingQueueCapacity;
+    }
+    public int getIndexingBulkSize() {
+        return indexingBulkSize;
+    }
+    public void setIndexingBulkSize(int indexingBulkSize) {
+        this.indexingBulkSize = indexingBulkSize;
+    }
+    public long getIndexingFlushIntervalMs() {
+        return indexingFlushIntervalMs;
+    }
+    public void setIndexingFlushIntervalMs(long indexingFlushIntervalMs) {
+        this.indexingFlushIntervalMs = indexingFlushIntervalMs;
+    }
+    public int getIndexingConversionParallelism() {
+        return indexingConversionParallelism;
+    }
+    public void setIndexingConversionParallelism(int indexingConversionParallelism) {
+        this.indexingConversionParallelism = indexingConversionParallelism;
+    }
+    public int getIndexingMaxRetries() {
+        return indexingMaxRetries;
+    }
+    public void setIndexingMaxRetries(int indexingMaxRetries) {
+        this.indexingMaxRetries = indexingMaxRetries;
+    }
+    public long getIndexingRetryBackoffMs() {
+        return indexingRetryBackoffMs;
+    }
+    public void setIndexingRetryBackoffMs(long indexingRetryBackoffMs) {
+        this.indexingRetryBackoffMs = indexingRetryBackoffMs;
+    }
+    public long getIndexingMaxRetryBackoffMs() {
+        return indexingMaxRetryBackoffMs;
+    }
+    public void setIndexingMaxRetryBackoffMs(long indexingMaxRetryBackoffMs) {
+        this.indexingMaxRetryBackoffMs = indexingMaxRetryBackoffMs;
+    }
+    public int getReindexParallelism() {
+        return reindexParallelism;
+    }
+    public void setReindexParallelism(int reindexParallelism) {
+        this.reindexParallelism = reindexParallelism;
+    }
+
 }
@@ -0,0 +1,726 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.Validate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.AggregationsContainer;
+import org.springframework.data.elasticsearch.core.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.DocumentAdapters;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
+import com.epam.eco.schemacatalog.fts.FtsConstants;
+import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
+import com.epam.eco.schemacatalog.fts.QueryStringQuery;
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
+import com.epam.eco.schemacatalog.fts.SearchParams;
+import com.epam.eco.schemacatalog.fts.SearchResult;
+
+import static java.lang.Boolean.TRUE;
+
+/**
+ * Stores and searches schema documents in Elasticsearch. The index is accessed through
+ * the {@link SchemaDocument#INDEX_NAME} alias, so it can be rebuilt without downtime.
+ *
+ * @author Andrei_Tytsik
+ */
+public class ElasticsearchSchemaDocumentBackend implements SchemaDocumentBackend {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchSchemaDocumentBackend.class);
+
+    public static final long DEFAULT_CURSOR_KEEP_ALIVE_MS = 300_000;
+
+    private static final String QUERY_NULL_MESSAGE = "Query is null";
+
+    private static final String REFRESH_INTERVAL_SETTING = IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey();
+    private static final String NUMBER_OF_REPLICAS_SETTING = IndexMetadata.SETTING_NUMBER_OF_REPLICAS;
+
+    /**
+     * Tiebreaker of cursor paged searches. Eco ids longer than the keyword sub-field keeps
+     * are left without a sort value, Elasticsearch breaks ties among them by the implicit
+     * shard doc sort of the point in time.
+     */
+    private static final String ECO_ID_SORT_FIELD = FtsConstants.FIELD_ECO_ID + ".keyword";
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private RestHighLevelClient restHighLevelClient;
+
+    private final long cursorKeepAliveMs;
+
+    private volatile int maxResultWindow;
+
+    private final AtomicReference<ElasticsearchReindex> reindex = new AtomicReference<>();
+
+    public ElasticsearchSchemaDocumentBackend() {
+        this(DEFAULT_CURSOR_KEEP_ALIVE_MS);
+    }
+
+    public ElasticsearchSchemaDocumentBackend(long cursorKeepAliveMs) {
+        Validate.isTrue(cursorKeepAliveMs > 0, "Cursor keep alive is invalid");
+
+        this.cursorKeepAliveMs = cursorKeepAliveMs;
+    }
+
+    @PostConstruct
+    private void init() {
+        createIndexIfNotCreated();
+        readMaxResultWindowSetting();
+    }
+
+    /**
+     * The index is a versioned one behind the {@link SchemaDocument#INDEX_NAME} alias, so
+     * it can be rebuilt and swapped (see {@link #beginReindex()}). Indexes created before
+     * are concrete ones named as the alias, they are replaced by the first rebuild.
+     */
+    private void createIndexIfNotCreated() {
+        IndexOperations indexOperations = elasticsearchOperations.indexOps(SchemaDocument.class);
+        if (indexOperations.exists()) {
+            return;
+        }
+
+        createVersionedIndex(newVersionedIndexName(), createIndexSettings(), true);
+    }
+
+    private void readMaxResultWindowSetting() {
+        try {
+            GetSettingsResponse response = restHighLevelClient.indices().getSettings(
+                    new GetSettingsRequest().
+                            indices(SchemaDocument.INDEX_NAME).
+                            names(IndexSettings.MAX_RESULT_WINDOW_SETTING.getKey()).
+                            includeDefaults(true),
+                    RequestOptions.DEFAULT);
+            String maxResultWindowStr = response.getIndexToSettings().keySet().stream().
+                    map(index -> response.getSetting(index, IndexSettings.MAX_RESULT_WINDOW_SETTING.getKey())).
+                    filter(Objects::nonNull).
+                    findFirst().
+                    orElse(null);
+            maxResultWindow =
+                    maxResultWindowStr != null ?
+                            Integer.parseInt(maxResultWindowStr) :
+                            IndexSettings.MAX_RESULT_WINDOW_SETTING.getDefault(null);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to read index settings", ioe);
+        }
+    }
+
+    @Override
+    public int getMaxResultWindow() {
+        return maxResultWindow;
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(Query query) {
+        Validate.notNull(query, QUERY_NULL_MESSAGE);
+        query.setTrackTotalHits(TRUE);
+        return toSearchResult(
+                elasticsearchOperations.search(
+                        query,
+                        SchemaDocument.class,
+                        IndexCoordinates.of(SchemaDocument.INDEX_NAME)
+                ),
+                query.getPageable()
+        );
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query) {
+        return searchByQuery(query, null);
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query, Collection<String> includedFields) {
+        Validate.notNull(query, QUERY_NULL_MESSAGE);
+        NativeSearchQueryBuilder queryBuilder = new NativeSearchQueryBuilder();
+        queryBuilder.
+                withQuery(QueryBuilders.wrapperQuery(query.getJson())).
+                withPageable(query.getPageable());
+        withSourceFilter(queryBuilder, includedFields);
+        NativeSearchQuery nativeSearchQuery = buildNativeSearchQuery(queryBuilder);
+
+        return toSearchResult(
+                elasticsearchOperations.search(
+                        nativeSearchQuery,
+                        SchemaDocument.class,
+                        IndexCoordinates.of(SchemaDocument.INDEX_NAME)
+                ),
+                nativeSearchQuery.getPageable()
+        );
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(QueryStringQuery query) {
+        Validate.notNull(query, QUERY_NULL_MESSAGE);
+        NativeSearchQuery nativeSearchQuery = buildNativeSearchQuery(
+                QueryBuilders.queryStringQuery(query.getQueryString()), query.getPageable());
+
+        return toSearchResult(
+                elasticsearchOperations.search(
+                        nativeSearchQuery,
+                        SchemaDocument.class,
+                        IndexCoordinates.of(SchemaDocument.INDEX_NAME)
+                ),
+                nativeSearchQuery.getPageable()
+        );
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByParams(SearchParams params) {
+        return searchByParams(params, null);
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByParams(SearchParams params, Collection<String> includedFields) {
+        Validate.notNull(params, "Search params object is null");
+
+        NativeSearchQueryBuilder queryBuilder =
+                initQueryBuilder(
+                        params,
+                        createBoostedQuery(params),
+                        params.getPageable());
+        queryBuilder.withFilter(createFilter(params));
+        withSourceFilter(queryBuilder, includedFields);
+        NativeSearchQuery nativeSearchQuery = buildNativeSearchQuery(queryBuilder);
+
+        return toSearchResult(
+                elasticsearchOperations.search(
+                        nativeSearchQuery,
+                        SchemaDocument.class,
+                        IndexCoordinates.of(SchemaDocument.INDEX_NAME)
+                ),
+                nativeSearchQuery.getPageable()
+        );
+    }
+
+    @Override
+    public CursorSearchResult<SchemaDocument> scrollByParams(
+            SearchParams params,
+            String cursor,
+            Collection<String> includedFields) {
+        Validate.notNull(params, "Search params object is null");
+
+        SearchCursor searchCursor = cursor != null ? SearchCursor.decode(cursor) : null;
+        TimeValue keepAlive = TimeValue.timeValueMillis(cursorKeepAliveMs);
+        int pageSize = params.getPageSizeOrDefaultIfInvalid();
+
+        try {
+            String pointInTimeId =
+                    searchCursor != null ?
+                    searchCursor.getPointInTimeId() :
+                    restHighLevelClient.openPointInTime(
+                            new OpenPointInTimeRequest(SchemaDocument.INDEX_NAME).keepAlive(keepAlive),
+                            RequestOptions.DEFAULT).getPointInTimeId();
+
+            SearchSourceBuilder source = new SearchSourceBuilder().
+                    query(createBoostedQuery(params)).
+                    postFilter(createFilter(params)).
+                    size(pageSize).
+                    trackTotalHits(searchCursor == null).
+                    sort(SortBuilders.scoreSort().order(SortOrder.DESC)).
+                    sort(SortBuilders.fieldSort(ECO_ID_SORT_FIELD).order(SortOrder.ASC)).
+                    pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive));
+            if (searchCursor != null) {
+                source.searchAfter(searchCursor.getSearchAfter());
+            }
+            if (includedFields != null) {
+                source.fetchSource(includedFields.toArray(new String[0]), null);
+            }
+
+            SearchResponse response = search(source);
+
+            org.elasticsearch.search.SearchHit[] hits = response.getHits().getHits();
+            List<SchemaDocument> content = new ArrayList<>(hits.length);
+            for (org.elasticsearch.search.SearchHit hit : hits) {
+                content.add(
+                        elasticsearchOperations.getElasticsearchConverter().read(
+                                SchemaDocument.class,
+                                DocumentAdapters.from(hit)));
+            }
+
+            long totalElements =
+                    searchCursor != null ?
+                    searchCursor.getTotalElements() :
+                    response.getHits().getTotalHits().value;
+            if (hits.length < pageSize) {
+                restHighLevelClient.closePointInTime(
+                        new ClosePointInTimeRequest(response.pointInTimeId()),
+                        RequestOptions.DEFAULT);
+                return new CursorSearchResult<>(content, null, totalElements);
+            }
+
+            return new CursorSearchResult<>(
+                    content,
+                    new SearchCursor(
+                            response.pointInTimeId(),
+                            hits[hits.length - 1].getSortValues(),
+                            totalElements).encode(),
+                    totalElements);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to search documents", ioe);
+        }
+    }
+
+    private SearchResponse search(SearchSourceBuilder source) throws IOException {
+        try {
+            return restHighLevelClient.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+        } catch (ElasticsearchStatusException ese) {
+            if (ese.status() == RestStatus.NOT_FOUND) {
+                throw new IllegalArgumentException("Cursor has expired", ese);
+            }
+            throw ese;
+        }
+    }
+
+    @Override
+    public <S extends SchemaDocument> Iterable<S> saveAll(Iterable<S> documents) {
+        Validate.notNull(documents, "Collection of documents is null");
+
+        // taken before the write, so a rebuild completed meanwhile doesn't miss it
+        ElasticsearchReindex currentReindex = reindex.get();
+
+        IndexCoordinates index = IndexCoordinates.of(SchemaDocument.INDEX_NAME);
+        Iterable<S> saved = elasticsearchOperations.save(documents, index);
+        elasticsearchOperations.indexOps(index).refresh();
+
+        if (currentReindex != null) {
+            currentReindex.save(documents);
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends SchemaDocument> documents) {
+        Validate.notNull(documents, "Collection of documents is null");
+
+        List<String> ids = new ArrayList<>();
+        documents.forEach(document -> ids.add(document.getEcoId()));
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        ElasticsearchReindex currentReindex = reindex.get();
+
+        IndexCoordinates index = IndexCoordinates.of(SchemaDocument.INDEX_NAME);
+        elasticsearchOperations.delete(elasticsearchOperations.idsQuery(ids), SchemaDocument.class, index);
+        elasticsearchOperations.indexOps(index).refresh();
+
+        if (currentReindex != null) {
+            currentReindex.delete(ids);
+        }
+    }
+
+    /**
+     * Creates a new versioned index, with refresh disabled and without replicas while it's
+     * loaded. Completion re-applies deletes made meanwhile, restores the settings, refreshes
+     * the index, then points the alias to it and deletes the previous index in a single
+     * atomic request.
+     */
+    @Override
+    public synchronized SchemaDocumentReindex beginReindex() {
+        if (reindex.get() != null) {
+            throw new IllegalStateException("Reindex is already in progress");
+        }
+
+        Map<String, Object> settings = createIndexSettings();
+        Map<String, Object> loadSettings = new HashMap<>(settings);
+        loadSettings.put(REFRESH_INTERVAL_SETTING, "-1");
+        loadSettings.put(NUMBER_OF_REPLICAS_SETTING, 0);
+
+        String indexName = newVersionedIndexName();
+        createVersionedIndex(indexName, loadSettings, false);
+
+        Map<String, Object> restoredSettings = new HashMap<>();
+        restoredSettings.put(REFRESH_INTERVAL_SETTING, settings.get(REFRESH_INTERVAL_SETTING));
+        restoredSettings.put(NUMBER_OF_REPLICAS_SETTING, settings.get(NUMBER_OF_REPLICAS_SETTING));
+
+        ElasticsearchReindex newReindex = new ElasticsearchReindex(indexName, restoredSettings);
+        reindex.set(newReindex);
+        return newReindex;
+    }
+
+    private Map<String, Object> createIndexSettings() {
+        return elasticsearchOperations.indexOps(SchemaDocument.class).
+                createSettings(SchemaDocument.class).
+                flatten();
+    }
+
+    private void createVersionedIndex(String indexName, Map<String, Object> settings, boolean withAlias) {
+        CreateIndexRequest request = new CreateIndexRequest(indexName).
+                settings(settings).
+                mapping(elasticsearchOperations.indexOps(SchemaDocument.class).createMapping(SchemaDocument.class));
+        if (withAlias) {
+            request.alias(new Alias(SchemaDocument.INDEX_NAME));
+        }
+
+        try {
+            restHighLevelClient.indices().create(request, RequestOptions.DEFAULT);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(String.format("Failed to create index %s", indexName), ioe);
+        }
+    }
+
+    private static String newVersionedIndexName() {
+        return SchemaDocument.INDEX_NAME + "_" + System.currentTimeMillis();
+    }
+
+    /**
+     * Indexes the alias points to, or the legacy concrete index named as the alias.
+     */
+    private Set<String> getCurrentIndices() throws IOException {
+        GetAliasesResponse aliases = restHighLevelClient.indices().getAlias(
+                new GetAliasesRequest(SchemaDocument.INDEX_NAME),
+                RequestOptions.DEFAULT);
+        if (!aliases.getAliases().isEmpty()) {
+            return aliases.getAliases().keySet();
+        }
+
+        return
+                restHighLevelClient.indices().exists(
+                        new GetIndexRequest(SchemaDocument.INDEX_NAME),
+                        RequestOptions.DEFAULT) ?
+                Collections.singleton(SchemaDocument.INDEX_NAME) :
+                Collections.emptySet();
+    }
+
+    private final class ElasticsearchReindex implements SchemaDocumentReindex {
+
+        private final String indexName;
+        private final Map<String, Object> restoredSettings;
+
+        /**
+         * Ids deleted through the backend and not saved since. A load might check an id
+         * right before it's deleted and create the document afterwards, so deletes are
+         * applied once more before the index replaces the current one.
+         */
+        private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+
+        private ElasticsearchReindex(String indexName, Map<String, Object> restoredSettings) {
+            this.indexName = indexName;
+            this.restoredSettings = restoredSettings;
+        }
+
+        @Override
+        public String getTarget() {
+            return indexName;
+        }
+
+        /**
+         * Loaded documents are only created, so they never overwrite documents saved
+         * through the backend meanwhile.
+         */
+        @Override
+        public void load(Collection<SchemaDocument> documents) {
+            Validate.notNull(documents, "Collection of documents is null");
+
+            BulkRequest request = new BulkRequest();
+            for (SchemaDocument document : documents) {
+                if (!deletedIds.contains(document.getEcoId())) {
+                    request.add(toIndexRequest(document).opType(DocWriteRequest.OpType.CREATE));
+                }
+            }
+            executeBulk(request, "load");
+        }
+
+        private synchronized void save(Iterable<? extends SchemaDocument> documents) {
+            BulkRequest request = new BulkRequest();
+            documents.forEach(document -> {
+                deletedIds.remove(document.getEcoId());
+                request.add(toIndexRequest(document));
+            });
+            executeBulk(request, "save");
+        }
+
+        private synchronized void delete(Collection<String> ids) {
+            deletedIds.addAll(ids);
+            deleteFromIndex(ids);
+        }
+
+        private synchronized void reapplyDeletes() {
+            deleteFromIndex(new ArrayList<>(deletedIds));
+        }
+
+        private void deleteFromIndex(Collection<String> ids) {
+            BulkRequest request = new BulkRequest();
+            ids.forEach(id -> request.add(new DeleteRequest(indexName, id)));
+            executeBulk(request, "delete");
+        }
+
+        private IndexRequest toIndexRequest(SchemaDocument document) {
+            return new IndexRequest(indexName).
+                    id(document.getEcoId()).
+                    source(
+                            elasticsearchOperations.getElasticsearchConverter().mapObject(document).toJson(),
+                            XContentType.JSON);
+        }
+
+        private void executeBulk(BulkRequest request, String action) {
+            if (request.numberOfActions() == 0) {
+                return;
+            }
+
+            BulkResponse response;
+            try {
+                response = restHighLevelClient.bulk(request, RequestOptions.DEFAULT);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(
+                        String.format("Failed to %s documents in index %s", action, indexName), ioe);
+            }
+
+            List<BulkItemResponse> failures = Arrays.stream(response.getItems()).
+                    filter(BulkItemResponse::isFailed).
+                    filter(item -> item.status() != RestStatus.CONFLICT).
+                    toList();
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Failed to %s %d documents in index %s: %s",
+                                action, failures.size(), indexName, failures.get(0).getFailureMessage()));
+            }
+        }
+
+        @Override
+        public void complete() {
+            Validate.validState(reindex.get() == this, "Reindex is not in progress");
+
+            reapplyDeletes();
+
+            try {
+                restHighLevelClient.indices().putSettings(
+                        new UpdateSettingsRequest(indexName).settings(restoredSettings),
+                        RequestOptions.DEFAULT);
+                restHighLevelClient.indices().refresh(new RefreshRequest(indexName), RequestOptions.DEFAULT);
+
+                IndicesAliasesRequest request = new IndicesAliasesRequest();
+                request.addAliasAction(
+                        AliasActions.add().index(indexName).alias(SchemaDocument.INDEX_NAME));
+                for (String currentIndex : getCurrentIndices()) {
+                    request.addAliasAction(AliasActions.removeIndex().index(currentIndex));
+                }
+                restHighLevelClient.indices().updateAliases(request, RequestOptions.DEFAULT);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(
+                        String.format("Failed to swap index %s with the current one", indexName), ioe);
+            }
+
+            reindex.compareAndSet(this, null);
+            readMaxResultWindowSetting();
+        }
+
+        @Override
+        public void abort() {
+            if (!reindex.compareAndSet(this, null)) {
+                return;
+            }
+
+            try {
+                restHighLevelClient.indices().delete(new DeleteIndexRequest(indexName), RequestOptions.DEFAULT);
+            } catch (Exception ex) {
+                LOGGER.warn("Failed to delete index {} of aborted reindex: {}", indexName, ex.getMessage());
+            }
+        }
+
+    }
+
+    private SearchResult<SchemaDocument> toSearchResult(SearchHits<SchemaDocument> hits, Pageable pageable) {
+        List<SchemaDocument> content = hits.getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .toList();
+        return new SearchResult<>(
+                content,
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                hits.getTotalHits(),
+                maxResultWindow,
+                toGenericMap(hits.getAggregations())
+        );
+    }
+
+    private static NativeSearchQueryBuilder initQueryBuilder(
+            SearchParams params,
+            QueryBuilder mainQuery,
+            Pageable pageable
+    ) {
+        NativeSearchQueryBuilder queryBuilder = new NativeSearchQueryBuilder();
+
+        queryBuilder.
+                withQuery(mainQuery).
+                withPageable(pageable).
+                withSorts(SortBuilders.scoreSort().order(SortOrder.DESC));
+
+        params.getAggregations().forEach(aggregationParams -> queryBuilder.withAggregations(
+                AggregationBuilders
+                        .terms(aggregationParams.getTerm())
+                        .field(aggregationParams.getField())
+                        .order(BucketOrder.count(false))
+                        .size(aggregationParams.getSize())));
+
+        return queryBuilder;
+    }
+
+    private NativeSearchQuery buildNativeSearchQuery(
+            QueryBuilder queryBuilder,
+            Pageable pageable
+    ) {
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder();
+        nativeSearchQueryBuilder.
+                withQuery(queryBuilder).
+                withPageable(pageable);
+        return buildNativeSearchQuery(nativeSearchQueryBuilder);
+    }
+
+    private static void withSourceFilter(NativeSearchQueryBuilder queryBuilder, Collection<String> includedFields) {
+        if (includedFields == null) {
+            return;
+        }
+        queryBuilder.withSourceFilter(new FetchSourceFilter(includedFields.toArray(new String[0]), null));
+    }
+
+    private NativeSearchQuery buildNativeSearchQuery(NativeSearchQueryBuilder nativeSearchQueryBuilder) {
+        NativeSearchQuery nativeSearchQuery = nativeSearchQueryBuilder.build();
+        nativeSearchQuery.setTrackTotalHits(TRUE);
+        return nativeSearchQuery;
+    }
+
+    private static QueryBuilder createBoostedQuery(SearchParams params) {
+        String queryString = params.getQuery() != null ? params.getQuery() : "";
+
+        QueryStringQueryBuilder boostedQuery = new QueryStringQueryBuilder(queryString);
+        SearchParamsFields.boostsOf(params).forEach(boostedQuery::field);
+        return boostedQuery;
+    }
+
+    private static QueryBuilder createFilter(SearchParams params) {
+        return createTermFilter(params).must(createRegExpFilter(params));
+    }
+
+    private static BoolQueryBuilder createTermFilter(SearchParams params) {
+        BoolQueryBuilder filter = QueryBuilders.boolQuery();
+        SearchParamsFields.termsOf(params).forEach(
+                (field, terms) -> filter.must(QueryBuilders.termsQuery(field, terms)));
+        return filter;
+    }
+
+    private static BoolQueryBuilder createRegExpFilter(SearchParams params) {
+        BoolQueryBuilder filter = QueryBuilders.boolQuery();
+        SearchParamsFields.regExpsOf(params).forEach(
+                (field, regExp) -> filter.must(QueryBuilders.regexpQuery(field, regExp)));
+        return filter;
+    }
+
+    private static Map<String, Map<String, Long>> toGenericMap(AggregationsContainer<?> aggregationsContainer) {
+        if (aggregationsContainer == null) {
+            return Collections.emptyMap();
+        }
+        if (!(aggregationsContainer instanceof ElasticsearchAggregations esAggs)) {
+            return Collections.emptyMap();
+        }
+
+        final Aggregations aggregations = esAggs.aggregations();
+        return getStringMapMap(aggregations.asMap());
+    }
+
+    private static @NonNull Map<String, Map<String, Long>> getStringMapMap(Map<String, Aggregation> aggregationNameMap) {
+        Map<String, Map<String, Long>> aggregationMap = new HashMap<>((int) Math.ceil(
+                aggregationNameMap.size() / 0.75f));
+
+        for (Map.Entry<String, Aggregation> agg : aggregationNameMap.entrySet()) {
+            if (agg.getValue() instanceof Terms terms) {
+                Map<String, Long> buckets = new TreeMap<>();
+                for (Terms.Bucket bucket : terms.getBuckets()) {
+                    buckets.put(bucket.getKeyAsString(), bucket.getDocCount());
+                }
+                aggregationMap.put(agg.getKey(), buckets);
+            }
+        }
+        return aggregationMap;
+    }
+
+}
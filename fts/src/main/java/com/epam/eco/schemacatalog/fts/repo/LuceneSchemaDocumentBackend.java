@@ -0,0 +1,855 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherLifetimeManager;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.data.domain.Pageable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.epam.eco.schemacatalog.fts.AggregationParams;
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
+import com.epam.eco.schemacatalog.fts.FtsConstants;
+import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
+import com.epam.eco.schemacatalog.fts.QueryStringQuery;
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
+import com.epam.eco.schemacatalog.fts.SearchParams;
+import com.epam.eco.schemacatalog.fts.SearchResult;
+
+/**
+ * Stores and searches schema documents in an in-process Lucene index (memory-mapped from
+ * the given directory), so single-node deployments need no Elasticsearch cluster.
+ * <p>
+ * Documents are indexed the way Elasticsearch indexes them with the schema mapping:
+ * fields mapped as keywords, numbers and booleans are indexed as exact terms, other
+ * strings are analyzed by the standard analyzer and get an exact {@code .keyword}
+ * sub-field. Exact fields also have doc values, terms aggregations are computed over
+ * them. Documents themselves are stored as JSON, like Elasticsearch {@code _source}, and
+ * are read back either entirely or only the included top-level fields.
+ * <p>
+ * Searchers of cursor paged searches are kept for the cursor keep alive after they are
+ * replaced by newer ones, like Elasticsearch points in time.
+ * <p>
+ * The index is rebuilt in place: all documents are rewritten without a commit, then
+ * documents that weren't rewritten are deleted and everything is committed at once.
+ * Rewritten documents might become visible earlier (if other writes are committed
+ * meanwhile), but they are the same as or newer than the ones they replace.
+ * <p>
+ * Elasticsearch query DSL isn't supported, search by {@link SearchParams} or
+ * {@link QueryStringQuery} (Lucene query syntax) instead.
+ *
+ * @author Andrei_Tytsik
+ */
+public class LuceneSchemaDocumentBackend implements SchemaDocumentBackend, Closeable {
+
+    public static final int DEFAULT_MAX_RESULT_WINDOW = 15000;
+    public static final long DEFAULT_CURSOR_KEEP_ALIVE_MS = 300_000;
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_SOURCE = "_source";
+    private static final String KEYWORD_SUFFIX = ".keyword";
+    private static final int KEYWORD_IGNORE_ABOVE = 256;
+    private static final int REINDEX_ID_LOCK_STRIPES = 64;
+
+    private static final Set<String> KEYWORD_FIELDS = Set.of(
+            FtsConstants.FIELD_SUBJECT,
+            FtsConstants.FIELD_ROOT_NAMESPACE,
+            FtsConstants.FIELD_NAMESPACE,
+            FtsConstants.FIELD_COMPATIBILITY,
+            FtsConstants.FIELD_MODE,
+            "path",
+            FtsConstants.FIELD_METADATA_ATTRIBUTE_KEY,
+            FtsConstants.FIELD_METADATA_ATTRIBUTE_VALUE,
+            FtsConstants.FIELD_METADATA_UPDATED_BY,
+            FtsConstants.FIELD_PROPERTY_KEY,
+            FtsConstants.FIELD_PROPERTY_VALUE);
+
+    /**
+     * Keyword fields that have an analyzed sub-field (see the schema mapping).
+     */
+    private static final Map<String, String> TEXT_SUB_FIELDS = Map.of(
+            FtsConstants.FIELD_METADATA_UPDATED_BY,
+            FtsConstants.FIELD_METADATA_UPDATED_BY + KEYWORD_SUFFIX);
+
+    private static final Sort CURSOR_SORT = new Sort(
+            SortField.FIELD_SCORE,
+            new SortField(FIELD_ID, SortField.Type.STRING));
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path indexPath;
+    private final int maxResultWindow;
+    private final long cursorKeepAliveMs;
+
+    private final Analyzer analyzer = new SchemaDocumentAnalyzer();
+
+    private MMapDirectory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private SearcherLifetimeManager searcherLifetimeManager;
+
+    private final AtomicReference<LuceneReindex> reindex = new AtomicReference<>();
+
+    public LuceneSchemaDocumentBackend(Path indexPath) {
+        this(indexPath, DEFAULT_MAX_RESULT_WINDOW);
+    }
+
+    public LuceneSchemaDocumentBackend(Path indexPath, int maxResultWindow) {
+        this(indexPath, maxResultWindow, DEFAULT_CURSOR_KEEP_ALIVE_MS);
+    }
+
+    public LuceneSchemaDocumentBackend(Path indexPath, int maxResultWindow, long cursorKeepAliveMs) {
+        Validate.notNull(indexPath, "Index path is null");
+        Validate.isTrue(maxResultWindow > 0, "Max result window is invalid");
+        Validate.isTrue(cursorKeepAliveMs > 0, "Cursor keep alive is invalid");
+
+        this.indexPath = indexPath;
+        this.maxResultWindow = maxResultWindow;
+        this.cursorKeepAliveMs = cursorKeepAliveMs;
+
+        open();
+    }
+
+    private void open() {
+        try {
+            directory = new MMapDirectory(indexPath);
+            indexWriter = new IndexWriter(
+                    directory,
+                    new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(indexWriter, new SearcherFactory());
+            searcherLifetimeManager = new SearcherLifetimeManager();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(
+                    String.format("Failed to open index at %s", indexPath), ioe);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherLifetimeManager.close();
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Override
+    public int getMaxResultWindow() {
+        return maxResultWindow;
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(
+            org.springframework.data.elasticsearch.core.query.Query query) {
+        throw new IllegalArgumentException("Elasticsearch queries are not supported by Lucene backend");
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query) {
+        return searchByQuery(query, null);
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query, Collection<String> includedFields) {
+        throw new IllegalArgumentException("Elasticsearch queries are not supported by Lucene backend");
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByQuery(QueryStringQuery query) {
+        Validate.notNull(query, "Query is null");
+
+        return search(
+                searcher -> parseQuery(query.getQueryString(), searchableFields(searcher), null),
+                null,
+                Collections.emptyList(),
+                query.getPageable(),
+                null);
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByParams(SearchParams params) {
+        return searchByParams(params, null);
+    }
+
+    @Override
+    public SearchResult<SchemaDocument> searchByParams(SearchParams params, Collection<String> includedFields) {
+        Validate.notNull(params, "Search params object is null");
+
+        Map<String, Float> boosts = SearchParamsFields.boostsOf(params);
+        return search(
+                searcher -> parseQuery(
+                        params.getQuery(),
+                        !boosts.isEmpty() ? boosts.keySet() : searchableFields(searcher),
+                        boosts),
+                createFilter(params),
+                params.getAggregations(),
+                params.getPageable(),
+                includedFields);
+    }
+
+    @Override
+    public CursorSearchResult<SchemaDocument> scrollByParams(
+            SearchParams params,
+            String cursor,
+            Collection<String> includedFields) {
+        Validate.notNull(params, "Search params object is null");
+
+        SearchCursor searchCursor = cursor != null ? SearchCursor.decode(cursor) : null;
+        int pageSize = params.getPageSizeOrDefaultIfInvalid();
+        Validate.isTrue(
+                pageSize <= maxResultWindow,
+                "Result window is too large, size must be less than or equal to: [%d] but was [%d]",
+                maxResultWindow, pageSize);
+
+        try {
+            searcherLifetimeManager.prune(new SearcherLifetimeManager.PruneByAge(cursorKeepAliveMs / 1000d));
+
+            IndexSearcher searcher;
+            long searcherVersion;
+            if (searchCursor == null) {
+                searcher = searcherManager.acquire();
+                try {
+                    searcherVersion = searcherLifetimeManager.record(searcher);
+                } finally {
+                    searcherManager.release(searcher);
+                }
+            } else {
+                searcherVersion = parseSearcherVersion(searchCursor.getPointInTimeId());
+            }
+            searcher = searcherLifetimeManager.acquire(searcherVersion);
+            if (searcher == null) {
+                throw new IllegalArgumentException("Cursor has expired");
+            }
+
+            try {
+                Map<String, Float> boosts = SearchParamsFields.boostsOf(params);
+                Query query = filtered(
+                        parseQuery(
+                                params.getQuery(),
+                                !boosts.isEmpty() ? boosts.keySet() : searchableFields(searcher),
+                                boosts),
+                        createFilter(params));
+
+                TopFieldDocs topDocs = searcher.searchAfter(
+                        searchCursor != null ? toFieldDoc(searchCursor) : null,
+                        query,
+                        pageSize,
+                        CURSOR_SORT,
+                        true);
+
+                List<SchemaDocument> content = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    content.add(fromLuceneDocument(searcher.doc(scoreDoc.doc), includedFields));
+                }
+
+                long totalElements =
+                        searchCursor != null ?
+                        searchCursor.getTotalElements() :
+                        searcher.count(query);
+                if (topDocs.scoreDocs.length < pageSize) {
+                    return new CursorSearchResult<>(content, null, totalElements);
+                }
+
+                FieldDoc last = (FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1];
+                return new CursorSearchResult<>(
+                        content,
+                        new SearchCursor(
+                                Long.toString(searcherVersion),
+                                new Object[] {last.fields[0], ((BytesRef) last.fields[1]).utf8ToString()},
+                                totalElements).encode(),
+                        totalElements);
+            } finally {
+                searcherLifetimeManager.release(searcher);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to search documents", ioe);
+        }
+    }
+
+    private static long parseSearcherVersion(String pointInTimeId) {
+        try {
+            return Long.parseLong(pointInTimeId);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(
+                    String.format("Point in time id '%s' is invalid", pointInTimeId), nfe);
+        }
+    }
+
+    private static FieldDoc toFieldDoc(SearchCursor searchCursor) {
+        Object[] searchAfter = searchCursor.getSearchAfter();
+        Validate.isTrue(
+                searchAfter.length == 2 && searchAfter[0] instanceof Number && searchAfter[1] instanceof String,
+                "Search after values are invalid");
+
+        float score = ((Number) searchAfter[0]).floatValue();
+        // documents are unique by sort values, so the doc only has to be after any matching one
+        return new FieldDoc(
+                Integer.MAX_VALUE,
+                score,
+                new Object[] {score, new BytesRef((String) searchAfter[1])});
+    }
+
+    @Override
+    public <S extends SchemaDocument> Iterable<S> saveAll(Iterable<S> documents) {
+        Validate.notNull(documents, "Collection of documents is null");
+
+        LuceneReindex currentReindex = reindex.get();
+        try {
+            for (SchemaDocument document : documents) {
+                Term id = new Term(FIELD_ID, document.getEcoId());
+                Document luceneDocument = toLuceneDocument(document);
+                if (currentReindex != null) {
+                    currentReindex.save(id, luceneDocument);
+                } else {
+                    indexWriter.updateDocument(id, luceneDocument);
+                }
+            }
+            commitAndRefresh();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to index documents", ioe);
+        }
+        return documents;
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends SchemaDocument> documents) {
+        Validate.notNull(documents, "Collection of documents is null");
+
+        List<Term> ids = new ArrayList<>();
+        documents.forEach(document -> ids.add(new Term(FIELD_ID, document.getEcoId())));
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        LuceneReindex currentReindex = reindex.get();
+        try {
+            if (currentReindex != null) {
+                for (Term id : ids) {
+                    currentReindex.delete(id);
+                }
+            } else {
+                indexWriter.deleteDocuments(ids.toArray(new Term[0]));
+            }
+            commitAndRefresh();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to delete documents", ioe);
+        }
+    }
+
+    @Override
+    public SchemaDocumentReindex beginReindex() {
+        LuceneReindex newReindex = new LuceneReindex();
+        if (!reindex.compareAndSet(null, newReindex)) {
+            throw new IllegalStateException("Reindex is already in progress");
+        }
+        return newReindex;
+    }
+
+    private void commitAndRefresh() throws IOException {
+        indexWriter.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private SearchResult<SchemaDocument> search(
+            QueryFactory queryFactory,
+            Query filter,
+            List<AggregationParams> aggregations,
+            Pageable pageable,
+            Collection<String> includedFields) {
+        int from = pageable.getPageNumber() * pageable.getPageSize();
+        int size = pageable.getPageSize();
+        Validate.isTrue(
+                from + size <= maxResultWindow,
+                "Result window is too large, from + size must be less than or equal to: [%d] but was [%d]",
+                maxResultWindow, from + size);
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Query query = queryFactory.create(searcher);
+                Query filteredQuery = filtered(query, filter);
+
+                TopScoreDocCollector collector = TopScoreDocCollector.create(Math.max(from + size, 1), Integer.MAX_VALUE);
+                searcher.search(filteredQuery, collector);
+                TopDocs topDocs = collector.topDocs(from, size);
+
+                List<SchemaDocument> content = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    content.add(fromLuceneDocument(searcher.doc(scoreDoc.doc), includedFields));
+                }
+
+                return new SearchResult<>(
+                        content,
+                        pageable.getPageNumber(),
+                        pageable.getPageSize(),
+                        topDocs.totalHits.value,
+                        maxResultWindow,
+                        aggregate(searcher, query, aggregations));
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to search documents", ioe);
+        }
+    }
+
+    private static Query filtered(Query query, Query filter) {
+        return filter != null ?
+                new BooleanQuery.Builder().
+                        add(query, Occur.MUST).
+                        add(filter, Occur.FILTER).
+                        build() :
+                query;
+    }
+
+    /**
+     * Like Elasticsearch post filter, filters are not applied to aggregations.
+     */
+    private static Map<String, Map<String, Long>> aggregate(
+            IndexSearcher searcher,
+            Query query,
+            List<AggregationParams> aggregations) throws IOException {
+        if (aggregations == null || aggregations.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        TermsAggregationCollector collector = new TermsAggregationCollector(aggregations);
+        searcher.search(query, collector);
+        return collector.getBuckets();
+    }
+
+    private Query parseQuery(String queryString, Collection<String> fields, Map<String, Float> boosts) {
+        if (StringUtils.isBlank(queryString)) {
+            return new MatchAllDocsQuery();
+        }
+
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(fields.toArray(new String[0]), analyzer, boosts);
+        parser.setDefaultOperator(QueryParser.Operator.OR);
+        parser.setAllowLeadingWildcard(true);
+        try {
+            return parser.parse(queryString);
+        } catch (ParseException pe) {
+            throw new IllegalArgumentException(
+                    String.format("Failed to parse query '%s': %s", queryString, pe.getMessage()), pe);
+        }
+    }
+
+    private static Collection<String> searchableFields(IndexSearcher searcher) {
+        List<String> fields = new ArrayList<>();
+        for (FieldInfo fieldInfo : FieldInfos.getMergedFieldInfos(searcher.getIndexReader())) {
+            if (fieldInfo.getIndexOptions() != IndexOptions.NONE && !FIELD_ID.equals(fieldInfo.name)) {
+                fields.add(fieldInfo.name);
+            }
+        }
+        return fields;
+    }
+
+    private static Query createFilter(SearchParams params) {
+        BooleanQuery.Builder filter = new BooleanQuery.Builder();
+        boolean empty = true;
+
+        for (Map.Entry<String, List<?>> entry : SearchParamsFields.termsOf(params).entrySet()) {
+            List<BytesRef> terms = entry.getValue().stream().
+                    map(term -> new BytesRef(String.valueOf(term))).
+                    collect(Collectors.toList());
+            filter.add(new TermInSetQuery(entry.getKey(), terms), Occur.FILTER);
+            empty = false;
+        }
+        for (Map.Entry<String, String> entry : SearchParamsFields.regExpsOf(params).entrySet()) {
+            filter.add(new RegexpQuery(new Term(entry.getKey(), entry.getValue())), Occur.FILTER);
+            empty = false;
+        }
+
+        return empty ? null : filter.build();
+    }
+
+    private static Document toLuceneDocument(SchemaDocument schemaDocument) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, schemaDocument.getEcoId(), Field.Store.NO));
+        document.add(new SortedDocValuesField(FIELD_ID, new BytesRef(schemaDocument.getEcoId())));
+        document.add(new StoredField(FIELD_SOURCE, OBJECT_MAPPER.writeValueAsBytes(schemaDocument)));
+
+        flatten("", OBJECT_MAPPER.valueToTree(schemaDocument), (field, value) -> {
+            if (value.isTextual() && !KEYWORD_FIELDS.contains(field)) {
+                addTextField(document, field, value.asText());
+                if (value.asText().length() <= KEYWORD_IGNORE_ABOVE) {
+                    addKeywordField(document, field + KEYWORD_SUFFIX, value.asText());
+                }
+            } else {
+                addKeywordField(document, field, value.asText());
+                String textSubField = TEXT_SUB_FIELDS.get(field);
+                if (textSubField != null) {
+                    addTextField(document, textSubField, value.asText());
+                }
+            }
+        });
+
+        return document;
+    }
+
+    private static void addTextField(Document document, String field, String value) {
+        document.add(new TextField(field, value, Field.Store.NO));
+    }
+
+    private static void addKeywordField(Document document, String field, String value) {
+        document.add(new StringField(field, value, Field.Store.NO));
+        document.add(new SortedSetDocValuesField(field, new BytesRef(value)));
+    }
+
+    private static void flatten(String path, JsonNode node, BiConsumer<String, JsonNode> consumer) {
+        if (node == null || node.isNull()) {
+            return;
+        }
+
+        if (node.isObject()) {
+            node.fields().forEachRemaining(entry -> flatten(
+                    path.isEmpty() ? entry.getKey() : path + "." + entry.getKey(),
+                    entry.getValue(),
+                    consumer));
+        } else if (node.isArray()) {
+            node.forEach(element -> flatten(path, element, consumer));
+        } else {
+            consumer.accept(path, node);
+        }
+    }
+
+    private static SchemaDocument fromLuceneDocument(
+            Document document,
+            Collection<String> includedFields) throws IOException {
+        BytesRef source = document.getBinaryValue(FIELD_SOURCE);
+        if (includedFields == null) {
+            return OBJECT_MAPPER.readValue(source.bytes, source.offset, source.length, SchemaDocument.class);
+        }
+
+        // only included fields are read into the tree, the rest are skipped without decoding
+        ObjectNode projection = OBJECT_MAPPER.createObjectNode();
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(source.bytes, source.offset, source.length)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (isIncluded(field, includedFields)) {
+                    projection.set(field, OBJECT_MAPPER.readTree(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return OBJECT_MAPPER.treeToValue(projection, SchemaDocument.class);
+    }
+
+    private static boolean isIncluded(String field, Collection<String> includedFields) {
+        for (String includedField : includedFields) {
+            if (includedField.equals(field) || includedField.startsWith(field + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isKeywordField(String field) {
+        return
+                (KEYWORD_FIELDS.contains(field) || field.endsWith(KEYWORD_SUFFIX)) &&
+                !TEXT_SUB_FIELDS.containsValue(field);
+    }
+
+    private final class LuceneReindex implements SchemaDocumentReindex {
+
+        private final Set<String> loadedIds = ConcurrentHashMap.newKeySet();
+        private final Set<String> savedIds = ConcurrentHashMap.newKeySet();
+        private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+
+        /**
+         * A load of a document, and a save or delete of the same document through the
+         * backend, check and write the index under the same lock, so the load can't be
+         * written after them.
+         */
+        private final Object[] idLocks = new Object[REINDEX_ID_LOCK_STRIPES];
+
+        private LuceneReindex() {
+            Arrays.setAll(idLocks, i -> new Object());
+        }
+
+        @Override
+        public String getTarget() {
+            return indexPath.toString();
+        }
+
+        /**
+         * Documents saved or deleted through the backend meanwhile are not overwritten.
+         */
+        @Override
+        public void load(Collection<SchemaDocument> documents) {
+            Validate.notNull(documents, "Collection of documents is null");
+            Validate.validState(reindex.get() == this, "Reindex is not in progress");
+
+            try {
+                for (SchemaDocument document : documents) {
+                    String id = document.getEcoId();
+                    Document luceneDocument = toLuceneDocument(document);
+                    synchronized (getIdLock(id)) {
+                        if (savedIds.contains(id) || deletedIds.contains(id)) {
+                            continue;
+                        }
+                        loadedIds.add(id);
+                        indexWriter.updateDocument(new Term(FIELD_ID, id), luceneDocument);
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Failed to load documents", ioe);
+            }
+        }
+
+        private void save(Term id, Document luceneDocument) throws IOException {
+            synchronized (getIdLock(id.text())) {
+                savedIds.add(id.text());
+                deletedIds.remove(id.text());
+                indexWriter.updateDocument(id, luceneDocument);
+            }
+        }
+
+        private void delete(Term id) throws IOException {
+            synchronized (getIdLock(id.text())) {
+                deletedIds.add(id.text());
+                savedIds.remove(id.text());
+                indexWriter.deleteDocuments(id);
+            }
+        }
+
+        private Object getIdLock(String id) {
+            return idLocks[Math.floorMod(id.hashCode(), idLocks.length)];
+        }
+
+        @Override
+        public void complete() {
+            Validate.validState(reindex.get() == this, "Reindex is not in progress");
+
+            try {
+                searcherManager.maybeRefreshBlocking();
+                List<String> staleIds = new ArrayList<>();
+                IndexSearcher searcher = searcherManager.acquire();
+                try {
+                    Terms terms = MultiTerms.getTerms(searcher.getIndexReader(), FIELD_ID);
+                    TermsEnum termsEnum = terms != null ? terms.iterator() : TermsEnum.EMPTY;
+                    BytesRef term;
+                    while ((term = termsEnum.next()) != null) {
+                        String id = term.utf8ToString();
+                        if (!loadedIds.contains(id) && !savedIds.contains(id)) {
+                            staleIds.add(id);
+                        }
+                    }
+                } finally {
+                    searcherManager.release(searcher);
+                }
+
+                // a document might have been saved since the searcher was acquired
+                for (String id : staleIds) {
+                    synchronized (getIdLock(id)) {
+                        if (!savedIds.contains(id)) {
+                            indexWriter.deleteDocuments(new Term(FIELD_ID, id));
+                        }
+                    }
+                }
+                commitAndRefresh();
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Failed to complete reindex", ioe);
+            } finally {
+                reindex.compareAndSet(this, null);
+            }
+        }
+
+        /**
+         * Documents loaded so far are kept, they are the same as or newer than the ones
+         * they replaced.
+         */
+        @Override
+        public void abort() {
+            reindex.compareAndSet(this, null);
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface QueryFactory {
+        Query create(IndexSearcher searcher);
+    }
+
+    /**
+     * Analyzes exact fields as single terms, the rest by the standard analyzer.
+     */
+    private static final class SchemaDocumentAnalyzer extends DelegatingAnalyzerWrapper {
+
+        private final Analyzer keywordAnalyzer = new KeywordAnalyzer();
+        private final Analyzer standardAnalyzer = new StandardAnalyzer();
+
+        private SchemaDocumentAnalyzer() {
+            super(PER_FIELD_REUSE_STRATEGY);
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            return isKeywordField(fieldName) ? keywordAnalyzer : standardAnalyzer;
+        }
+
+    }
+
+    /**
+     * Counts documents per term of each aggregated field, keeps the top terms by count.
+     */
+    private static final class TermsAggregationCollector extends SimpleCollector {
+
+        private final List<AggregationParams> aggregations;
+        private final List<Map<String, Long>> counts = new ArrayList<>();
+
+        private final SortedSetDocValues[] docValues;
+        private final long[][] ordCounts;
+
+        private TermsAggregationCollector(List<AggregationParams> aggregations) {
+            this.aggregations = aggregations;
+            aggregations.forEach(aggregation -> counts.add(new HashMap<>()));
+            docValues = new SortedSetDocValues[aggregations.size()];
+            ordCounts = new long[aggregations.size()][];
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flushLeafCounts();
+            for (int i = 0; i < aggregations.size(); i++) {
+                docValues[i] = DocValues.getSortedSet(context.reader(), aggregations.get(i).getField());
+                ordCounts[i] = new long[(int) docValues[i].getValueCount()];
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            for (int i = 0; i < docValues.length; i++) {
+                if (docValues[i].advanceExact(doc)) {
+                    long ord;
+                    while ((ord = docValues[i].nextOrd()) != SortedSetDocValues.NO_MORE_ORDS) {
+                        ordCounts[i][(int) ord]++;
+                    }
+                }
+            }
+        }
+
+        private void flushLeafCounts() throws IOException {
+            for (int i = 0; i < docValues.length; i++) {
+                if (docValues[i] == null) {
+                    continue;
+                }
+                for (int ord = 0; ord < ordCounts[i].length; ord++) {
+                    if (ordCounts[i][ord] > 0) {
+                        counts.get(i).merge(docValues[i].lookupOrd(ord).utf8ToString(), ordCounts[i][ord], Long::sum);
+                    }
+                }
+                docValues[i] = null;
+            }
+        }
+
+        public Map<String, Map<String, Long>> getBuckets() throws IOException {
+            flushLeafCounts();
+
+            Map<String, Map<String, Long>> buckets = new HashMap<>();
+            for (int i = 0; i < aggregations.size(); i++) {
+                Map<String, Long> topBuckets = new TreeMap<>();
+                counts.get(i).entrySet().stream().
+                        sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).
+                                thenComparing(Map.Entry.comparingByKey())).
+                        limit(aggregations.get(i).getSize()).
+                        forEach(bucket -> topBuckets.put(bucket.getKey(), bucket.getValue()));
+                buckets.put(aggregations.get(i).getTerm(), topBuckets);
+            }
+            return buckets;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+/**
+ * Backend that stores and searches schema documents. {@link SchemaDocumentRepository}
+ * delegates its custom operations (including writes) to the backend enabled by
+ * {@code eco.schemacatalog.fts.backend} property.
+ *
+ * @author Andrei_Tytsik
+ */
+public interface SchemaDocumentBackend extends SchemaDocumentRepositoryCustom {
+
+    /**
+     * Begins a full rebuild of the index. Only one rebuild can be in progress at a time.
+     *
+     * @throws IllegalStateException if another rebuild is in progress
+     */
+    SchemaDocumentReindex beginReindex();
+
+}
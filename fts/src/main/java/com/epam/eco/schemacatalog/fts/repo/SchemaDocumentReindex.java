@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.util.Collection;
+
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
+
+/**
+ * Full rebuild of the schema index. Documents are loaded into the rebuilt index (by any
+ * number of threads concurrently), while searches are still served by the current one.
+ * Once completed, the rebuilt index replaces the current one atomically.
+ * <p>
+ * Documents saved or deleted through the backend while the rebuild is in progress are
+ * applied to the rebuilt index too and take precedence over loaded documents.
+ *
+ * @author Andrei_Tytsik
+ */
+public interface SchemaDocumentReindex {
+
+    /**
+     * Name of the rebuilt index.
+     */
+    String getTarget();
+
+    void load(Collection<SchemaDocument> documents);
+
+    /**
+     * Makes the rebuilt index current.
+     */
+    void complete();
+
+    /**
+     * Discards the rebuilt index, the current one is kept.
+     */
+    void abort();
+
+}
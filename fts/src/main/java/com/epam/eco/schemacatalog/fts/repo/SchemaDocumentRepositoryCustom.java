@@ -15,8 +15,11 @@
  */
 package com.epam.eco.schemacatalog.fts.repo;
 
+import java.util.Collection;
+
 import org.springframework.data.elasticsearch.core.query.Query;
 
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
 import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
 import com.epam.eco.schemacatalog.fts.QueryStringQuery;
 import com.epam.eco.schemacatalog.fts.SchemaDocument;
@@ -33,7 +36,37 @@ public interface SchemaDocumentRepositoryCustom {
 
     SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query);
 
+    /**
+     * Same as {@link #searchByQuery(JsonSearchQuery)}, but documents of the result have
+     * only the given fields (all fields if {@code null}) populated.
+     */
+    SearchResult<SchemaDocument> searchByQuery(JsonSearchQuery query, Collection<String> includedFields);
+
     SearchResult<SchemaDocument> searchByQuery(QueryStringQuery query);
 
     SearchResult<SchemaDocument> searchByParams(SearchParams params);
+
+    /**
+     * Same as {@link #searchByParams(SearchParams)}, but documents of the result have
+     * only the given fields (all fields if {@code null}) populated.
+     */
+    SearchResult<SchemaDocument> searchByParams(SearchParams params, Collection<String> includedFields);
+
+    /**
+     * Searches by the given params page by page, each page starts right after the last
+     * document of the previous page (given by its cursor, {@code null} for the first page),
+     * so paging isn't limited by the max result window and costs the same at any depth.
+     * Pages are sorted by score and then by eco id and all of them are taken from the same
+     * snapshot of the index, page number and aggregations of the params are ignored.
+     * Documents of the result have only the given fields (all fields if {@code null})
+     * populated.
+     */
+    CursorSearchResult<SchemaDocument> scrollByParams(
+            SearchParams params,
+            String cursor,
+            Collection<String> includedFields);
+
+    <S extends SchemaDocument> Iterable<S> saveAll(Iterable<S> documents);
+
+    void deleteAll(Iterable<? extends SchemaDocument> documents);
 }
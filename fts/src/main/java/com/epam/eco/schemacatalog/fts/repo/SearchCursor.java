@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Position of a cursor paged search: the point in time (snapshot of the index) the search
+ * runs against, the sort values of the last returned document and the number of total
+ * elements (counted once, for the first page). Passed to clients as an opaque URL-safe
+ * token.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SearchCursor {
+
+    private static final String POINT_IN_TIME = "pit";
+    private static final String SEARCH_AFTER = "after";
+    private static final String TOTAL_ELEMENTS = "total";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String pointInTimeId;
+    private final Object[] searchAfter;
+    private final long totalElements;
+
+    public SearchCursor(String pointInTimeId, Object[] searchAfter, long totalElements) {
+        Validate.notBlank(pointInTimeId, "Point in time id is blank");
+        Validate.notEmpty(searchAfter, "Search after values are empty");
+        Validate.isTrue(totalElements >= 0, "Number of Total Elements is invalid");
+
+        this.pointInTimeId = pointInTimeId;
+        this.searchAfter = searchAfter.clone();
+        this.totalElements = totalElements;
+    }
+
+    public String getPointInTimeId() {
+        return pointInTimeId;
+    }
+    public Object[] getSearchAfter() {
+        return searchAfter.clone();
+    }
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public String encode() {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put(POINT_IN_TIME, pointInTimeId);
+        ArrayNode values = node.putArray(SEARCH_AFTER);
+        for (Object value : searchAfter) {
+            values.addPOJO(value);
+        }
+        node.put(TOTAL_ELEMENTS, totalElements);
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(node));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to encode cursor", ioe);
+        }
+    }
+
+    public static SearchCursor decode(String cursor) {
+        Validate.notBlank(cursor, "Cursor is blank");
+
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(cursor));
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new IllegalArgumentException(String.format("Cursor '%s' is invalid", cursor), ex);
+        }
+
+        JsonNode pointInTimeNode = node != null ? node.get(POINT_IN_TIME) : null;
+        JsonNode searchAfterNode = node != null ? node.get(SEARCH_AFTER) : null;
+        JsonNode totalElementsNode = node != null ? node.get(TOTAL_ELEMENTS) : null;
+        if (
+                pointInTimeNode == null || !pointInTimeNode.isTextual() ||
+                searchAfterNode == null || !searchAfterNode.isArray() || searchAfterNode.isEmpty() ||
+                totalElementsNode == null || !totalElementsNode.canConvertToLong()) {
+            throw new IllegalArgumentException(String.format("Cursor '%s' is invalid", cursor));
+        }
+
+        List<Object> searchAfter = new ArrayList<>(searchAfterNode.size());
+        for (JsonNode value : searchAfterNode) {
+            searchAfter.add(value.isNumber() ? value.numberValue() : value.asText());
+        }
+        return new SearchCursor(pointInTimeNode.asText(), searchAfter.toArray(), totalElementsNode.asLong());
+    }
+
+}
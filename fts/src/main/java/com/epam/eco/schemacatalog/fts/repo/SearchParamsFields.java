@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.epam.eco.schemacatalog.fts.FtsConstants;
+import com.epam.eco.schemacatalog.fts.SearchParams;
+
+/**
+ * Maps {@link SearchParams} boosts, terms and regular expressions to the document fields
+ * they apply to, so that every backend searches the same fields.
+ *
+ * @author Andrei_Tytsik
+ */
+abstract class SearchParamsFields {
+
+    private SearchParamsFields() {
+    }
+
+    public static Map<String, Float> boostsOf(SearchParams params) {
+        Map<String, Float> boostingMap = new HashMap<>();
+
+        boostingMap.put(FtsConstants.FIELD_SCHEMA_REGISTRY_ID, params.getSchemaRegistryIdBoost());
+        boostingMap.put(FtsConstants.FIELD_SUBJECT, params.getSubjectBoost());
+        boostingMap.put(FtsConstants.FIELD_VERSION, params.getVersionBoost());
+        boostingMap.put(FtsConstants.FIELD_VERSION_LATEST, params.getVersionLatestBoost());
+        boostingMap.put(FtsConstants.FIELD_COMPATIBILITY, params.getCompatibilityBoost());
+        boostingMap.put(FtsConstants.FIELD_MODE, params.getModeBoost());
+        boostingMap.put(FtsConstants.FIELD_ROOT_NAME, params.getNameBoost());
+        boostingMap.put(FtsConstants.FIELD_ROOT_NAMESPACE, params.getNamespaceBoost());
+        boostingMap.put(FtsConstants.FIELD_ROOT_FULLNAME, params.getFullnameBoost());
+        boostingMap.put(FtsConstants.FIELD_DELETED, params.getDeletedBoost());
+        boostingMap.put(FtsConstants.FIELD_METADATA_DOC, params.getMetadataDocBoost());
+        boostingMap.put(FtsConstants.FIELD_METADATA_ATTRIBUTE_KEY, params.getMetadataAttributeKeyBoost());
+        boostingMap.put(FtsConstants.FIELD_METADATA_ATTRIBUTE_VALUE, params.getMetadataAttributeValueBoost());
+        boostingMap.put(FtsConstants.FIELD_METADATA_UPDATED_BY, params.getMetadataUpdatedByBoost());
+        boostingMap.put(FtsConstants.FIELD_PROPERTY_KEY, params.getPropertyKeysBoost());
+        boostingMap.put(FtsConstants.FIELD_PROPERTY_VALUE, params.getPropertyValuesBoost());
+
+        boostingMap.values().removeIf(boost -> boost == null);
+        return boostingMap;
+    }
+
+    public static Map<String, List<?>> termsOf(SearchParams params) {
+        Map<String, List<?>> fieldMap = new HashMap<>();
+
+        fieldMap.put(FtsConstants.FIELD_SUBJECT, params.getSubjectTerm());
+        fieldMap.put(FtsConstants.FIELD_ROOT_NAME, params.getNameTerm());
+        fieldMap.put(FtsConstants.FIELD_ROOT_FULLNAME, params.getFullnameTerm());
+        fieldMap.put(FtsConstants.FIELD_DELETED, params.getDeletedTerm());
+        fieldMap.put(FtsConstants.FIELD_VERSION, params.getVersionTerm());
+        fieldMap.put(FtsConstants.FIELD_VERSION_LATEST, params.getVersionLatestTerm());
+        fieldMap.put(FtsConstants.FIELD_COMPATIBILITY, params.getCompatibilityTerm());
+        fieldMap.put(FtsConstants.FIELD_MODE, params.getModeTerm());
+        fieldMap.put(FtsConstants.FIELD_ROOT_NAMESPACE, params.getNamespaceTerm());
+        fieldMap.put(FtsConstants.FIELD_METADATA_UPDATED_BY, params.getMetadataUpdatedByTerm());
+
+        fieldMap.values().removeIf(terms -> terms == null || terms.isEmpty());
+        return fieldMap;
+    }
+
+    public static Map<String, String> regExpsOf(SearchParams params) {
+        Map<String, String> fieldMap = new HashMap<>();
+
+        fieldMap.put(FtsConstants.FIELD_SUBJECT, params.getSubjectRegExp());
+        fieldMap.put(FtsConstants.FIELD_ROOT_NAME, params.getNameRegExp());
+        fieldMap.put(FtsConstants.FIELD_ROOT_FULLNAME, params.getFullnameRegExp());
+        fieldMap.put(FtsConstants.FIELD_ROOT_NAMESPACE, params.getNamespaceRegExp());
+        fieldMap.put(FtsConstants.FIELD_METADATA_UPDATED_BY, params.getMetadataUpdatedByRegExp());
+
+        fieldMap.values().removeIf(regExp -> regExp == null || regExp.isEmpty());
+        return fieldMap;
+    }
+
+}
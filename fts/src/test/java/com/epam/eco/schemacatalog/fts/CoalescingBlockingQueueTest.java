@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class CoalescingBlockingQueueTest {
+
+    @Test
+    void testValuesOfSameKeyAreCoalesced() throws Exception {
+        CoalescingBlockingQueue<String, String> queue = new CoalescingBlockingQueue<>(10, 3, 0);
+
+        queue.put("a", "a1");
+        queue.put("b", "b1");
+        queue.put("a", "a2");
+        queue.put("c", "c1");
+
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.getCoalescedCount());
+        assertEquals(Arrays.asList("a2", "b1", "c1"), queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testBatchIsTakenOnceFull() throws Exception {
+        CoalescingBlockingQueue<Integer, Integer> queue = new CoalescingBlockingQueue<>(100, 2, TimeUnit.HOURS.toMillis(1));
+
+        for (int i = 0; i < 5; i++) {
+            queue.put(i, i);
+        }
+
+        assertEquals(Arrays.asList(0, 1), queue.take());
+        assertEquals(Arrays.asList(2, 3), queue.take());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testPartialBatchIsTakenAfterMaxDelay() throws Exception {
+        CoalescingBlockingQueue<Integer, Integer> queue = new CoalescingBlockingQueue<>(100, 10, 50);
+
+        queue.put(1, 1);
+        long startNanos = System.nanoTime();
+
+        assertEquals(Collections.singletonList(1), queue.take());
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void testPutBlocksWhileQueueIsFull() throws Exception {
+        CoalescingBlockingQueue<Integer, Integer> queue = new CoalescingBlockingQueue<>(2, 2, 0);
+        queue.put(1, 1);
+        queue.put(2, 2);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<?> put = executor.submit(() -> {
+                started.countDown();
+                queue.put(3, 3);
+                return null;
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertFalse(put.isDone());
+
+            // coalesced values don't need space
+            queue.put(1, 10);
+
+            assertEquals(Arrays.asList(10, 2), queue.take());
+            put.get(10, TimeUnit.SECONDS);
+            assertEquals(1, queue.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testClosedQueueIsDrained() throws Exception {
+        CoalescingBlockingQueue<Integer, Integer> queue = new CoalescingBlockingQueue<>(100, 10, TimeUnit.HOURS.toMillis(1));
+        queue.put(1, 1);
+        queue.close();
+
+        assertThrows(IllegalStateException.class, () -> queue.put(2, 2));
+        assertFalse(queue.putIfOpen(3, 3));
+        List<Integer> batch = queue.take();
+        assertEquals(Collections.singletonList(1), batch);
+        assertTrue(queue.take().isEmpty());
+    }
+
+}
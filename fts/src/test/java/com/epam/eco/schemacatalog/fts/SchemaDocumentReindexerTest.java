@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
+import com.epam.eco.schemacatalog.fts.ReindexProgress.State;
+import com.epam.eco.schemacatalog.fts.autoconfigure.SchemaCatalogFtsProperties;
+import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentBackend;
+import com.epam.eco.schemacatalog.fts.repo.SchemaDocumentReindex;
+import com.epam.eco.schemacatalog.store.SchemaCatalogStore;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaDocumentReindexerTest {
+
+    private SchemaCatalogStore store;
+    private SchemaDocumentBackend backend;
+    private SchemaDocumentReindex reindex;
+
+    private SchemaDocumentReindexer reindexer;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(SchemaCatalogStore.class);
+        backend = mock(SchemaDocumentBackend.class);
+        reindex = mock(SchemaDocumentReindex.class);
+        when(backend.beginReindex()).thenReturn(reindex);
+        when(reindex.getTarget()).thenReturn("test-index");
+
+        FullSchemaInfo schemaInfo = mock(FullSchemaInfo.class);
+        when(schemaInfo.getEcoId()).thenReturn("test-value/1");
+        when(schemaInfo.getSubject()).thenReturn("test-value");
+        when(schemaInfo.getVersion()).thenReturn(1);
+        when(store.getAllSchemas()).thenReturn(Collections.singletonList(schemaInfo));
+
+        reindexer = new SchemaDocumentReindexer();
+        ReflectionTestUtils.setField(reindexer, "store", store);
+        ReflectionTestUtils.setField(reindexer, "backend", backend);
+        ReflectionTestUtils.setField(reindexer, "properties", new SchemaCatalogFtsProperties());
+    }
+
+    @Test
+    void testReindexIsCompleted() {
+        reindexer.startReindex();
+
+        ReindexProgress progress = awaitFinished();
+        assertEquals(State.COMPLETED, progress.getState());
+        assertEquals("test-index", progress.getTarget());
+        assertEquals(1, progress.getTotalCount());
+        assertNull(progress.getError());
+        verify(reindex).load(any());
+        verify(reindex).complete();
+        verify(reindex, never()).abort();
+    }
+
+    @Test
+    void testReindexIsAbortedIfLoadFails() {
+        doThrow(new IllegalStateException("load failed")).when(reindex).load(any());
+
+        reindexer.startReindex();
+
+        ReindexProgress progress = awaitFinished();
+        assertEquals(State.FAILED, progress.getState());
+        assertEquals("load failed", progress.getError());
+        verify(reindex, never()).complete();
+        verify(reindex).abort();
+    }
+
+    @Test
+    void testReindexIsAbortedIfStoreFails() {
+        when(store.getAllSchemas()).thenThrow(new IllegalStateException("store failed"));
+
+        reindexer.startReindex();
+
+        ReindexProgress progress = awaitFinished();
+        assertEquals(State.FAILED, progress.getState());
+        assertEquals("store failed", progress.getError());
+        verify(reindex, never()).complete();
+        verify(reindex).abort();
+    }
+
+    @Test
+    void testReindexIsAbortedIfCompleteFails() {
+        doThrow(new IllegalStateException("complete failed")).when(reindex).complete();
+
+        reindexer.startReindex();
+
+        ReindexProgress progress = awaitFinished();
+        assertEquals(State.FAILED, progress.getState());
+        assertEquals("complete failed", progress.getError());
+        verify(reindex).abort();
+    }
+
+    @Test
+    void testOnlyOneReindexRunsAtOnce() throws Exception {
+        CountDownLatch completeStarted = new CountDownLatch(1);
+        CountDownLatch completeReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            completeStarted.countDown();
+            completeReleased.await();
+            return null;
+        }).when(reindex).complete();
+
+        reindexer.startReindex();
+        completeStarted.await(10, TimeUnit.SECONDS);
+        assertEquals(State.RUNNING, reindexer.getProgress().getState());
+        assertThrows(IllegalStateException.class, reindexer::startReindex);
+
+        completeReleased.countDown();
+        assertEquals(State.COMPLETED, awaitFinished().getState());
+
+        reindexer.startReindex();
+        assertEquals(State.COMPLETED, awaitFinished().getState());
+    }
+
+    @Test
+    void testFailedBeginDoesNotBlockNextReindex() {
+        IllegalStateException failure = new IllegalStateException("begin failed");
+        when(backend.beginReindex()).thenThrow(failure).thenReturn(reindex);
+
+        assertSame(failure, assertThrows(IllegalStateException.class, reindexer::startReindex));
+        assertEquals(State.NOT_STARTED, reindexer.getProgress().getState());
+
+        reindexer.startReindex();
+        assertEquals(State.COMPLETED, awaitFinished().getState());
+    }
+
+    private ReindexProgress awaitFinished() {
+        await().atMost(10, TimeUnit.SECONDS).
+                pollInterval(10, TimeUnit.MILLISECONDS).
+                until(() -> reindexer.getProgress().getState() != State.RUNNING);
+        return reindexer.getProgress();
+    }
+
+}
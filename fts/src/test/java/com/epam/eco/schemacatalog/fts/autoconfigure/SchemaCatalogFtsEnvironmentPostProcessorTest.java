@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.autoconfigure;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaCatalogFtsEnvironmentPostProcessorTest {
+
+    private static final String HEALTH_PROPERTY = "management.health.elasticsearch.enabled";
+
+    private final SchemaCatalogFtsEnvironmentPostProcessor postProcessor =
+            new SchemaCatalogFtsEnvironmentPostProcessor();
+
+    @Test
+    void testElasticsearchHealthIsDisabledForLuceneBackend() {
+        MockEnvironment environment = new MockEnvironment().
+                withProperty("eco.schemacatalog.fts.backend", "lucene");
+
+        postProcessor.postProcessEnvironment(environment, null);
+
+        assertEquals("false", environment.getProperty(HEALTH_PROPERTY));
+    }
+
+    @Test
+    void testElasticsearchHealthIsKeptForElasticsearchBackend() {
+        MockEnvironment environment = new MockEnvironment();
+
+        postProcessor.postProcessEnvironment(environment, null);
+        assertNull(environment.getProperty(HEALTH_PROPERTY));
+
+        environment.setProperty("eco.schemacatalog.fts.backend", "elasticsearch");
+        postProcessor.postProcessEnvironment(environment, null);
+        assertNull(environment.getProperty(HEALTH_PROPERTY));
+    }
+
+    @Test
+    void testExplicitElasticsearchHealthSettingIsKept() {
+        MockEnvironment environment = new MockEnvironment().
+                withProperty("eco.schemacatalog.fts.backend", "lucene").
+                withProperty(HEALTH_PROPERTY, "true");
+
+        postProcessor.postProcessEnvironment(environment, null);
+
+        assertEquals("true", environment.getProperty(HEALTH_PROPERTY));
+    }
+
+}
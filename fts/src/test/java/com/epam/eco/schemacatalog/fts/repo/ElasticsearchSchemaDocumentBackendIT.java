@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.xcontent.XContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.epam.eco.schemacatalog.fts.Config;
+import com.epam.eco.schemacatalog.fts.QueryStringQuery;
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
+import com.epam.eco.schemacatalog.fts.SearchParams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author Andrei_Tytsik
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {Config.class})
+@TestPropertySource(value = "classpath:application.properties")
+@Disabled("Manual, requires schema-registry and elastic running, see docker-compose in root dir")
+class ElasticsearchSchemaDocumentBackendIT {
+
+    @Autowired
+    private SchemaDocumentBackend backend;
+
+    @Autowired
+    private RestHighLevelClient restHighLevelClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeEach
+    void setUp() {
+        backend.deleteAll(backend.searchByParams(new SearchParams()).getContent());
+        backend.saveAll(Arrays.asList(
+                document("orders-value", 1, "Order"),
+                document("orders-value", 2, "Order"),
+                document("payments-value", 1, "Payment")));
+    }
+
+    @Test
+    void testIndexIsRebuiltAndSwapped() throws Exception {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+        reindex.load(Arrays.asList(
+                document("orders-value", 2, "OrderV2"),
+                document("payments-value", 1, "Payment")));
+        reindex.complete();
+
+        assertEquals(Arrays.asList("orders-value/2", "payments-value/1"), getEcoIds());
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:orderv2")).getTotalElements());
+        assertEquals(
+                Collections.singleton(reindex.getTarget()),
+                restHighLevelClient.indices().getAlias(
+                        new GetAliasesRequest(SchemaDocument.INDEX_NAME),
+                        RequestOptions.DEFAULT).getAliases().keySet());
+    }
+
+    @Test
+    void testDocumentsSavedOrDeletedMeanwhileAreNotOverwrittenByLoad() {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+
+        backend.saveAll(Collections.singletonList(document("payments-value", 1, "PaymentV2")));
+        backend.deleteAll(Collections.singletonList(document("orders-value", 1, "Order")));
+        backend.deleteAll(Collections.singletonList(document("orders-value", 2, "Order")));
+        backend.saveAll(Collections.singletonList(document("orders-value", 2, "OrderV2")));
+
+        reindex.load(Arrays.asList(
+                document("orders-value", 1, "Order"),
+                document("orders-value", 2, "Order"),
+                document("payments-value", 1, "Payment")));
+        reindex.complete();
+
+        assertEquals(Arrays.asList("orders-value/2", "payments-value/1"), getEcoIds());
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:orderv2")).getTotalElements());
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:paymentv2")).getTotalElements());
+    }
+
+    @Test
+    void testDeleteRacingWithLoadIsReappliedOnComplete() throws Exception {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+
+        backend.deleteAll(Collections.singletonList(document("orders-value", 1, "Order")));
+        // as if a load had checked the document right before it was deleted
+        restHighLevelClient.index(
+                new IndexRequest(reindex.getTarget()).
+                        id("orders-value/1").
+                        source(
+                                elasticsearchOperations.getElasticsearchConverter().
+                                        mapObject(document("orders-value", 1, "Order")).toJson(),
+                                XContentType.JSON),
+                RequestOptions.DEFAULT);
+        reindex.load(Arrays.asList(
+                document("orders-value", 2, "Order"),
+                document("payments-value", 1, "Payment")));
+        reindex.complete();
+
+        assertEquals(Arrays.asList("orders-value/2", "payments-value/1"), getEcoIds());
+    }
+
+    @Test
+    void testAbortedIndexIsDeletedAndCurrentOneIsKept() throws Exception {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+        reindex.load(Collections.singletonList(document("orders-value", 2, "OrderV2")));
+        reindex.abort();
+
+        assertFalse(
+                restHighLevelClient.indices().exists(
+                        new GetIndexRequest(reindex.getTarget()),
+                        RequestOptions.DEFAULT));
+        assertEquals(Arrays.asList("orders-value/1", "orders-value/2", "payments-value/1"), getEcoIds());
+        assertEquals(0, backend.searchByQuery(new QueryStringQuery("rootName:orderv2")).getTotalElements());
+
+        backend.beginReindex().abort();
+    }
+
+    private List<String> getEcoIds() {
+        return backend.searchByParams(new SearchParams()).getContent().stream().
+                map(SchemaDocument::getEcoId).
+                sorted().
+                collect(Collectors.toList());
+    }
+
+    private static SchemaDocument document(String subject, int version, String name) {
+        SchemaDocument document = new SchemaDocument();
+        document.setEcoId(subject + "/" + version);
+        document.setSubject(subject);
+        document.setVersion(version);
+        document.setVersionLatest(true);
+        document.setDeleted(false);
+        document.setRootName(name);
+        document.setRootNamespace("com.acme");
+        document.setRootFullname("com.acme." + name);
+        document.addPath("id");
+        return document;
+    }
+
+}
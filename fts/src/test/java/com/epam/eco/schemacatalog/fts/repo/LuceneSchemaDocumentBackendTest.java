@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.fts.repo;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
+import com.epam.eco.schemacatalog.fts.FtsConstants;
+import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
+import com.epam.eco.schemacatalog.fts.QueryStringQuery;
+import com.epam.eco.schemacatalog.fts.SchemaDocument;
+import com.epam.eco.schemacatalog.fts.SearchParams;
+import com.epam.eco.schemacatalog.fts.SearchResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class LuceneSchemaDocumentBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LuceneSchemaDocumentBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LuceneSchemaDocumentBackend(tempDir, 100);
+        backend.saveAll(Arrays.asList(
+                document("orders-value", 1, "com.acme.orders", "Order", false),
+                document("orders-value", 2, "com.acme.orders", "Order", true),
+                document("payments-value", 1, "com.acme.payments", "Payment", true)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        backend.close();
+    }
+
+    @Test
+    void testDocumentsAreSearchedByQueryString() {
+        SearchResult<SchemaDocument> result = backend.searchByQuery(new QueryStringQuery("rootName:order"));
+
+        assertEquals(2, result.getTotalElements());
+        assertEquals(
+                Arrays.asList("orders-value", "orders-value"),
+                result.getContent().stream().map(SchemaDocument::getSubject).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDocumentsAreFilteredByTermsAndRegExps() {
+        SearchParams params = new SearchParams();
+        params.setVersionLatestTerm(Collections.singletonList(true));
+        params.setNamespaceRegExp("com\\.acme\\.pay.*");
+
+        SearchResult<SchemaDocument> result = backend.searchByParams(params);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals("payments-value", result.getContent().get(0).getSubject());
+        assertEquals(Integer.valueOf(1), result.getContent().get(0).getVersion());
+    }
+
+    @Test
+    void testAggregationsAreNotFiltered() {
+        SearchParams params = new SearchParams();
+        params.setSubjectTerm(Collections.singletonList("payments-value"));
+
+        SearchResult<SchemaDocument> result = backend.searchByParams(params);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(Long.valueOf(2), result.getAggregation(FtsConstants.FIELD_VERSION).get("1"));
+        assertEquals(Long.valueOf(1), result.getAggregation(FtsConstants.FIELD_VERSION).get("2"));
+        assertEquals(
+                Long.valueOf(2),
+                result.getAggregation(FtsConstants.FIELD_ROOT_NAMESPACE).get("com.acme.orders"));
+    }
+
+    @Test
+    void testDocumentsAreReplacedAndDeleted() {
+        backend.saveAll(Collections.singletonList(
+                document("orders-value", 2, "com.acme.orders", "OrderV2", true)));
+        assertEquals(3, backend.searchByParams(new SearchParams()).getTotalElements());
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:orderv2")).getTotalElements());
+
+        backend.deleteAll(Collections.singletonList(
+                document("orders-value", 1, "com.acme.orders", "Order", false)));
+        List<SchemaDocument> content = backend.searchByParams(new SearchParams()).getContent();
+        assertEquals(2, content.size());
+    }
+
+    @Test
+    void testOnlyIncludedFieldsArePopulated() {
+        SearchParams params = new SearchParams();
+        params.setSubjectTerm(Collections.singletonList("payments-value"));
+
+        SearchResult<SchemaDocument> result = backend.searchByParams(
+                params,
+                Arrays.asList(FtsConstants.FIELD_SUBJECT, FtsConstants.FIELD_VERSION));
+
+        SchemaDocument document = result.getContent().get(0);
+        assertEquals("payments-value", document.getSubject());
+        assertEquals(Integer.valueOf(1), document.getVersion());
+        assertNull(document.getRootName());
+        assertNull(document.getPath());
+    }
+
+    @Test
+    void testResultWindowIsLimited() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> backend.searchByQuery(new QueryStringQuery("*:*", 10, 20)));
+    }
+
+    @Test
+    void testDocumentsAreScrolledFromSnapshot() {
+        SearchParams params = new SearchParams();
+        params.setPageSize(2);
+
+        CursorSearchResult<SchemaDocument> first = backend.scrollByParams(params, null, null);
+        assertEquals(3, first.getTotalElements());
+        assertEquals(2, first.getContent().size());
+        assertNotNull(first.getNextCursor());
+
+        backend.saveAll(Collections.singletonList(
+                document("accounts-value", 1, "com.acme.accounts", "Account", true)));
+
+        CursorSearchResult<SchemaDocument> second = backend.scrollByParams(params, first.getNextCursor(), null);
+        assertEquals(3, second.getTotalElements());
+        assertEquals(1, second.getContent().size());
+        assertNull(second.getNextCursor());
+
+        List<String> ecoIds = new ArrayList<>();
+        first.forEach(document -> ecoIds.add(document.getEcoId()));
+        second.forEach(document -> ecoIds.add(document.getEcoId()));
+        assertEquals(Arrays.asList("orders-value/1", "orders-value/2", "payments-value/1"), ecoIds);
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> backend.scrollByParams(new SearchParams(), "not a cursor", null));
+    }
+
+    @Test
+    void testElasticsearchQueryIsRejected() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> backend.searchByQuery(new JsonSearchQuery("{\"match_all\":{}}", 0, 10)));
+    }
+
+    @Test
+    void testIndexIsRebuilt() {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+        assertThrows(IllegalStateException.class, backend::beginReindex);
+
+        backend.saveAll(Collections.singletonList(
+                document("payments-value", 1, "com.acme.payments", "PaymentV2", true)));
+        reindex.load(Arrays.asList(
+                document("orders-value", 2, "com.acme.orders", "OrderV2", true),
+                document("payments-value", 1, "com.acme.payments", "Payment", true)));
+        reindex.complete();
+
+        List<String> ecoIds = backend.searchByParams(new SearchParams()).getContent().stream().
+                map(SchemaDocument::getEcoId).
+                sorted().
+                collect(Collectors.toList());
+        assertEquals(Arrays.asList("orders-value/2", "payments-value/1"), ecoIds);
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:orderv2")).getTotalElements());
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:paymentv2")).getTotalElements());
+        assertNotNull(backend.beginReindex());
+    }
+
+    @Test
+    void testDocumentsDeletedMeanwhileAreNotLoaded() {
+        SchemaDocumentReindex reindex = backend.beginReindex();
+
+        backend.deleteAll(Collections.singletonList(
+                document("orders-value", 1, "com.acme.orders", "Order", false)));
+        backend.deleteAll(Collections.singletonList(
+                document("payments-value", 1, "com.acme.payments", "Payment", true)));
+        backend.saveAll(Collections.singletonList(
+                document("payments-value", 1, "com.acme.payments", "PaymentV2", true)));
+        reindex.load(Arrays.asList(
+                document("orders-value", 1, "com.acme.orders", "Order", false),
+                document("orders-value", 2, "com.acme.orders", "Order", true),
+                document("payments-value", 1, "com.acme.payments", "Payment", true)));
+        reindex.complete();
+
+        List<String> ecoIds = backend.searchByParams(new SearchParams()).getContent().stream().
+                map(SchemaDocument::getEcoId).
+                sorted().
+                collect(Collectors.toList());
+        assertEquals(Arrays.asList("orders-value/2", "payments-value/1"), ecoIds);
+        assertEquals(1, backend.searchByQuery(new QueryStringQuery("rootName:paymentv2")).getTotalElements());
+    }
+
+    private static SchemaDocument document(
+            String subject,
+            int version,
+            String namespace,
+            String name,
+            boolean versionLatest) {
+        SchemaDocument document = new SchemaDocument();
+        document.setEcoId(subject + "/" + version);
+        document.setSubject(subject);
+        document.setVersion(version);
+        document.setVersionLatest(versionLatest);
+        document.setDeleted(false);
+        document.setRootName(name);
+        document.setRootNamespace(namespace);
+        document.setRootFullname(namespace + "." + name);
+        document.addPath("id");
+        return document;
+    }
+
+}
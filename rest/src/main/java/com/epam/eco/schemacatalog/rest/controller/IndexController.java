@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.rest.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.epam.eco.schemacatalog.fts.ReindexProgress;
+import com.epam.eco.schemacatalog.fts.SchemaDocumentReindexer;
+
+/**
+ * @author Andrei_Tytsik
+ */
+@RestController
+@RequestMapping("/api/index")
+public class IndexController {
+
+    @Autowired
+    private SchemaDocumentReindexer schemaDocumentReindexer;
+
+    @PostMapping("/reindex")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReindexProgress postReindex() {
+        return schemaDocumentReindexer.startReindex();
+    }
+
+    @GetMapping("/reindex")
+    public ReindexProgress getReindex() {
+        return schemaDocumentReindexer.getProgress();
+    }
+
+}
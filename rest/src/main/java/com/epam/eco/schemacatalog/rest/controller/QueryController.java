@@ -41,6 +41,7 @@ import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.LiteSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.SchemaRegisterParams;
 import com.epam.eco.schemacatalog.domain.schema.SubjectSchemas;
+import com.epam.eco.schemacatalog.fts.CursorSearchResult;
 import com.epam.eco.schemacatalog.fts.JsonSearchQuery;
 import com.epam.eco.schemacatalog.fts.SearchParams;
 import com.epam.eco.schemacatalog.fts.SearchResult;
@@ -65,13 +66,29 @@ public class QueryController {
 
     @GetMapping("/schemas-by-params")
     public SearchResult<LiteSchemaInfo> getSchemasByParams(SearchParams params) {
-        return schemaDocumentRepository.searchByParams(params)
+        return schemaDocumentRepository.searchByParams(params, SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
                 .map(SchemaDocumentConverter::toLiteSchemaInfo);
     }
 
     @PostMapping("/schemas-by-params")
     public SearchResult<LiteSchemaInfo> postSchemasByParams(@RequestBody SearchParams params) {
-        return schemaDocumentRepository.searchByParams(params)
+        return schemaDocumentRepository.searchByParams(params, SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
+                .map(SchemaDocumentConverter::toLiteSchemaInfo);
+    }
+
+    @GetMapping("/schemas-by-params/cursor")
+    public CursorSearchResult<LiteSchemaInfo> getSchemasByParamsCursor(
+            SearchParams params,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return schemaDocumentRepository.scrollByParams(params, cursor, SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
+                .map(SchemaDocumentConverter::toLiteSchemaInfo);
+    }
+
+    @PostMapping("/schemas-by-params/cursor")
+    public CursorSearchResult<LiteSchemaInfo> postSchemasByParamsCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestBody SearchParams params) {
+        return schemaDocumentRepository.scrollByParams(params, cursor, SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
                 .map(SchemaDocumentConverter::toLiteSchemaInfo);
     }
 
@@ -81,7 +98,9 @@ public class QueryController {
             @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
             @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize) {
         String decodedQuery = UrlDecoderUtils.decodeUrlParam(query);
-        return schemaDocumentRepository.searchByQuery(new JsonSearchQuery(decodedQuery, page, pageSize))
+        return schemaDocumentRepository.searchByQuery(
+                        new JsonSearchQuery(decodedQuery, page, pageSize),
+                        SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
                 .map(SchemaDocumentConverter::toLiteSchemaInfo);
     }
 
@@ -90,7 +109,9 @@ public class QueryController {
             @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
             @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize,
             @RequestBody String query) {
-        return schemaDocumentRepository.searchByQuery(new JsonSearchQuery(query, page, pageSize))
+        return schemaDocumentRepository.searchByQuery(
+                        new JsonSearchQuery(query, page, pageSize),
+                        SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
                 .map(SchemaDocumentConverter::toLiteSchemaInfo);
     }
 
@@ -66,7 +66,7 @@ public class SchemaController {
 
     @GetMapping
     public SearchResult<LiteSchemaInfo> getSubjects(SearchParams params) {
-        return schemaDocumentRepository.searchByParams(params)
+        return schemaDocumentRepository.searchByParams(params, SchemaDocumentConverter.LITE_SCHEMA_INFO_FIELDS)
                 .map(SchemaDocumentConverter::toLiteSchemaInfo);
     }
 
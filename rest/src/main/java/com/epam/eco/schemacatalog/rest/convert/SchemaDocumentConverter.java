@@ -15,7 +15,10 @@
  */
 package com.epam.eco.schemacatalog.rest.convert;
 
+import java.util.List;
+
 import com.epam.eco.schemacatalog.domain.schema.LiteSchemaInfo;
+import com.epam.eco.schemacatalog.fts.FtsConstants;
 import com.epam.eco.schemacatalog.fts.SchemaDocument;
 
 /**
@@ -23,6 +26,22 @@ import com.epam.eco.schemacatalog.fts.SchemaDocument;
  */
 public abstract class SchemaDocumentConverter {
 
+    /**
+     * Fields of {@link SchemaDocument} read by {@link #toLiteSchemaInfo(SchemaDocument)}, so
+     * searches can fetch only those.
+     */
+    public static final List<String> LITE_SCHEMA_INFO_FIELDS = List.of(
+            FtsConstants.FIELD_SUBJECT,
+            FtsConstants.FIELD_VERSION,
+            FtsConstants.FIELD_SCHEMA_REGISTRY_ID,
+            FtsConstants.FIELD_ROOT_NAME,
+            FtsConstants.FIELD_ROOT_NAMESPACE,
+            FtsConstants.FIELD_ROOT_FULLNAME,
+            FtsConstants.FIELD_COMPATIBILITY,
+            FtsConstants.FIELD_MODE,
+            FtsConstants.FIELD_VERSION_LATEST,
+            FtsConstants.FIELD_DELETED);
+
     public static LiteSchemaInfo toLiteSchemaInfo(SchemaDocument source) {
         if (source == null) {
             return null;
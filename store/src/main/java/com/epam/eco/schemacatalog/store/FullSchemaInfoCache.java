@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+
+import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.SubjectAndVersion;
+import com.epam.eco.schemacatalog.store.schema.SchemaEntity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of materialized {@link FullSchemaInfo} objects. Each entry remembers the
+ * {@link SchemaEntity} it was built from, so it is served only while the store still
+ * returns an equal entity. Metadata changes are not visible in the entity, so those
+ * require explicit {@link #invalidate(Collection)}.
+ *
+ * @author Andrei_Tytsik
+ */
+public class FullSchemaInfoCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "schemacatalog.store.schemaInfo";
+
+    private final Cache<SubjectAndVersion, Entry> cache;
+    private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+
+    /**
+     * Bumped on every invalidation. A materialization that overlaps with an invalidation
+     * might be built from stale metadata, so its result is returned but not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public FullSchemaInfoCache(long maxSize) {
+        Validate.isTrue(maxSize >= 0, "Max size is invalid");
+
+        cache = Caffeine.newBuilder().
+                maximumSize(maxSize).
+                recordStats(() -> statsCounter).
+                build();
+    }
+
+    public FullSchemaInfo get(
+            SchemaEntity schemaEntity,
+            Function<SchemaEntity, FullSchemaInfo> materializer) {
+        Validate.notNull(schemaEntity, "Schema entity is null");
+        Validate.notNull(materializer, "Materializer is null");
+
+        SubjectAndVersion key = keyOf(schemaEntity.getSubject(), schemaEntity.getVersion());
+
+        Entry entry = cache.asMap().get(key);
+        if (entry != null && entry.schemaEntity.equals(schemaEntity)) {
+            statsCounter.recordHits(1);
+            return entry.schemaInfo;
+        }
+        statsCounter.recordMisses(1);
+
+        long generationBefore = generation.get();
+        FullSchemaInfo schemaInfo = materializer.apply(schemaEntity);
+        if (generation.get() == generationBefore) {
+            Entry materialized = new Entry(schemaEntity, schemaInfo);
+            cache.put(key, materialized);
+            if (generation.get() != generationBefore) {
+                cache.asMap().remove(key, materialized);
+            }
+        }
+        return schemaInfo;
+    }
+
+    public void invalidate(Collection<SubjectAndVersion> subjectAndVersions) {
+        Validate.notNull(subjectAndVersions, "Collection of SubjectAndVersion is null");
+
+        generation.incrementAndGet();
+        subjectAndVersions.forEach(
+                sav -> cache.invalidate(keyOf(sav.getSubject(), sav.getVersion())));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private static SubjectAndVersion keyOf(String subject, int version) {
+        // deleted timestamp takes part in equals(), so it must not leak into keys
+        return SubjectAndVersion.with(subject, version);
+    }
+
+    private static final class Entry {
+
+        private final SchemaEntity schemaEntity;
+        private final FullSchemaInfo schemaInfo;
+
+        private Entry(SchemaEntity schemaEntity, FullSchemaInfo schemaInfo) {
+            this.schemaEntity = Objects.requireNonNull(schemaEntity);
+            this.schemaInfo = Objects.requireNonNull(schemaInfo);
+        }
+
+    }
+
+}
@@ -30,7 +30,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.epam.eco.commons.avro.AvroUtils;
 import com.epam.eco.commons.avro.validation.DetailedSchemaValidationException;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataBatchUpdateParams;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
@@ -51,6 +50,7 @@ import com.epam.eco.schemacatalog.store.schema.SchemaRegistryStoreUpdateListener
 import com.epam.eco.schemacatalog.store.utils.SecurityUtils;
 import com.epam.eco.schemacatalog.utils.DetailedAvroCompatibilityChecker;
 import com.epam.eco.schemacatalog.utils.MetadataDocAttributeExtractor;
+import com.epam.eco.schemacatalog.utils.ParsedSchemaPool;
 
 import io.confluent.kafka.schemaregistry.CompatibilityLevel;
 
@@ -69,6 +69,9 @@ public class SchemaCatalogStoreImpl implements SchemaCatalogStore, SchemaRegistr
     @Autowired
     private MetadataStore metadataStore;
 
+    @Autowired
+    private FullSchemaInfoCache schemaInfoCache;
+
     @Autowired(required = false)
     private List<SchemaCatalogStoreUpdateListener> updateListeners;
 
@@ -133,7 +136,7 @@ public class SchemaCatalogStoreImpl implements SchemaCatalogStore, SchemaRegistr
 
         List<Schema> schemas = schemaRegistryStore.getSchemas(params.getSubject()).stream().
                 filter(e -> !e.isDeleted()).
-                map(e -> AvroUtils.schemaFromJson(e.getSchema())).
+                map(e -> (Schema) ParsedSchemaPool.getDefault().intern(e.getSchema()).rawSchema()).
                 collect(Collectors.toList());
 
         try {
@@ -199,6 +202,10 @@ public class SchemaCatalogStoreImpl implements SchemaCatalogStore, SchemaRegistr
 
     @Override
     public void onSchemasUpdated(Collection<SchemaEntity> schemas) {
+        schemaInfoCache.invalidate(
+                schemas.stream().
+                        map(schema -> SubjectAndVersion.with(schema.getSubject(), schema.getVersion())).
+                        collect(Collectors.toList()));
         fireSchemasUpdated(
                 schemas.stream().map(this::toFullSchemaInfo).collect(Collectors.toList()));
     }
@@ -206,12 +213,18 @@ public class SchemaCatalogStoreImpl implements SchemaCatalogStore, SchemaRegistr
     @Override
     public void onSchemasDeleted(Collection<SubjectAndVersion> subjectAndVersions) {
         subjectAndVersions.forEach(sav -> metadataStore.deleteAll(sav.getSubject(), sav.getVersion()));
+        schemaInfoCache.invalidate(subjectAndVersions);
         fireSchemasDeleted(subjectAndVersions);
     }
 
     @Override
     public void onMetadataSubjectsUpdated(Collection<String> subjects) {
-        fireSchemasUpdated(schemaRegistryStore.getSchemas(subjects).stream().
+        List<SchemaEntity> schemas = schemaRegistryStore.getSchemas(subjects);
+        schemaInfoCache.invalidate(
+                schemas.stream().
+                        map(schema -> SubjectAndVersion.with(schema.getSubject(), schema.getVersion())).
+                        collect(Collectors.toList()));
+        fireSchemasUpdated(schemas.stream().
                 map(this::toFullSchemaInfo).
                 collect(Collectors.toList()));
     }
@@ -245,6 +258,10 @@ public class SchemaCatalogStoreImpl implements SchemaCatalogStore, SchemaRegistr
     }
 
     private FullSchemaInfo toFullSchemaInfo(SchemaEntity schemaEntity) {
+        return schemaInfoCache.get(schemaEntity, this::materialize);
+    }
+
+    private FullSchemaInfo materialize(SchemaEntity schemaEntity) {
         return FullSchemaInfo.builder().
                 subject(schemaEntity.getSubject()).
                 version(schemaEntity.getVersion()).
@@ -29,6 +29,7 @@ import org.springframework.retry.policy.NeverRetryPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 
+import com.epam.eco.schemacatalog.store.FullSchemaInfoCache;
 import com.epam.eco.schemacatalog.store.SchemaCatalogStore;
 import com.epam.eco.schemacatalog.store.SchemaCatalogStoreImpl;
 import com.epam.eco.schemacatalog.store.metadata.kafka.KafkaMetadataStoreConfiguration;
@@ -49,6 +50,11 @@ public class SchemaCatalogStoreAutoConfiguration {
         return new SchemaCatalogStoreImpl();
     }
 
+    @Bean
+    public FullSchemaInfoCache fullSchemaInfoCache(SchemaCatalogStoreProperties properties) {
+        return new FullSchemaInfoCache(properties.getSchemaInfoCacheMaxSize());
+    }
+
     @Bean
     public RetryTemplate retryTemplate() {
         RetryTemplate retryTemplate = new RetryTemplate();
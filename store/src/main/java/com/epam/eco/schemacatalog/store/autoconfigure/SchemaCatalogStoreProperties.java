@@ -24,6 +24,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class SchemaCatalogStoreProperties {
 
     private String schemaRegistryUrl;
+    private long schemaInfoCacheMaxSize = 100_000;
+    private long schemaRegistryClientCacheMaxSize = Long.MAX_VALUE;
+    private Long schemaRegistryClientCacheMaxSchemaWeight;
+    private Long schemaRegistryClientCacheExpireAfterWriteMs;
 
     public String getSchemaRegistryUrl() {
         return schemaRegistryUrl;
@@ -31,5 +35,29 @@ public class SchemaCatalogStoreProperties {
     public void setSchemaRegistryUrl(String schemaRegistryUrl) {
         this.schemaRegistryUrl = schemaRegistryUrl;
     }
+    public long getSchemaInfoCacheMaxSize() {
+        return schemaInfoCacheMaxSize;
+    }
+    public void setSchemaInfoCacheMaxSize(long schemaInfoCacheMaxSize) {
+        this.schemaInfoCacheMaxSize = schemaInfoCacheMaxSize;
+    }
+    public long getSchemaRegistryClientCacheMaxSize() {
+        return schemaRegistryClientCacheMaxSize;
+    }
+    public void setSchemaRegistryClientCacheMaxSize(long schemaRegistryClientCacheMaxSize) {
+        this.schemaRegistryClientCacheMaxSize = schemaRegistryClientCacheMaxSize;
+    }
+    public Long getSchemaRegistryClientCacheMaxSchemaWeight() {
+        return schemaRegistryClientCacheMaxSchemaWeight;
+    }
+    public void setSchemaRegistryClientCacheMaxSchemaWeight(Long schemaRegistryClientCacheMaxSchemaWeight) {
+        this.schemaRegistryClientCacheMaxSchemaWeight = schemaRegistryClientCacheMaxSchemaWeight;
+    }
+    public Long getSchemaRegistryClientCacheExpireAfterWriteMs() {
+        return schemaRegistryClientCacheExpireAfterWriteMs;
+    }
+    public void setSchemaRegistryClientCacheExpireAfterWriteMs(Long schemaRegistryClientCacheExpireAfterWriteMs) {
+        this.schemaRegistryClientCacheExpireAfterWriteMs = schemaRegistryClientCacheExpireAfterWriteMs;
+    }
 
 }
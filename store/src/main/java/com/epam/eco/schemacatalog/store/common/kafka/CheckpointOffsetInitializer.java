@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.common.kafka;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.eco.commons.kafka.consumer.bootstrap.OffsetInitializer;
+
+/**
+ * Positions the consumer right after the records already reflected by a restored
+ * checkpoint. Partitions the checkpoint knows nothing about are initialized by the
+ * fallback initializer.
+ * <p>
+ * If the checkpoint doesn't fit the topic (e.g. the topic was re-created and its end
+ * offsets are behind the checkpoint ones), the checkpoint is rejected: the listener is
+ * notified, so the restored state can be discarded, and all partitions are initialized
+ * by the fallback initializer.
+ *
+ * @author Andrei_Tytsik
+ */
+public class CheckpointOffsetInitializer implements OffsetInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointOffsetInitializer.class);
+
+    private final Map<Integer, Long> offsets;
+    private final OffsetInitializer fallback;
+    private final Runnable rejectionListener;
+
+    public CheckpointOffsetInitializer(
+            Map<Integer, Long> offsets,
+            OffsetInitializer fallback,
+            Runnable rejectionListener) {
+        Validate.notNull(offsets, "Map of offsets is null");
+        Validate.notNull(fallback, "Fallback initializer is null");
+        Validate.notNull(rejectionListener, "Rejection listener is null");
+
+        this.offsets = new HashMap<>(offsets);
+        this.fallback = fallback;
+        this.rejectionListener = rejectionListener;
+    }
+
+    @Override
+    public void init(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        if (!isCheckpointValid(partitions, endOffsets)) {
+            LOGGER.warn(
+                    "Checkpoint offsets {} don't match end offsets {}, checkpoint rejected",
+                    offsets, endOffsets);
+            rejectionListener.run();
+            fallback.init(consumer, partitions);
+            return;
+        }
+
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+        List<TopicPartition> unknownPartitions = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            Long offset = offsets.get(partition.partition());
+            if (offset != null) {
+                consumer.seek(partition, Math.max(offset, beginningOffsets.getOrDefault(partition, 0L)));
+            } else {
+                unknownPartitions.add(partition);
+            }
+        }
+
+        if (!unknownPartitions.isEmpty()) {
+            fallback.init(consumer, unknownPartitions);
+        }
+    }
+
+    private boolean isCheckpointValid(
+            Collection<TopicPartition> partitions,
+            Map<TopicPartition, Long> endOffsets) {
+        for (TopicPartition partition : partitions) {
+            Long offset = offsets.get(partition.partition());
+            if (offset == null) {
+                continue;
+            }
+            Long endOffset = endOffsets.get(partition);
+            if (endOffset == null || offset > endOffset) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
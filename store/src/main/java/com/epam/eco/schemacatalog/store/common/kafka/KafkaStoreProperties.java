@@ -29,6 +29,9 @@ public class KafkaStoreProperties {
     private Map<String, Object> clientConfig;
     private long bootstrapTimeoutInMs = 60000;
     private Long bootstrapStartTimestampMs;
+    private String checkpointDirectory;
+    private long checkpointIntervalMs = 60000;
+    private int metadataConsumerParallelism = 1;
 
     public String getBootstrapServers() {
         return bootstrapServers;
@@ -57,4 +60,28 @@ public class KafkaStoreProperties {
         this.bootstrapStartTimestampMs = bootstrapStartTimestampMs;
     }
 
+    public String getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    public void setCheckpointDirectory(String checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    public long getCheckpointIntervalMs() {
+        return checkpointIntervalMs;
+    }
+
+    public void setCheckpointIntervalMs(long checkpointIntervalMs) {
+        this.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    public int getMetadataConsumerParallelism() {
+        return metadataConsumerParallelism;
+    }
+
+    public void setMetadataConsumerParallelism(int metadataConsumerParallelism) {
+        this.metadataConsumerParallelism = metadataConsumerParallelism;
+    }
+
 }
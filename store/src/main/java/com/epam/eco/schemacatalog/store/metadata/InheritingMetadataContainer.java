@@ -15,29 +15,41 @@
  */
 package com.epam.eco.schemacatalog.store.metadata;
 
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
+import com.epam.eco.schemacatalog.domain.metadata.FieldMetadataKey;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
 
 /**
+ * Keeps metadata of all versions of a subject. Each version sees its own entries and
+ * the entries inherited from the closest lower version that has such an entry.
+ * <p>
+ * Versions are kept as an overlay chain: a version stores only its own entries (indexed
+ * by key with the version ignored), inherited ones are resolved through the lower
+ * versions. Collections returned by {@link #getCollection(int)} are read-only views over
+ * the chain, nothing is copied. The views are stable snapshots: once a version is
+ * shared with a view, its entries are copied on the next change.
+ *
  * @author Raman_Babich
  */
 public class InheritingMetadataContainer implements MetadataContainer {
 
     private final String subject;
-    private final NavigableMap<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> container =
-            new TreeMap<>();
+    private final NavigableMap<Integer, VersionMetadata> container = new TreeMap<>();
 
     public InheritingMetadataContainer(String subject) {
         Validate.notBlank(subject, "Subject is blank");
@@ -54,20 +66,33 @@ public class InheritingMetadataContainer implements MetadataContainer {
     public Map<MetadataKey, MetadataValue> getCollection(int version) {
         Validate.isTrue(version >= 0, "Version is negative");
 
-        Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> entry =
-                container.floorEntry(version);
-        return
-                entry != null ?
-                Collections.unmodifiableMap(toMetadataCollection(entry.getValue())) :
-                null;
+        NavigableMap<Integer, VersionMetadata> chain = container.headMap(version, true);
+        if (chain.isEmpty()) {
+            return null;
+        }
+
+        List<Map<VersionIgnoringKeyWrapper, MetadataEntry>> layers = new ArrayList<>(chain.size());
+        chain.descendingMap().values().forEach(metadata -> layers.add(metadata.share()));
+        return new MetadataView(layers);
+    }
+
+    /**
+     * Returns entries put into the container, inherited ones are not included.
+     */
+    @Override
+    public Map<MetadataKey, MetadataValue> getAll() {
+        Map<MetadataKey, MetadataValue> all = new HashMap<>();
+        container.values().forEach(metadata -> metadata.forEach(all::put));
+        return all;
     }
 
     @Override
     public MetadataValue get(MetadataKey key) {
         Validate.notNull(key, "Metadata key is null");
 
-        Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry = findEntryByOriginKey(key);
-        return entry != null ? entry.getValue() : null;
+        VersionMetadata metadata = container.get(key.getVersion());
+        MetadataEntry entry = metadata != null ? metadata.get(new VersionIgnoringKeyWrapper(key)) : null;
+        return entry != null ? entry.value : null;
     }
 
     @Override
@@ -76,24 +101,10 @@ public class InheritingMetadataContainer implements MetadataContainer {
         Validate.notNull(value, "Metadata value is null");
         validateKeyAcceptable(key);
 
-        MetadataValue oldValue;
-        Map<VersionIgnoringKeyWrapper, MetadataValue> metadata = container.get(key.getVersion());
-        if (metadata == null) {
-            metadata = new HashMap<>();
-            container.put(key.getVersion(), metadata);
-            receiveAllInheritance(key.getVersion(), metadata);
-        }
-        VersionIgnoringKeyWrapper keyWrapper = new VersionIgnoringKeyWrapper(key);
-
-        oldValue = metadata.get(keyWrapper);
-        if (oldValue != null) {
-            metadata.remove(keyWrapper); // it's only to refresh key version.
-        }
-        metadata.put(keyWrapper, value);
-        if (!Objects.equals(value, oldValue)) {
-            giveInheritance(key.getVersion(), keyWrapper, value);
-        }
-        return oldValue;
+        MetadataEntry entry = new MetadataEntry(key, value);
+        MetadataEntry oldEntry = resolve(key.getVersion(), entry.keyWrapper);
+        container.computeIfAbsent(key.getVersion(), v -> new VersionMetadata()).put(entry);
+        return oldEntry != null ? oldEntry.value : null;
     }
 
     @Override
@@ -101,7 +112,16 @@ public class InheritingMetadataContainer implements MetadataContainer {
         Validate.notNull(key, "Metadata key is null");
         validateKeyAcceptable(key);
 
-        return removeByOriginKey(key);
+        VersionMetadata metadata = container.get(key.getVersion());
+        if (metadata == null) {
+            return null;
+        }
+
+        MetadataEntry entry = metadata.remove(new VersionIgnoringKeyWrapper(key));
+        if (metadata.isEmpty()) {
+            container.remove(key.getVersion());
+        }
+        return entry != null ? entry.value : null;
     }
 
     @Override
@@ -109,159 +129,190 @@ public class InheritingMetadataContainer implements MetadataContainer {
         return container.isEmpty();
     }
 
-    private MetadataValue removeByOriginKey(MetadataKey key) {
-        MetadataValue oldValue = null;
-        Map<VersionIgnoringKeyWrapper, MetadataValue> metadata = container.get(key.getVersion());
-        if (metadata != null) {
-            Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry =
-                    findEntryByOriginKey(metadata, key);
+    private MetadataEntry resolve(int version, VersionIgnoringKeyWrapper keyWrapper) {
+        for (VersionMetadata metadata : container.headMap(version, true).descendingMap().values()) {
+            MetadataEntry entry = metadata.get(keyWrapper);
             if (entry != null) {
-                oldValue = metadata.remove(entry.getKey());
-                if (!containsVersion(metadata, key.getVersion())) {
-                    container.remove(key.getVersion());
-                }
-
-                takeBackInheritance(key.getVersion(), entry.getKey());
-                giveInheritanceFromParent(entry.getKey());
+                return entry;
             }
         }
-        return oldValue;
+        return null;
     }
 
-    private void receiveAllInheritance(
-            Integer currentVersion,
-            Map<VersionIgnoringKeyWrapper, MetadataValue> child) {
-        Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> parent =
-                container.lowerEntry(currentVersion);
-        if (parent != null) {
-            child.putAll(parent.getValue());
+    private void validateKeyAcceptable(MetadataKey key) {
+        if (!subject.equals(key.getSubject())) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Metadata key '%s' has unacceptable subject, container's subject is '%s'",
+                            key, subject));
         }
     }
 
-    private void giveInheritance(
-            Integer currentVersion,
-            VersionIgnoringKeyWrapper inheritanceKey,
-            MetadataValue inheritanceValue) {
-        Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> child =
-                container.higherEntry(currentVersion);
-        if (child != null && !ownsSuchInheritance(child, inheritanceKey)) {
-            child.getValue().put(inheritanceKey, inheritanceValue);
-            giveInheritance(child.getKey(), inheritanceKey, inheritanceValue);
+    /**
+     * Own entries of a version. Entries are copied on write once they are shared with a
+     * view.
+     */
+    private static final class VersionMetadata {
+
+        private Map<VersionIgnoringKeyWrapper, MetadataEntry> entries = new HashMap<>();
+        private boolean shared;
+
+        public MetadataEntry get(VersionIgnoringKeyWrapper keyWrapper) {
+            return entries.get(keyWrapper);
         }
-    }
 
-    private void takeBackInheritance(
-            Integer currentVersion,
-            VersionIgnoringKeyWrapper inheritanceKey) {
-        Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> child =
-                container.higherEntry(currentVersion);
-        if (child != null && containsOriginKey(child.getValue(), inheritanceKey.unwrap())) {
-            child.getValue().remove(inheritanceKey);
-            takeBackInheritance(child.getKey(), inheritanceKey);
+        public void put(MetadataEntry entry) {
+            entriesForUpdate().put(entry.keyWrapper, entry);
         }
-    }
 
-    private void giveInheritanceFromParent(VersionIgnoringKeyWrapper inheritanceKey) {
-        Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> parent =
-                container.lowerEntry(inheritanceKey.getVersion());
-        if (parent != null) {
-            Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> newInheritance =
-                    findEntry(parent.getValue(), inheritanceKey);
-            if (newInheritance != null) {
-                giveInheritance(parent.getKey(), newInheritance.getKey(), newInheritance.getValue());
+        public MetadataEntry remove(VersionIgnoringKeyWrapper keyWrapper) {
+            if (!entries.containsKey(keyWrapper)) {
+                return null;
             }
+            return entriesForUpdate().remove(keyWrapper);
         }
-    }
 
-    private Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> findEntry(
-            Map<VersionIgnoringKeyWrapper, MetadataValue> metadata,
-            VersionIgnoringKeyWrapper key) {
-        for (Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry : metadata.entrySet()) {
-            if (entry.getKey().equals(key)) {
-                return entry;
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public void forEach(BiConsumer<MetadataKey, MetadataValue> action) {
+            entries.values().forEach(entry -> action.accept(entry.key, entry.value));
+        }
+
+        public Map<VersionIgnoringKeyWrapper, MetadataEntry> share() {
+            shared = true;
+            return entries;
+        }
+
+        private Map<VersionIgnoringKeyWrapper, MetadataEntry> entriesForUpdate() {
+            if (shared) {
+                entries = new HashMap<>(entries);
+                shared = false;
             }
+            return entries;
         }
-        return null;
-    }
 
-    private boolean containsOriginKey(
-            Map<VersionIgnoringKeyWrapper, MetadataValue> metadata,
-            MetadataKey key) {
-        return findEntryByOriginKey(metadata, key) != null;
     }
 
-    private Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> findEntryByOriginKey(
-            MetadataKey key) {
-        Map<VersionIgnoringKeyWrapper, MetadataValue> metadata = container.get(key.getVersion());
-        return findEntryByOriginKey(metadata, key);
-    }
+    /**
+     * Read-only view of the entries visible in a version. Layers are ordered from the
+     * version itself down to the lowest one, an entry of a higher layer hides the same
+     * entry of the lower ones.
+     */
+    private static final class MetadataView extends AbstractMap<MetadataKey, MetadataValue> {
+
+        private final List<Map<VersionIgnoringKeyWrapper, MetadataEntry>> layers;
+        private Set<Map.Entry<MetadataKey, MetadataValue>> entrySet;
+        private int size = -1;
+
+        private MetadataView(List<Map<VersionIgnoringKeyWrapper, MetadataEntry>> layers) {
+            this.layers = layers;
+        }
+
+        @Override
+        public MetadataValue get(Object key) {
+            if (!(key instanceof MetadataKey)) {
+                return null;
+            }
 
-    private Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> findEntryByOriginKey(
-            Map<VersionIgnoringKeyWrapper, MetadataValue> metadata,
-            MetadataKey key) {
-        if (metadata != null) {
-            for (Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry : metadata.entrySet()) {
-                if (entry.getKey().unwrap().equals(key)) {
-                    return entry;
+            VersionIgnoringKeyWrapper keyWrapper = new VersionIgnoringKeyWrapper((MetadataKey) key);
+            for (Map<VersionIgnoringKeyWrapper, MetadataEntry> layer : layers) {
+                MetadataEntry entry = layer.get(keyWrapper);
+                if (entry != null) {
+                    return entry.key.equals(key) ? entry.value : null;
                 }
             }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
         }
-        return null;
-    }
 
-    private boolean ownsSuchInheritance(
-            Map.Entry<Integer, Map<VersionIgnoringKeyWrapper, MetadataValue>> owner,
-            VersionIgnoringKeyWrapper inheritanceKey) {
-        Integer ownVersion = owner.getKey();
-        Map<VersionIgnoringKeyWrapper, MetadataValue> metadata = owner.getValue();
-        for (Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry : metadata.entrySet()) {
-            if (entry.getKey().equals(inheritanceKey) && entry.getKey().getVersion() == ownVersion) {
-                return true;
+        @Override
+        public int size() {
+            if (size < 0) {
+                int count = 0;
+                Iterator<MetadataEntry> iterator = visibleEntries();
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+                size = count;
             }
+            return size;
         }
-        return false;
-    }
 
-    private boolean containsVersion(
-            Map<VersionIgnoringKeyWrapper, MetadataValue> metadata,
-            int version) {
-        for (Map.Entry<VersionIgnoringKeyWrapper, MetadataValue> entry : metadata.entrySet()) {
-            if (entry.getKey().getVersion() == version) {
-                return true;
+        @Override
+        public Set<Map.Entry<MetadataKey, MetadataValue>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Map.Entry<MetadataKey, MetadataValue>>() {
+                    @Override
+                    public Iterator<Map.Entry<MetadataKey, MetadataValue>> iterator() {
+                        Iterator<MetadataEntry> entries = visibleEntries();
+                        return new Iterator<Map.Entry<MetadataKey, MetadataValue>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return entries.hasNext();
+                            }
+                            @Override
+                            public Map.Entry<MetadataKey, MetadataValue> next() {
+                                MetadataEntry entry = entries.next();
+                                return new SimpleImmutableEntry<>(entry.key, entry.value);
+                            }
+                        };
+                    }
+                    @Override
+                    public int size() {
+                        return MetadataView.this.size();
+                    }
+                };
             }
+            return entrySet;
         }
-        return false;
-    }
 
-    private Map<MetadataKey, MetadataValue> toMetadataCollection(
-            Map<VersionIgnoringKeyWrapper, MetadataValue> metadata) {
-        return metadata.entrySet().stream()
-                .collect(Collectors.toMap(entry -> entry.getKey().unwrap(), Map.Entry::getValue));
-    }
+        private Iterator<MetadataEntry> visibleEntries() {
+            if (layers.size() == 1) {
+                return layers.get(0).values().iterator();
+            }
 
-    private void validateKeyAcceptable(MetadataKey key) {
-        if (!subject.equals(key.getSubject())) {
-            throw new IllegalArgumentException(
-                    String.format(
-                            "Metadata key '%s' has unacceptable subject, container's subject is '%s'",
-                            key, subject));
+            Set<VersionIgnoringKeyWrapper> seen = new HashSet<>();
+            return layers.stream().
+                    flatMap(layer -> layer.values().stream()).
+                    filter(entry -> seen.add(entry.keyWrapper)).
+                    iterator();
         }
+
     }
 
-    private static class VersionIgnoringKeyWrapper {
+    private static final class MetadataEntry {
 
         private final MetadataKey key;
+        private final VersionIgnoringKeyWrapper keyWrapper;
+        private final MetadataValue value;
 
-        private VersionIgnoringKeyWrapper(MetadataKey key) {
+        private MetadataEntry(MetadataKey key, MetadataValue value) {
             this.key = key;
+            this.keyWrapper = new VersionIgnoringKeyWrapper(key);
+            this.value = value;
         }
 
-        public MetadataKey unwrap() {
-            return key;
-        }
+    }
+
+    /**
+     * Key equality with the version ignored. Fields are compared explicitly and the hash
+     * is computed once, keys are immutable.
+     */
+    private static final class VersionIgnoringKeyWrapper {
 
-        public int getVersion() {
-            return key.getVersion();
+        private final MetadataKey key;
+        private final int hash;
+
+        private VersionIgnoringKeyWrapper(MetadataKey key) {
+            this.key = key;
+            this.hash = computeHash(key);
         }
 
         @Override
@@ -269,12 +320,33 @@ public class InheritingMetadataContainer implements MetadataContainer {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             VersionIgnoringKeyWrapper that = (VersionIgnoringKeyWrapper) o;
-            return EqualsBuilder.reflectionEquals(key, that.key, "version");
+            if (hash != that.hash || key.getClass() != that.key.getClass()) return false;
+            if (key.getType() != that.key.getType() || !key.getSubject().equals(that.key.getSubject())) {
+                return false;
+            }
+            if (key instanceof FieldMetadataKey) {
+                FieldMetadataKey fieldKey = (FieldMetadataKey) key;
+                FieldMetadataKey thatFieldKey = (FieldMetadataKey) that.key;
+                return
+                        fieldKey.getSchemaFullName().equals(thatFieldKey.getSchemaFullName()) &&
+                        fieldKey.getField().equals(thatFieldKey.getField());
+            }
+            return true;
         }
 
         @Override
         public int hashCode() {
-            return HashCodeBuilder.reflectionHashCode(1, 1, key, false, null, "version");
+            return hash;
+        }
+
+        private static int computeHash(MetadataKey key) {
+            int hash = 31 * key.getType().hashCode() + key.getSubject().hashCode();
+            if (key instanceof FieldMetadataKey) {
+                FieldMetadataKey fieldKey = (FieldMetadataKey) key;
+                hash = 31 * hash + fieldKey.getSchemaFullName().hashCode();
+                hash = 31 * hash + fieldKey.getField().hashCode();
+            }
+            return hash;
         }
 
     }
@@ -26,6 +26,7 @@ import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
 public interface MetadataContainer {
     String getSubject();
     Map<MetadataKey, MetadataValue> getCollection(int version);
+    Map<MetadataKey, MetadataValue> getAll();
     MetadataValue get(MetadataKey key);
     MetadataValue put(MetadataKey key, MetadataValue value);
     MetadataValue remove(MetadataKey key);
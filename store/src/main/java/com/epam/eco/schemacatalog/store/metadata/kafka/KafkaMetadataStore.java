@@ -15,16 +15,29 @@
  */
 package com.epam.eco.schemacatalog.store.metadata.kafka;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,26 +46,47 @@ import org.springframework.context.SmartLifecycle;
 
 import com.epam.eco.commons.kafka.cache.CacheListener;
 import com.epam.eco.commons.kafka.cache.KafkaCache;
-import com.epam.eco.commons.kafka.config.ConsumerConfigBuilder;
 import com.epam.eco.commons.kafka.config.ProducerConfigBuilder;
-import com.epam.eco.commons.kafka.serde.JsonDeserializer;
+import com.epam.eco.commons.kafka.consumer.bootstrap.BeginningOffsetInitializer;
 import com.epam.eco.commons.kafka.serde.JsonSerializer;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
 import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
+import com.epam.eco.schemacatalog.store.common.kafka.CheckpointOffsetInitializer;
 import com.epam.eco.schemacatalog.store.common.kafka.KafkaStoreProperties;
 import com.epam.eco.schemacatalog.store.metadata.MetadataContainer;
 import com.epam.eco.schemacatalog.store.metadata.MetadataContainerFactory;
 import com.epam.eco.schemacatalog.store.metadata.MetadataStore;
 import com.epam.eco.schemacatalog.store.metadata.MetadataStoreUpdateListener;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 /**
+ * Metadata store backed by the {@code __schemas_metadata} topic. The topic can be
+ * consumed by several threads (see {@link KafkaStoreProperties#getMetadataConsumerParallelism()}),
+ * each of them decodes records of its own partitions and applies them to the store.
+ * Records of a key always land in the same partition, so the order they are applied in
+ * is preserved.
+ * <p>
+ * Subjects are locked independently (striped), so reads and changes of different
+ * subjects don't contend. Changes made through the store are sent to Kafka before any
+ * lock is taken and applied locally right after, the same records consumed back later
+ * are applied once again.
+ *
  * @author Raman_Babich
  */
-public class KafkaMetadataStore implements MetadataStore, CacheListener<MetadataKey, MetadataValue>, SmartLifecycle {
+public class KafkaMetadataStore implements
+        MetadataStore, CacheListener<MetadataKey, MetadataValue>, SmartLifecycle, MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaMetadataStore.class);
 
     private static final String TOPIC_NAME = "__schemas_metadata";
+    private static final String CHECKPOINT_FILE_NAME = TOPIC_NAME + ".checkpoint";
+
+    public static final String BOOTSTRAP_TIME_METRIC_NAME = "schemacatalog.store.metadata.bootstrap.time";
+
+    private static final int SUBJECT_LOCK_STRIPES = 64;
 
     @Autowired
     private KafkaStoreProperties properties;
@@ -64,8 +98,36 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
 
     private KafkaCache<MetadataKey, MetadataValue> metadataCache;
 
-    private final Map<String, MetadataContainer> storeCache = new HashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private final MetadataDecoder metadataDecoder = new MetadataDecoder();
+
+    private final Map<String, MetadataContainer> storeCache = new ConcurrentHashMap<>();
+
+    /**
+     * Containers of a subject are read and changed under the lock of the stripe the
+     * subject is hashed to, so subjects of different stripes never contend.
+     */
+    private final ReadWriteLock[] subjectLocks = createSubjectLocks();
+
+    /**
+     * Taken for read by every change of the state and for write by operations that need
+     * the whole state to stay still (checkpoint, restore). Readers don't take it.
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock(true);
+
+    /**
+     * Offsets (by partition) of the next records to consume, changed under the read lock
+     * of {@link #stateLock} together with the state they correspond to.
+     */
+    private final Map<Integer, Long> offsets = new ConcurrentHashMap<>();
+    private final AtomicLong consumedUpdateCount = new AtomicLong();
+
+    private Path checkpointPath;
+    private ScheduledExecutorService checkpointExecutor;
+    private long checkpointedUpdateCount;
+
+    private volatile boolean checkpointRejected;
+
+    private volatile long bootstrapTimeMs = -1;
 
     private final AtomicBoolean started = new AtomicBoolean(false);
 
@@ -75,15 +137,28 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
             return;
         }
 
+        long startTime = System.currentTimeMillis();
         try {
-            initAndStartMetadataCache();
+            boolean restored = restoreFromCheckpoint();
+            initAndStartMetadataCache(restored);
+            if (checkpointRejected && properties.getMetadataConsumerParallelism() > 1) {
+                // other consumer threads might have applied their records on top of the
+                // discarded state, so everything is consumed once again
+                LOGGER.info("Checkpoint rejected, restarting bootstrap from the beginning");
+                destroyMetadataCache();
+                discardRestoredState();
+                initAndStartMetadataCache(false);
+            }
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
+        bootstrapTimeMs = System.currentTimeMillis() - startTime;
 
         started.set(true);
 
-        LOGGER.info("Started");
+        startCheckpointing();
+
+        LOGGER.info("Started, bootstrap took {} ms", bootstrapTimeMs);
     }
 
     @Override
@@ -93,6 +168,9 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         }
 
         destroyMetadataCache();
+        stopCheckpointing();
+
+        started.set(false);
 
         LOGGER.info("Stopped");
     }
@@ -118,11 +196,19 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         callback.run();
     }
 
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder(BOOTSTRAP_TIME_METRIC_NAME, this, TimeUnit.MILLISECONDS, store -> store.bootstrapTimeMs).
+                description("Time taken to bootstrap the metadata store (including checkpoint restore)").
+                register(registry);
+    }
+
     @Override
     public MetadataValue get(MetadataKey key) {
         Validate.notNull(key, "Metadata key is null");
 
-        lock.readLock().lock();
+        Lock lock = subjectLock(key.getSubject()).readLock();
+        lock.lock();
         try {
             MetadataContainer container = storeCache.get(key.getSubject());
             if (container != null) {
@@ -130,7 +216,7 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
             }
             return null;
         } finally {
-            lock.readLock().unlock();
+            lock.unlock();
         }
     }
 
@@ -139,7 +225,8 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         Validate.notNull(subject, "Subject is null");
         Validate.isTrue(version >= 0, "Version is negative");
 
-        lock.readLock().lock();
+        Lock lock = subjectLock(subject).readLock();
+        lock.lock();
         try {
             MetadataContainer container = storeCache.get(subject);
             if (container != null) {
@@ -147,7 +234,7 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
             }
             return null;
         } finally {
-            lock.readLock().unlock();
+            lock.unlock();
         }
     }
 
@@ -156,24 +243,16 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         Validate.notNull(key, "Metadata key is null");
         Validate.notNull(key, "Metadata value is null");
 
-        lock.writeLock().lock();
-        try {
-            doCreateOrReplace(key, value);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        saveToKafka(key, value);
+        applyBatchUpdate(Collections.singletonMap(key, value));
     }
 
     @Override
     public void delete(MetadataKey key) {
         Validate.notNull(key, "Metadata key is null");
 
-        lock.writeLock().lock();
-        try {
-            doDelete(key);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        saveToKafka(key, null);
+        applyBatchUpdate(Collections.singletonMap(key, null));
     }
 
     @Override
@@ -181,12 +260,16 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         Validate.notNull(subject, "Subject is null");
         Validate.isTrue(version >= 0, "Version is negative");
 
-        lock.writeLock().lock();
-        try {
-            doDeleteAll(subject, version);
-        } finally {
-            lock.writeLock().unlock();
+        List<MetadataKey> relatedKeys = getVersionKeys(subject, version);
+        if (relatedKeys.isEmpty()) {
+            return;
         }
+
+        Map<MetadataKey, MetadataValue> batch = new HashMap<>(relatedKeys.size(), 1);
+        for (MetadataKey key : relatedKeys) {
+            batch.put(key, null);
+        }
+        executeBatchUpdate(batch);
     }
 
     @Override
@@ -197,12 +280,8 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
             return;
         }
 
-        lock.writeLock().lock();
-        try {
-            doExecuteBatchUpdate(batch);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        saveToKafka(batch);
+        applyBatchUpdate(batch);
     }
 
     @Override
@@ -220,16 +299,21 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
             return;
         }
 
-        lock.writeLock().lock();
+        // listener is invoked by the consumer thread once its records are decoded, so
+        // offsets decoded by the thread correspond to the update just passed
+        Map<Integer, Long> updateOffsets = metadataDecoder.drainConsumedOffsets();
+        Map<String, Map<MetadataKey, MetadataValue>> updateBySubject = groupBySubject(update);
+
+        stateLock.readLock().lock();
         try {
-            doExecuteBatchUpdate(update, false);
+            updateBySubject.forEach(this::doApplySubjectUpdate);
+            offsets.putAll(updateOffsets);
+            consumedUpdateCount.incrementAndGet();
         } finally {
-            lock.writeLock().unlock();
+            stateLock.readLock().unlock();
         }
 
-        fireUpdateListeners(update.keySet().stream()
-                .map(MetadataKey::getSubject)
-                .collect(Collectors.toSet()));
+        fireUpdateListeners(updateBySubject.keySet());
     }
 
     private void fireUpdateListeners(Set<String> subjects) {
@@ -250,119 +334,253 @@ public class KafkaMetadataStore implements MetadataStore, CacheListener<Metadata
         });
     }
 
-    private void doExecuteBatchUpdate(Map<MetadataKey, MetadataValue> batch) {
-        doExecuteBatchUpdate(batch, true);
+    private List<MetadataKey> getVersionKeys(String subject, int version) {
+        Map<MetadataKey, MetadataValue> collection = getCollection(subject, version);
+        if (collection == null) {
+            return Collections.emptyList();
+        }
+
+        return collection.keySet().stream()
+                .filter(key -> key.getSubject().equals(subject) && key.getVersion() == version)
+                .collect(Collectors.toList());
     }
 
-    private void doExecuteBatchUpdate(
-            Map<MetadataKey, MetadataValue> batch,
-            boolean saveToKafka) {
-        if (saveToKafka) {
-            saveToKafka(batch);
+    private void applyBatchUpdate(Map<MetadataKey, MetadataValue> batch) {
+        Map<String, Map<MetadataKey, MetadataValue>> batchBySubject = groupBySubject(batch);
+
+        stateLock.readLock().lock();
+        try {
+            batchBySubject.forEach(this::doApplySubjectUpdate);
+        } finally {
+            stateLock.readLock().unlock();
         }
+    }
 
-        for (Map.Entry<MetadataKey, MetadataValue> entry : batch.entrySet()) {
-            MetadataKey key = entry.getKey();
-            MetadataValue value = entry.getValue();
-            if (value != null) {
-                doCreateOrReplace(key, value, false);
-            } else {
-                doDelete(key, false);
+    private void doApplySubjectUpdate(String subject, Map<MetadataKey, MetadataValue> update) {
+        Lock lock = subjectLock(subject).writeLock();
+        lock.lock();
+        try {
+            for (Map.Entry<MetadataKey, MetadataValue> entry : update.entrySet()) {
+                MetadataKey key = entry.getKey();
+                MetadataValue value = entry.getValue();
+                if (value != null) {
+                    doCreateOrReplace(key, value);
+                } else {
+                    doDelete(key);
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     private void doCreateOrReplace(MetadataKey key, MetadataValue value) {
-        doCreateOrReplace(key, value, true);
+        storeCache.computeIfAbsent(key.getSubject(), containerFactory::create).put(key, value);
     }
 
-    private void doCreateOrReplace(
-            MetadataKey key,
-            MetadataValue value,
-            boolean saveToKafka) {
-        if (saveToKafka) {
-            saveToKafka(key, value);
-        }
-
+    private void doDelete(MetadataKey key) {
         MetadataContainer container = storeCache.get(key.getSubject());
         if (container != null) {
-            container.put(key, value);
-        } else {
-            container = containerFactory.create(key.getSubject());
-            container.put(key, value);
-            storeCache.put(key.getSubject(), container);
+            MetadataValue oldValue = container.remove(key);
+            if (oldValue != null && container.isEmpty()) {
+                storeCache.remove(key.getSubject());
+            }
         }
     }
 
-    private void doDelete(MetadataKey key) {
-        doDelete(key, true);
+    private ReadWriteLock subjectLock(String subject) {
+        return subjectLocks[(subject.hashCode() & Integer.MAX_VALUE) % subjectLocks.length];
     }
 
-    private void doDelete(MetadataKey key, boolean saveToKafka) {
-        if (saveToKafka) {
-            saveToKafka(key, null);
-        }
+    private static Map<String, Map<MetadataKey, MetadataValue>> groupBySubject(
+            Map<MetadataKey, MetadataValue> batch) {
+        Map<String, Map<MetadataKey, MetadataValue>> batchBySubject = new HashMap<>();
+        batch.forEach((key, value) ->
+                batchBySubject.computeIfAbsent(key.getSubject(), subject -> new HashMap<>()).put(key, value));
+        return batchBySubject;
+    }
 
-        MetadataContainer container = storeCache.get(key.getSubject());
-        if (container != null) {
-            MetadataValue oldValue = container.get(key);
-            if (oldValue != null) {
-                container.remove(key);
-                if (container.isEmpty()) {
-                    storeCache.remove(key.getSubject());
-                }
-            }
+    private static ReadWriteLock[] createSubjectLocks() {
+        ReadWriteLock[] locks = new ReadWriteLock[SUBJECT_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
         }
+        return locks;
     }
 
-    public void doDeleteAll(String subject, int version) {
-        MetadataContainer metadataContainer = storeCache.get(subject);
-        if (metadataContainer == null) {
+    private void saveToKafka(MetadataKey key, MetadataValue value) {
+        metadataCache.put(key, value);
+    }
+
+    private void saveToKafka(Map<MetadataKey, MetadataValue> batch) {
+        if (batch.isEmpty()) {
             return;
         }
-        Map<MetadataKey, MetadataValue> collection = metadataContainer.getCollection(version);
-        if (collection == null) {
-            return;
+
+        metadataCache.putAll(batch);
+    }
+
+    private boolean restoreFromCheckpoint() {
+        if (StringUtils.isBlank(properties.getCheckpointDirectory())) {
+            return false;
         }
 
-        List<MetadataKey> relatedKeys = collection.keySet().stream()
-                .filter(key -> key.getSubject().equals(subject) && key.getVersion() == version)
-                .collect(Collectors.toList());
-        if (relatedKeys.isEmpty()) {
-            return;
+        checkpointPath = Paths.get(properties.getCheckpointDirectory(), CHECKPOINT_FILE_NAME);
+        if (!Files.exists(checkpointPath)) {
+            LOGGER.info("Checkpoint {} doesn't exist, full bootstrap required", checkpointPath);
+            return false;
         }
 
-        Map<MetadataKey, MetadataValue> batch = new HashMap<>(relatedKeys.size(), 1);
-        for (MetadataKey key : relatedKeys) {
-            batch.put(key, null);
+        long startTime = System.currentTimeMillis();
+        Set<String> subjects;
+        stateLock.writeLock().lock();
+        try {
+            offsets.putAll(
+                    MetadataCheckpoint.read(
+                            checkpointPath,
+                            getCheckpointSource(),
+                            (key, value) -> doApplySubjectUpdate(
+                                    key.getSubject(),
+                                    Collections.singletonMap(key, value))));
+            subjects = new HashSet<>(storeCache.keySet());
+        } catch (Exception ex) {
+            storeCache.clear();
+            offsets.clear();
+            LOGGER.warn(
+                    String.format(
+                            "Failed to restore from checkpoint %s, full bootstrap required",
+                            checkpointPath),
+                    ex);
+            return false;
+        } finally {
+            stateLock.writeLock().unlock();
         }
-        doExecuteBatchUpdate(batch);
+
+        LOGGER.info(
+                "Restored {} subjects from checkpoint {} in {} ms, offsets = {}",
+                subjects.size(),
+                checkpointPath,
+                System.currentTimeMillis() - startTime,
+                offsets);
+
+        fireUpdateListeners(subjects);
+
+        return true;
     }
 
-    private void saveToKafka(MetadataKey key, MetadataValue value) {
-        metadataCache.put(key, value);
+    /**
+     * Called when the restored checkpoint doesn't fit the topic, so the state is rebuilt
+     * from the beginning.
+     */
+    private void onCheckpointRejected() {
+        checkpointRejected = true;
+        discardRestoredState();
     }
 
-    private void saveToKafka(Map<MetadataKey, MetadataValue> batch) {
-        if (batch.isEmpty()) {
+    private void discardRestoredState() {
+        Set<String> subjects;
+        stateLock.writeLock().lock();
+        try {
+            subjects = new HashSet<>(storeCache.keySet());
+            storeCache.clear();
+            offsets.clear();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+
+        fireUpdateListeners(subjects);
+    }
+
+    private void startCheckpointing() {
+        if (checkpointPath == null) {
             return;
         }
 
-        metadataCache.putAll(batch);
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metadata-store-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(
+                this::checkpoint,
+                properties.getCheckpointIntervalMs(),
+                properties.getCheckpointIntervalMs(),
+                TimeUnit.MILLISECONDS);
     }
 
-    private void initAndStartMetadataCache() throws Exception  {
+    private void stopCheckpointing() {
+        if (checkpointExecutor == null) {
+            return;
+        }
+
+        checkpointExecutor.shutdownNow();
+        checkpoint();
+    }
+
+    /**
+     * Copies the state and offsets under the write lock of {@link #stateLock}, so they stay
+     * consistent, and writes the copy after the lock is released. Updates wait only for
+     * the copy, not for the file to be written.
+     */
+    private synchronized void checkpoint() {
+        long startTime = System.currentTimeMillis();
+        long updateCount;
+        Map<Integer, Long> checkpointOffsets;
+        Map<String, Map<MetadataKey, MetadataValue>> checkpointEntries = new HashMap<>();
+        stateLock.writeLock().lock();
+        try {
+            updateCount = consumedUpdateCount.get();
+            if (updateCount == checkpointedUpdateCount || offsets.isEmpty()) {
+                return;
+            }
+
+            checkpointOffsets = new HashMap<>(offsets);
+            storeCache.forEach((subject, container) -> checkpointEntries.put(subject, container.getAll()));
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+
+        try {
+            MetadataCheckpoint.write(
+                    checkpointPath,
+                    getCheckpointSource(),
+                    checkpointOffsets,
+                    checkpointEntries);
+            checkpointedUpdateCount = updateCount;
+        } catch (IOException ioe) {
+            LOGGER.error(String.format("Failed to write checkpoint %s", checkpointPath), ioe);
+            return;
+        }
+
+        LOGGER.debug(
+                "Checkpoint {} written in {} ms, offsets = {}",
+                checkpointPath,
+                System.currentTimeMillis() - startTime,
+                checkpointOffsets);
+    }
+
+    private String getCheckpointSource() {
+        return properties.getBootstrapServers() + "/" + TOPIC_NAME;
+    }
+
+    private void initAndStartMetadataCache(boolean restored) throws Exception  {
+        Validate.isTrue(
+                properties.getMetadataConsumerParallelism() > 0,
+                "Metadata consumer parallelism is invalid");
+
         metadataCache = KafkaCache.<MetadataKey, MetadataValue>builder()
                 .bootstrapServers(properties.getBootstrapServers())
                 .topicName(TOPIC_NAME)
                 .bootstrapTimeoutInMs(properties.getBootstrapTimeoutInMs())
-                .consumerConfigBuilder(
-                        ConsumerConfigBuilder.with(properties.getClientConfig()).
-                            keyDeserializer(JsonDeserializer.class).
-                            property(JsonDeserializer.KEY_TYPE, MetadataKey.class).
-                            valueDeserializer(JsonDeserializer.class).
-                            property(JsonDeserializer.VALUE_TYPE, MetadataValue.class))
-                .consumerParallelism(1)
+                .consumerConfig(properties.getClientConfig())
+                .keyValueDecoder(metadataDecoder)
+                .offsetInitializer(restored ?
+                        new CheckpointOffsetInitializer(
+                                offsets,
+                                BeginningOffsetInitializer.INSTANCE,
+                                this::onCheckpointRejected) :
+                        BeginningOffsetInitializer.INSTANCE)
+                .consumerParallelism(properties.getMetadataConsumerParallelism())
                 .readOnly(false)
                 .listener(this)
                 .storeData(false)
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.metadata.kafka;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.epam.eco.schemacatalog.domain.metadata.FieldMetadataKey;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataType;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
+import com.epam.eco.schemacatalog.domain.metadata.SchemaMetadataKey;
+
+/**
+ * Reads and writes the {@code __schemas_metadata} projection to a local binary file, so
+ * the store can be restored on restart and consume only the records appended since.
+ * <p>
+ * The file consists of a fixed-size header (magic, format version, payload length and
+ * CRC32 of the payload) and the payload: the source (bootstrap servers and topic), the
+ * offsets the checkpoint reflects and the entries grouped by subject. Only the entries
+ * put into containers are written, inherited ones are derived again on restore.
+ * <p>
+ * The file is read through a read-only memory mapping, so it is limited to 2GB.
+ *
+ * @author Andrei_Tytsik
+ */
+final class MetadataCheckpoint {
+
+    private static final int MAGIC = 0x45534d31;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES_TYPE =
+            new TypeReference<Map<String, Object>>() {};
+
+    private MetadataCheckpoint() {
+    }
+
+    /**
+     * Writes the entries (by subject) to a temp file and atomically moves it to the given
+     * path, so an interrupted write never damages the previous checkpoint.
+     */
+    static void write(
+            Path path,
+            String source,
+            Map<Integer, Long> offsets,
+            Map<String, Map<MetadataKey, MetadataValue>> entries) throws IOException {
+        Validate.notNull(path, "Path is null");
+        Validate.notBlank(source, "Source is blank");
+        Validate.notNull(offsets, "Map of offsets is null");
+        Validate.notNull(entries, "Map of entries is null");
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmpPath = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(HEADER_SIZE)); // placeholder
+
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(
+                                new CheckedOutputStream(Channels.newOutputStream(channel), crc),
+                                64 * 1024));
+                writePayload(out, source, offsets, entries);
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC);
+                header.putInt(FORMAT_VERSION);
+                header.putLong(channel.position() - HEADER_SIZE);
+                header.putLong(crc.getValue());
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(
+                    tmpPath,
+                    path,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    /**
+     * Verifies the checkpoint and passes its entries to the given consumer.
+     *
+     * @return offsets (by partition) of the next records to consume
+     */
+    static Map<Integer, Long> read(
+            Path path,
+            String source,
+            BiConsumer<MetadataKey, MetadataValue> consumer) throws IOException {
+        Validate.notNull(path, "Path is null");
+        Validate.notBlank(source, "Source is blank");
+        Validate.notNull(consumer, "Consumer is null");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Checkpoint size %d is invalid", size));
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(String.format("File %s is not a checkpoint", path));
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(
+                        String.format("Unsupported checkpoint format version %d", formatVersion));
+            }
+            long length = buffer.getLong();
+            if (length != size - HEADER_SIZE) {
+                throw new IOException(
+                        String.format(
+                                "Checkpoint payload length %d doesn't match file size %d", length, size));
+            }
+            long checksum = buffer.getLong();
+
+            ByteBuffer payload = buffer.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("Checkpoint checksum mismatch");
+            }
+
+            return readPayload(payload, source, consumer);
+        } catch (BufferUnderflowException | IllegalArgumentException | NullPointerException ex) {
+            throw new IOException("Checkpoint payload is malformed", ex);
+        }
+    }
+
+    private static void writePayload(
+            DataOutputStream out,
+            String source,
+            Map<Integer, Long> offsets,
+            Map<String, Map<MetadataKey, MetadataValue>> entries) throws IOException {
+        writeString(out, source);
+
+        out.writeInt(offsets.size());
+        for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Map<MetadataKey, MetadataValue>> subjectEntries : entries.entrySet()) {
+            writeString(out, subjectEntries.getKey());
+            out.writeInt(subjectEntries.getValue().size());
+            for (Map.Entry<MetadataKey, MetadataValue> entry : subjectEntries.getValue().entrySet()) {
+                writeKey(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Map<Integer, Long> readPayload(
+            ByteBuffer in,
+            String source,
+            BiConsumer<MetadataKey, MetadataValue> consumer) throws IOException {
+        String checkpointSource = readString(in);
+        if (!Objects.equals(checkpointSource, source)) {
+            throw new IOException(
+                    String.format(
+                            "Checkpoint source '%s' doesn't match '%s'", checkpointSource, source));
+        }
+
+        int offsetCount = readCount(in);
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (int i = 0; i < offsetCount; i++) {
+            offsets.put(in.getInt(), in.getLong());
+        }
+
+        int subjectCount = readCount(in);
+        for (int i = 0; i < subjectCount; i++) {
+            String subject = readString(in);
+            int entryCount = readCount(in);
+            for (int j = 0; j < entryCount; j++) {
+                consumer.accept(readKey(in, subject), readValue(in));
+            }
+        }
+
+        if (in.hasRemaining()) {
+            throw new IOException("Checkpoint payload has trailing bytes");
+        }
+
+        return offsets;
+    }
+
+    private static void writeKey(DataOutputStream out, MetadataKey key) throws IOException {
+        out.writeByte(key.getType().ordinal());
+        out.writeInt(key.getVersion());
+        if (key.getType() == MetadataType.FIELD) {
+            FieldMetadataKey fieldKey = (FieldMetadataKey) key;
+            writeString(out, fieldKey.getSchemaFullName());
+            writeString(out, fieldKey.getField());
+        }
+    }
+
+    private static MetadataKey readKey(ByteBuffer in, String subject) throws IOException {
+        int typeOrdinal = in.get();
+        if (typeOrdinal < 0 || typeOrdinal >= MetadataType.values().length) {
+            throw new IOException(String.format("Checkpoint key type %d is invalid", typeOrdinal));
+        }
+        MetadataType type = MetadataType.values()[typeOrdinal];
+        int version = in.getInt();
+        if (type == MetadataType.FIELD) {
+            return FieldMetadataKey.with(subject, version, readString(in), readString(in));
+        } else {
+            return SchemaMetadataKey.with(subject, version);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, MetadataValue value) throws IOException {
+        writeString(out, value.getDoc());
+        writeBytes(
+                out,
+                !value.getAttributes().isEmpty() ? MAPPER.writeValueAsBytes(value.getAttributes()) : null);
+        Date updatedAt = value.getUpdatedAt();
+        out.writeBoolean(updatedAt != null);
+        if (updatedAt != null) {
+            out.writeLong(updatedAt.getTime());
+        }
+        writeString(out, value.getUpdatedBy());
+    }
+
+    private static MetadataValue readValue(ByteBuffer in) throws IOException {
+        String doc = readString(in);
+        byte[] attributesBytes = readBytes(in);
+        Map<String, Object> attributes =
+                attributesBytes != null ? MAPPER.readValue(attributesBytes, ATTRIBUTES_TYPE) : null;
+        Date updatedAt = in.get() != 0 ? new Date(in.getLong()) : null;
+        String updatedBy = readString(in);
+        return new MetadataValue(doc, attributes, updatedAt, updatedBy);
+    }
+
+    private static int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count < 0) {
+            throw new IOException(String.format("Checkpoint count %d is invalid", count));
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException(String.format("Checkpoint byte array length %d is invalid", length));
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.metadata.kafka;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.epam.eco.commons.kafka.serde.KeyValueDecoder;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
+
+/**
+ * Decodes JSON records of {@code __schemas_metadata} and keeps track of the offsets
+ * decoded so far, so the store knows which records its state reflects.
+ * <p>
+ * Offsets are tracked per consumer thread: each thread consumes its own partitions and
+ * passes decoded records to the store on its own, so the store takes only the offsets
+ * of the records it has just been given.
+ *
+ * @author Andrei_Tytsik
+ */
+public class MetadataDecoder implements KeyValueDecoder<MetadataKey, MetadataValue> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static {
+        MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    private final ThreadLocal<Map<Integer, Long>> consumedOffsets = ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public MetadataKey decodeKey(byte[] keyBytes) {
+        if (keyBytes == null) {
+            return null;
+        }
+
+        try {
+            return MAPPER.readValue(keyBytes, MetadataKey.class);
+        } catch (IOException ioe) {
+            throw new SerializationException("Failed to deserialize metadata key", ioe);
+        }
+    }
+
+    @Override
+    public MetadataValue decodeValue(MetadataKey key, byte[] valueBytes) {
+        if (valueBytes == null) {
+            return null;
+        }
+
+        try {
+            return MAPPER.readValue(valueBytes, MetadataValue.class);
+        } catch (IOException ioe) {
+            throw new SerializationException(
+                    String.format("Failed to deserialize metadata value, key = %s", key), ioe);
+        }
+    }
+
+    @Override
+    public MetadataValue decodeRecord(ConsumerRecord<byte[], byte[]> consumerRecord) {
+        MetadataValue value = decodeValue(decodeKey(consumerRecord.key()), consumerRecord.value());
+        consumedOffsets.get().put(consumerRecord.partition(), consumerRecord.offset() + 1);
+        return value;
+    }
+
+    /**
+     * Returns offsets (by partition) of the next records to decode by the current thread
+     * and forgets them, so each offset is taken once.
+     */
+    public Map<Integer, Long> drainConsumedOffsets() {
+        Map<Integer, Long> offsets = consumedOffsets.get();
+        if (offsets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Integer, Long> drained = new HashMap<>(offsets);
+        offsets.clear();
+        return drained;
+    }
+
+}
@@ -15,27 +15,33 @@
  */
 package com.epam.eco.schemacatalog.store.schema.kafka;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.avro.Schema;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
-import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +61,7 @@ import com.epam.eco.schemacatalog.domain.exception.NotFoundException;
 import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
 import com.epam.eco.schemacatalog.domain.schema.Mode;
 import com.epam.eco.schemacatalog.domain.schema.SubjectAndVersion;
+import com.epam.eco.schemacatalog.store.common.kafka.CheckpointOffsetInitializer;
 import com.epam.eco.schemacatalog.store.common.kafka.KafkaStoreProperties;
 import com.epam.eco.schemacatalog.store.schema.SchemaEntity;
 import com.epam.eco.schemacatalog.store.schema.SchemaRegistryStore;
@@ -72,9 +79,7 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaSchemaRegistryStore.class);
 
     private static final String TOPIC = "_schemas";
-
-    private static final NavigableMap<?, ?> EMPTY_MAP =
-            Collections.unmodifiableNavigableMap(new TreeMap<>());
+    private static final String CHECKPOINT_FILE_NAME = TOPIC + ".checkpoint";
 
     @Autowired
     private KafkaStoreProperties properties;
@@ -89,11 +94,25 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
     private KafkaCache<Key, Value> schemaRegistryCache;
 
-    private final Map<String, ConfigValue> configCache = new HashMap<>();
-    private final Map<String, ModeValue> modeCache = new HashMap<>();
-    private final Map<String, NavigableMap<Integer, SchemaValue>> schemaCache = new HashMap<>();
-    private final Map<String, DeleteSubjectValue> deleteSubjectCache = new HashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private final SchemaRegistryDecoder schemaRegistryDecoder = new SchemaRegistryDecoder();
+
+    private Path checkpointPath;
+    private ScheduledExecutorService checkpointExecutor;
+    private volatile SchemaRegistrySnapshot lastCheckpointedSnapshot;
+
+    /**
+     * Readers never lock, they just take the latest published snapshot. Writers are
+     * serialized by {@link #updateLock}, build the next snapshot and publish it at once.
+     */
+    private volatile SchemaRegistrySnapshot snapshot = SchemaRegistrySnapshot.EMPTY;
+    private final Lock updateLock = new ReentrantLock();
+
+    /**
+     * Semaphore signals raised while the next snapshot is being built. Guarded by
+     * {@link #updateLock} and fired only once the snapshot is published, so a woken
+     * writer always reads its own update.
+     */
+    private final List<Runnable> pendingSignals = new ArrayList<>();
 
     private final ResourceSemaphores<String, SubjectOperation> subjectSemaphores =
             new ResourceSemaphores<>();
@@ -110,14 +129,21 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         }
 
         try {
+            boolean restored = restoreFromCheckpoint();
             readAndSetGlobalConfig();
             readGlobalMode();
-            initAndStartSchemaRegistryCache();
+            if (restored) {
+                fireListenersForRestored();
+            }
+            initAndStartSchemaRegistryCache(restored);
             setGlobalConfigCompatibility();
+            startCheckpointing();
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
 
+        started.set(true);
+
         LOGGER.info("Started");
     }
 
@@ -128,6 +154,9 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         }
 
         destroySchemaRegistryCache();
+        stopCheckpointing();
+
+        started.set(false);
 
         LOGGER.info("Stopped");
     }
@@ -162,19 +191,21 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
             throw new RuntimeException("Global compatibility level is null");
         }
 
-        configCache.put(
+        updateSnapshot(builder -> builder.configs().put(
                 null,
-                new ConfigValue(globalCompatibilityLevel, true));
+                new ConfigValue(globalCompatibilityLevel, true)));
     }
 
     // It is needed in case of global compatibility level will be changed directly
     // from topic _schemas, in that case this level will have globalCompatibilityLevel false
     // that wrong, thus we should change it to true
     private void setGlobalConfigCompatibility() {
-        CompatibilityLevel compatibilityLevel = configCache.get(null).getCompatibilityLevel();
-        configCache.put(
-                null,
-                new ConfigValue(compatibilityLevel, true));
+        updateSnapshot(builder -> {
+            CompatibilityLevel compatibilityLevel = builder.configs().get(null).getCompatibilityLevel();
+            builder.configs().put(
+                    null,
+                    new ConfigValue(compatibilityLevel, true));
+        });
     }
 
     private void readGlobalMode() {
@@ -186,21 +217,146 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
             throw new RuntimeException("Global mode is null");
         }
 
-        modeCache.put(
+        updateSnapshot(builder -> builder.modes().put(
                 null,
-                new ModeValue(globalMode));
+                new ModeValue(globalMode)));
+    }
+
+    private boolean restoreFromCheckpoint() {
+        if (StringUtils.isBlank(properties.getCheckpointDirectory())) {
+            return false;
+        }
+
+        checkpointPath = Paths.get(properties.getCheckpointDirectory(), CHECKPOINT_FILE_NAME);
+        if (!Files.exists(checkpointPath)) {
+            LOGGER.info("Checkpoint {} doesn't exist, full bootstrap required", checkpointPath);
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        SchemaRegistrySnapshot restored;
+        try {
+            restored = SchemaRegistryCheckpoint.read(checkpointPath, getCheckpointSource());
+        } catch (Exception ex) {
+            LOGGER.warn(
+                    String.format(
+                            "Failed to restore from checkpoint %s, full bootstrap required",
+                            checkpointPath),
+                    ex);
+            return false;
+        }
+
+        updateLock.lock();
+        try {
+            snapshot = restored;
+        } finally {
+            updateLock.unlock();
+        }
+        lastCheckpointedSnapshot = restored;
+
+        LOGGER.info(
+                "Restored {} subjects from checkpoint {} in {} ms, offsets = {}",
+                restored.getSchemas().size(),
+                checkpointPath,
+                System.currentTimeMillis() - startTime,
+                restored.getOffsets());
+
+        return true;
     }
 
-    private void initAndStartSchemaRegistryCache() throws Exception {
+    private void fireListenersForRestored() {
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        fireListenersFor(snapshot, collectSubjectAndVersions(snapshot));
+    }
+
+    /**
+     * Called when the restored checkpoint doesn't fit the topic. Everything but global
+     * config and mode is dropped, so the state is rebuilt from the beginning.
+     */
+    private void discardRestoredState() {
+        SchemaRegistrySnapshot discarded;
+        updateLock.lock();
+        try {
+            discarded = snapshot;
+            SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+            builder.configs().put(null, discarded.getConfigs().get(null));
+            builder.modes().put(null, discarded.getModes().get(null));
+            snapshot = builder.build();
+        } finally {
+            updateLock.unlock();
+        }
+
+        fireListenersForDeleted(collectSubjectAndVersions(discarded));
+    }
+
+    private void startCheckpointing() {
+        if (checkpointPath == null) {
+            return;
+        }
+
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-registry-store-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(
+                this::checkpoint,
+                properties.getCheckpointIntervalMs(),
+                properties.getCheckpointIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void stopCheckpointing() {
+        if (checkpointExecutor == null) {
+            return;
+        }
+
+        checkpointExecutor.shutdownNow();
+        checkpoint();
+    }
+
+    private synchronized void checkpoint() {
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        if (snapshot == lastCheckpointedSnapshot || snapshot.getOffsets().isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            SchemaRegistryCheckpoint.write(checkpointPath, getCheckpointSource(), snapshot);
+            lastCheckpointedSnapshot = snapshot;
+            LOGGER.debug(
+                    "Checkpoint {} written in {} ms, offsets = {}",
+                    checkpointPath,
+                    System.currentTimeMillis() - startTime,
+                    snapshot.getOffsets());
+        } catch (IOException ioe) {
+            LOGGER.error(String.format("Failed to write checkpoint %s", checkpointPath), ioe);
+        }
+    }
+
+    private String getCheckpointSource() {
+        return properties.getBootstrapServers() + "/" + TOPIC;
+    }
+
+    private void initAndStartSchemaRegistryCache(boolean restored) throws Exception {
+        OffsetInitializer offsetInitializer = properties.getBootstrapStartTimestampMs() != null ?
+                new TimestampOffsetInitializer(properties.getBootstrapStartTimestampMs()) :
+                BeginningOffsetInitializer.INSTANCE;
+        if (restored) {
+            offsetInitializer = new CheckpointOffsetInitializer(
+                    snapshot.getOffsets(),
+                    offsetInitializer,
+                    this::discardRestoredState);
+        }
+
         schemaRegistryCache = KafkaCache.<Key, Value>builder().
                 bootstrapServers(properties.getBootstrapServers()).
                 topicName(TOPIC).
                 bootstrapTimeoutInMs(properties.getBootstrapTimeoutInMs()).
                 consumerConfig(properties.getClientConfig()).
-                keyValueDecoder(new SchemaRegistryDecoder()).
-                offsetInitializer(properties.getBootstrapStartTimestampMs() != null ?
-                        new TimestampOffsetInitializer(properties.getBootstrapStartTimestampMs()) :
-                        BeginningOffsetInitializer.INSTANCE).
+                keyValueDecoder(schemaRegistryDecoder).
+                offsetInitializer(offsetInitializer).
                 readOnly(true).
                 storeData(false).
                 listener(this).
@@ -214,55 +370,38 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
     @Override
     public List<String> getAllSubjects() {
-        lock.readLock().lock();
-        try {
-            return new ArrayList<>(schemaCache.keySet());
-        } finally {
-            lock.readLock().unlock();
-        }
+        return new ArrayList<>(snapshot.getSchemas().keySet());
     }
 
     @Override
     public List<SchemaEntity> getAllSchemas() {
-        lock.readLock().lock();
-        try {
-            return schemaCache.values().stream().
-                    flatMap(schemas -> schemas.values().stream()).
-                    map(this::toSchemaEntity).
-                    collect(Collectors.toList());
-        } finally {
-            lock.readLock().unlock();
-        }
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        return snapshot.getSchemas().values().stream().
+                flatMap(schemas -> schemas.values().stream()).
+                map(schemaValue -> toSchemaEntity(snapshot, schemaValue)).
+                collect(Collectors.toList());
     }
 
     @Override
     public List<SchemaEntity> getSchemas(String subject) {
         Validate.notBlank(subject, "Subject is blank");
 
-        lock.readLock().lock();
-        try {
-            return getSubjectSchemasOrElseFail(subject).values().stream().
-                    map(this::toSchemaEntity).
-                    collect(Collectors.toList());
-        } finally {
-            lock.readLock().unlock();
-        }
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        return getSubjectSchemasOrElseFail(snapshot, subject).values().stream().
+                map(schemaValue -> toSchemaEntity(snapshot, schemaValue)).
+                collect(Collectors.toList());
     }
 
     @Override
     public List<SchemaEntity> getSchemas(Collection<String> subjects) {
         Validate.notNull(subjects, "Collection of subjects is null");
 
-        lock.readLock().lock();
-        try {
-            return subjects.stream().
-                    filter(schemaCache::containsKey).
-                    flatMap(subject -> getSubjectSchemasOrElseFail(subject).values().stream()).
-                    map(this::toSchemaEntity).
-                    collect(Collectors.toList());
-        } finally {
-            lock.readLock().unlock();
-        }
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        return subjects.stream().
+                filter(snapshot.getSchemas()::containsKey).
+                flatMap(subject -> getSubjectSchemasOrElseFail(snapshot, subject).values().stream()).
+                map(schemaValue -> toSchemaEntity(snapshot, schemaValue)).
+                collect(Collectors.toList());
     }
 
     @Override
@@ -276,32 +415,23 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
     public SchemaEntity getSchema(String subject, Integer version) {
         Validate.notBlank(subject, "Subject is blank");
 
-        lock.readLock().lock();
-        try {
-            NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseFail(subject);
-            version = version != null ? version : subjectSchemas.lastKey();
-            SchemaValue schemaValue = subjectSchemas.get(version);
-            if (schemaValue == null) {
-                throw new NotFoundException(
-                        String.format("Schema not found by subject=%s and version=%s", subject, version));
-            }
-
-            return toSchemaEntity(schemaValue);
-        } finally {
-            lock.readLock().unlock();
+        SchemaRegistrySnapshot snapshot = this.snapshot;
+        NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseFail(snapshot, subject);
+        version = version != null ? version : subjectSchemas.lastKey();
+        SchemaValue schemaValue = subjectSchemas.get(version);
+        if (schemaValue == null) {
+            throw new NotFoundException(
+                    String.format("Schema not found by subject=%s and version=%s", subject, version));
         }
+
+        return toSchemaEntity(snapshot, schemaValue);
     }
 
     @Override
     public CompatibilityLevel getSubjectCompatibility(String subject) {
         Validate.notBlank(subject, "Subject is blank");
 
-        lock.readLock().lock();
-        try {
-            return getEffectiveConfig(subject).getCompatibilityLevel();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getEffectiveConfig(snapshot, subject).getCompatibilityLevel();
     }
 
     @Override
@@ -316,25 +446,14 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         Validate.notBlank(subject, "Subject is blank");
         Validate.isTrue(version >= 0, "Version is invalid");
 
-        lock.readLock().lock();
-        try {
-            NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseEmpty(subject);
-            return subjectSchemas.containsKey(version);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getSubjectSchemasOrElseEmpty(subject).containsKey(version);
     }
 
     @Override
     public boolean subjectExists(String subject) {
         Validate.notBlank(subject, "Subject is blank");
 
-        lock.readLock().lock();
-        try {
-            return schemaCache.containsKey(subject);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getSchemas().containsKey(subject);
     }
 
     @Override
@@ -394,7 +513,8 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         int version;
         ResourceSemaphore<SubjectAndVersion, SchemaOperation> semaphore = null;
 
-        lock.readLock().lock();
+        // keep updates away until the semaphore is created, otherwise the signal might be missed
+        updateLock.lock();
         try {
             int schemaId = schemaRegistryClient.registerUnchecked(subject, schema);
             LOGGER.info("Registered avpo scheme subject {} with schemaId {}.", subject, schemaId);
@@ -405,7 +525,7 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
                         SchemaOperation.REGISTER);
             }
         } finally {
-            lock.readLock().unlock();
+            updateLock.unlock();
         }
 
         if (semaphore != null) {
@@ -465,27 +585,30 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
         Set<SubjectAndVersion> affected = new HashSet<>();
 
-        lock.writeLock().lock();
-        try {
+        SchemaRegistrySnapshot updated = updateSnapshot(builder -> {
+            // listener is invoked by the consumer thread once the records are decoded,
+            // so decoded offsets correspond to the update being applied
+            builder.offsets(schemaRegistryDecoder.getConsumedOffsets());
             update.forEach((key, value) -> {
                 try {
                     if (key.getKeytype() == KeyType.CONFIG) {
                         affected.addAll(
                                 applyConfigUpdateAndGetAffected(
-                                        (ConfigKey) key, (ConfigValue) value));
+                                        builder, (ConfigKey) key, (ConfigValue) value));
                     } else if (key.getKeytype() == KeyType.SCHEMA) {
                         affected.addAll(
                                 applySchemaUpdateAndGetAffected(
-                                        (SchemaKey) key, (SchemaValue) value));
+                                        builder, (SchemaKey) key, (SchemaValue) value));
                     } else if (key.getKeytype() == KeyType.DELETE_SUBJECT) {
                         affected.addAll(
                                 applySubjectDeleteAndGetAffected(
+                                        builder,
                                         (DeleteSubjectKey) key,
                                         (DeleteSubjectValue) value));
                     } else if (key.getKeytype() == KeyType.MODE) {
                         affected.addAll(
                                 applyModeUpdateAndGetAffected(
-                                        (ModeKey) key, (ModeValue) value));
+                                        builder, (ModeKey) key, (ModeValue) value));
                     } else {
                         LOGGER.warn(
                                 "Ignoring unsupported 'schema registry update' record. Key = {}, value = {}",
@@ -499,14 +622,28 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
                             ex);
                 }
             });
+        });
+
+        fireListenersFor(updated, affected);
+    }
+
+    private SchemaRegistrySnapshot updateSnapshot(Consumer<SchemaRegistrySnapshot.Builder> updater) {
+        updateLock.lock();
+        try {
+            SchemaRegistrySnapshot.Builder builder = snapshot.toBuilder();
+            updater.accept(builder);
+            snapshot = builder.build();
+            pendingSignals.forEach(Runnable::run);
+            return snapshot;
         } finally {
-            lock.writeLock().unlock();
+            pendingSignals.clear();
+            updateLock.unlock();
         }
-
-        fireListenersFor(affected);
     }
 
-    private void fireListenersFor(Set<SubjectAndVersion> subjectAndVersions) {
+    private void fireListenersFor(
+            SchemaRegistrySnapshot snapshot,
+            Set<SubjectAndVersion> subjectAndVersions) {
         if (CollectionUtils.isEmpty(listeners) || CollectionUtils.isEmpty(subjectAndVersions)) {
             return;
         }
@@ -514,9 +651,9 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         List<SchemaEntity> updated = new ArrayList<>();
         List<SubjectAndVersion> deleted = new ArrayList<>();
         subjectAndVersions.forEach(sav -> {
-            SchemaValue schemaValue = getSubjectSchemasOrElseFail(sav.getSubject()).get(sav.getVersion());
+            SchemaValue schemaValue = getSubjectSchemasOrElseFail(snapshot, sav.getSubject()).get(sav.getVersion());
             if (schemaValue != null) {
-                updated.add(toSchemaEntity(schemaValue));
+                updated.add(toSchemaEntity(snapshot, schemaValue));
             } else {
                 deleted.add(sav);
             }
@@ -537,7 +674,34 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         });
     }
 
-    private Set<SubjectAndVersion> applyConfigUpdateAndGetAffected(ConfigKey key, ConfigValue value) {
+    private void fireListenersForDeleted(Set<SubjectAndVersion> subjectAndVersions) {
+        if (CollectionUtils.isEmpty(listeners) || CollectionUtils.isEmpty(subjectAndVersions)) {
+            return;
+        }
+
+        List<SubjectAndVersion> deleted = new ArrayList<>(subjectAndVersions);
+        listeners.forEach(listener -> {
+            try {
+                listener.onSchemasDeleted(deleted);
+            } catch (Exception ex) {
+                LOGGER.error("Failed to handle 'schemas deleted' event", ex);
+            }
+        });
+    }
+
+    private static Set<SubjectAndVersion> collectSubjectAndVersions(SchemaRegistrySnapshot snapshot) {
+        Set<SubjectAndVersion> subjectAndVersions = new HashSet<>();
+        snapshot.getSchemas().forEach((subject, schemas) ->
+                schemas.keySet().forEach(version ->
+                        subjectAndVersions.add(new SubjectAndVersion(subject, version))));
+        return subjectAndVersions;
+    }
+
+    private Set<SubjectAndVersion> applyConfigUpdateAndGetAffected(
+            SchemaRegistrySnapshot.Builder builder,
+            ConfigKey key,
+            ConfigValue value) {
+        Map<String, ConfigValue> configCache = builder.configs();
         ConfigValue oldValue;
         if (value != null) {
             oldValue = configCache.put(key.getSubject(), value);
@@ -551,9 +715,9 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
         Set<SubjectAndVersion> affected = new HashSet<>();
         if (key.getSubject() == null) { // global
-            for (String subject : schemaCache.keySet()) {
+            for (String subject : builder.subjects()) {
                 if (!configCache.containsKey(subject)) {
-                    NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseEmpty(subject);
+                    NavigableMap<Integer, SchemaValue> subjectSchemas = builder.getSubjectSchemasOrElseEmpty(subject);
                     affected.addAll(
                             subjectSchemas.keySet().stream().
                                     map(version -> new SubjectAndVersion(subject, version)).
@@ -562,7 +726,7 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
             }
         } else {
             NavigableMap<Integer, SchemaValue> subjectSchemas =
-                    getSubjectSchemasOrElseEmpty(key.getSubject());
+                    builder.getSubjectSchemasOrElseEmpty(key.getSubject());
             affected.addAll(
                     subjectSchemas.keySet().stream().
                             map(version -> new SubjectAndVersion(key.getSubject(), version)).
@@ -571,13 +735,18 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
         // subject UPDATE semaphore
         if (value != null && !Objects.equals(oldValue, value)) {
-            subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.UPDATE);
+            pendingSignals.add(
+                    () -> subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.UPDATE));
         }
 
         return affected;
     }
 
-    private Set<SubjectAndVersion> applyModeUpdateAndGetAffected(ModeKey key, ModeValue value) {
+    private Set<SubjectAndVersion> applyModeUpdateAndGetAffected(
+            SchemaRegistrySnapshot.Builder builder,
+            ModeKey key,
+            ModeValue value) {
+        Map<String, ModeValue> modeCache = builder.modes();
         ModeValue oldValue;
         if (value != null) {
             oldValue = modeCache.put(key.getSubject(), value);
@@ -591,9 +760,9 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
 
         Set<SubjectAndVersion> affected = new HashSet<>();
         if (key.getSubject() == null) { // global
-            for (String subject : schemaCache.keySet()) {
+            for (String subject : builder.subjects()) {
                 if (!modeCache.containsKey(subject)) {
-                    NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseEmpty(subject);
+                    NavigableMap<Integer, SchemaValue> subjectSchemas = builder.getSubjectSchemasOrElseEmpty(subject);
                     affected.addAll(
                             subjectSchemas.keySet().stream().
                                     map(version -> new SubjectAndVersion(subject, version)).
@@ -602,7 +771,7 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
             }
         } else {
             NavigableMap<Integer, SchemaValue> subjectSchemas =
-                    getSubjectSchemasOrElseEmpty(key.getSubject());
+                    builder.getSubjectSchemasOrElseEmpty(key.getSubject());
             affected.addAll(
                     subjectSchemas.keySet().stream().
                             map(version -> new SubjectAndVersion(key.getSubject(), version)).
@@ -612,19 +781,23 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         // subject UPDATE semaphore
         /* not needed unless we expose possibility to change mode
         if (value != null && !Objects.equals(oldValue, value)) {
-            subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.UPDATE);
+            pendingSignals.add(
+                    () -> subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.UPDATE));
         }
         */
 
         return affected;
     }
 
-    private Set<SubjectAndVersion> applySchemaUpdateAndGetAffected(SchemaKey key, SchemaValue value) {
-        NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseCreate(key.getSubject());
+    private Set<SubjectAndVersion> applySchemaUpdateAndGetAffected(
+            SchemaRegistrySnapshot.Builder builder,
+            SchemaKey key,
+            SchemaValue value) {
+        NavigableMap<Integer, SchemaValue> subjectSchemas = builder.getSubjectSchemasForUpdate(key.getSubject());
 
         SchemaValue oldValue = null;
         if (value != null) {
-            deleteSubjectCache.remove(key.getSubject());
+            builder.deleteSubjects().remove(key.getSubject());
             oldValue = subjectSchemas.put(key.getVersion(), value);
             if (oldValue != null && value.isDeleted() && value.getCreatedTimestamp() == null) {
                 value.setCreatedTimestamp(oldValue.getCreatedTimestamp());
@@ -651,55 +824,77 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         }
 
         if (oldValue == null) { // schema REGISTER semaphore
-            schemaSemaphores.signalDoneFor(subjectAndVersion, SchemaOperation.REGISTER);
+            pendingSignals.add(
+                    () -> schemaSemaphores.signalDoneFor(subjectAndVersion, SchemaOperation.REGISTER));
         } else if (value != null && value.isDeleted() && !oldValue.isDeleted()) { // schema DELETE semaphore
-            schemaSemaphores.signalDoneFor(subjectAndVersion, SchemaOperation.DELETE);
+            pendingSignals.add(
+                    () -> schemaSemaphores.signalDoneFor(subjectAndVersion, SchemaOperation.DELETE));
         }
 
         return affected;
     }
 
     private Set<SubjectAndVersion> applySubjectDeleteAndGetAffected(
+            SchemaRegistrySnapshot.Builder builder,
             DeleteSubjectKey key,
             DeleteSubjectValue value) {
-        DeleteSubjectValue oldValue = deleteSubjectCache.put(key.getSubject(), value);
+        DeleteSubjectValue oldValue = builder.deleteSubjects().put(key.getSubject(), value);
         if (Objects.equals(oldValue, value)) {
             return Collections.emptySet();
         }
 
-        Set<SubjectAndVersion> affected = populateSchemasDeleteIfNeededAndGetAffected(key.getSubject());
+        Set<SubjectAndVersion> affected = populateSchemasDeleteIfNeededAndGetAffected(builder, key.getSubject());
 
         // subject DELETE semaphore
         if (!affected.isEmpty()) {
-            subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.DELETE);
+            pendingSignals.add(
+                    () -> subjectSemaphores.signalDoneFor(key.getSubject(), SubjectOperation.DELETE));
         }
 
         return affected;
     }
 
-    private Set<SubjectAndVersion> populateSchemasDeleteIfNeededAndGetAffected(String subject) {
-        DeleteSubjectValue deleteSubject = deleteSubjectCache.get(subject);
+    private Set<SubjectAndVersion> populateSchemasDeleteIfNeededAndGetAffected(
+            SchemaRegistrySnapshot.Builder builder,
+            String subject) {
+        DeleteSubjectValue deleteSubject = builder.deleteSubjects().get(subject);
         if (deleteSubject == null) {
             return Collections.emptySet();
         }
 
-        Map<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseEmpty(subject);
-        if (subjectSchemas.isEmpty()) {
+        if (builder.getSubjectSchemasOrElseEmpty(subject).isEmpty()) {
             return Collections.emptySet();
         }
 
         Set<SubjectAndVersion> affected = new HashSet<>();
+        NavigableMap<Integer, SchemaValue> subjectSchemas = builder.getSubjectSchemasForUpdate(subject);
         for (SchemaValue schema : subjectSchemas.values()) {
             if (!schema.isDeleted() && schema.getCreatedTimestamp() < deleteSubject.getDeletedTimestamp()) {
-                schema.setDeleted(true);
-                schema.setDeletedTimestamp(deleteSubject.getDeletedTimestamp());
+                // values are shared with published snapshots, so never modify them in place
+                SchemaValue deleted = copyOf(schema);
+                deleted.setDeleted(true);
+                deleted.setDeletedTimestamp(deleteSubject.getDeletedTimestamp());
+                subjectSchemas.put(deleted.getVersion(), deleted);
                 affected.add(new SubjectAndVersion(subject, schema.getVersion(), deleteSubject.getDeletedTimestamp()));
             }
         }
         return affected;
     }
 
-    private ConfigValue getEffectiveConfig(String subject) {
+    private static SchemaValue copyOf(SchemaValue schema) {
+        SchemaValue copy = new SchemaValue();
+        copy.setSubject(schema.getSubject());
+        copy.setVersion(schema.getVersion());
+        copy.setId(schema.getId());
+        copy.setSchema(schema.getSchema());
+        copy.setDeleted(schema.isDeleted());
+        copy.setCreatedTimestamp(schema.getCreatedTimestamp());
+        copy.setDeletedTimestamp(schema.getDeletedTimestamp());
+        return copy;
+    }
+
+    private static ConfigValue getEffectiveConfig(SchemaRegistrySnapshot snapshot, String subject) {
+        Map<String, ConfigValue> configCache = snapshot.getConfigs();
         ConfigValue config = configCache.get(subject);
         if (config == null && subject != null) {
             config = configCache.get(null); // global
@@ -713,7 +908,8 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         return config;
     }
 
-    private ModeValue getEffectiveMode(String subject) {
+    private static ModeValue getEffectiveMode(SchemaRegistrySnapshot snapshot, String subject) {
+        Map<String, ModeValue> modeCache = snapshot.getModes();
         ModeValue mode = modeCache.get(subject);
         if (mode == null && subject != null) {
             mode = modeCache.get(null); // global
@@ -727,17 +923,10 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         return mode;
     }
 
-    @SuppressWarnings("unchecked")
-    private NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseEmpty(String subject) {
-        return schemaCache.getOrDefault(subject, (NavigableMap<Integer, SchemaValue>) EMPTY_MAP);
-    }
-
-    private NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseCreate(String subject) {
-        return schemaCache.computeIfAbsent(subject, k -> new TreeMap<>());
-    }
-
-    private NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseFail(String subject) {
-        NavigableMap<Integer, SchemaValue> schemas = schemaCache.get(subject);
+    private static NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseFail(
+            SchemaRegistrySnapshot snapshot,
+            String subject) {
+        NavigableMap<Integer, SchemaValue> schemas = snapshot.getSchemas().get(subject);
         if (schemas == null) {
             throw new NotFoundException(String.format("Subject '%s' does not exist", subject));
         }
@@ -745,11 +934,11 @@ public class KafkaSchemaRegistryStore implements SchemaRegistryStore, CacheListe
         return schemas;
     }
 
-    private SchemaEntity toSchemaEntity(SchemaValue schemaValue) {
-        ConfigValue configValue = getEffectiveConfig(schemaValue.getSubject());
-        ModeValue modeValue = getEffectiveMode(schemaValue.getSubject());
+    private static SchemaEntity toSchemaEntity(SchemaRegistrySnapshot snapshot, SchemaValue schemaValue) {
+        ConfigValue configValue = getEffectiveConfig(snapshot, schemaValue.getSubject());
+        ModeValue modeValue = getEffectiveMode(snapshot, schemaValue.getSubject());
         NavigableMap<Integer, SchemaValue> subjectSchemas = getSubjectSchemasOrElseFail(
-                schemaValue.getSubject());
+                snapshot, schemaValue.getSubject());
         SchemaEntity schemaEntity = new SchemaEntity();
         schemaEntity.setId(schemaValue.getId());
         schemaEntity.setSubject(schemaValue.getSubject());
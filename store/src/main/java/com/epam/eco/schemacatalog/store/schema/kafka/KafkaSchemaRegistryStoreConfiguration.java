@@ -15,16 +15,29 @@
  */
 package com.epam.eco.schemacatalog.store.schema.kafka;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
 import com.epam.eco.schemacatalog.client.CachedExtendedSchemaRegistryClient;
+import com.epam.eco.schemacatalog.client.EcoCachedSchemaRegistryClient;
 import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
+import com.epam.eco.schemacatalog.client.SchemaRegistryClientCacheConfig;
 import com.epam.eco.schemacatalog.store.autoconfigure.SchemaCatalogStoreProperties;
 import com.epam.eco.schemacatalog.store.common.kafka.KafkaStoreProperties;
 import com.epam.eco.schemacatalog.store.schema.SchemaRegistryStore;
+import com.epam.eco.schemacatalog.utils.ParsedSchemaPool;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * @author Andrei_Tytsik
@@ -43,7 +56,93 @@ public class KafkaSchemaRegistryStoreConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public ExtendedSchemaRegistryClient schemaRegistryClient() {
-        return new CachedExtendedSchemaRegistryClient(properties.getSchemaRegistryUrl());
+        return new CachedExtendedSchemaRegistryClient(
+                properties.getSchemaRegistryUrl(),
+                buildSchemaRegistryClientCacheConfig());
+    }
+
+    /**
+     * The store reads every schema of the registry, so the client caches are unbounded
+     * unless configured otherwise.
+     */
+    private SchemaRegistryClientCacheConfig buildSchemaRegistryClientCacheConfig() {
+        Long expireAfterWriteMs = properties.getSchemaRegistryClientCacheExpireAfterWriteMs();
+        return SchemaRegistryClientCacheConfig.builder().
+                maxSize(properties.getSchemaRegistryClientCacheMaxSize()).
+                maxSchemaWeight(properties.getSchemaRegistryClientCacheMaxSchemaWeight()).
+                expireAfterWrite(expireAfterWriteMs != null ? Duration.ofMillis(expireAfterWriteMs) : null).
+                build();
+    }
+
+    @Bean
+    public MeterBinder schemaRegistryClientMetrics(ExtendedSchemaRegistryClient schemaRegistryClient) {
+        return registry -> {
+            if (!(schemaRegistryClient instanceof EcoCachedSchemaRegistryClient)) {
+                return;
+            }
+
+            EcoCachedSchemaRegistryClient client = (EcoCachedSchemaRegistryClient) schemaRegistryClient;
+            Gauge.builder(
+                    "schemacatalog.client.requests.inflight",
+                    client,
+                    EcoCachedSchemaRegistryClient::getInFlightRequestCount).
+                    description("Requests to the Schema Registry currently in flight").
+                    register(registry);
+            FunctionCounter.builder(
+                    "schemacatalog.client.requests.coalesced",
+                    client,
+                    EcoCachedSchemaRegistryClient::getCoalescedRequestCount).
+                    description("Cache misses served by a request already in flight").
+                    register(registry);
+            client.getCacheNames().forEach(cacheName -> bindCacheMetrics(registry, client, cacheName));
+        };
+    }
+
+    @Bean
+    public MeterBinder parsedSchemaPoolMetrics() {
+        return registry -> {
+            ParsedSchemaPool pool = ParsedSchemaPool.getDefault();
+            Tags tags = Tags.of("cache", "parsedSchemaPool");
+            FunctionCounter.builder("cache.gets", pool, ParsedSchemaPool::getHitCount).
+                    tags(tags).tag("result", "hit").
+                    description("The number of times cache lookup methods have returned a cached value").
+                    register(registry);
+            FunctionCounter.builder("cache.gets", pool, ParsedSchemaPool::getMissCount).
+                    tags(tags).tag("result", "miss").
+                    description("The number of times cache lookup methods have returned an uncached value").
+                    register(registry);
+            Gauge.builder("cache.size", pool, ParsedSchemaPool::size).
+                    tags(tags).
+                    description("The number of entries in this cache").
+                    register(registry);
+        };
+    }
+
+    private static void bindCacheMetrics(
+            MeterRegistry registry,
+            EcoCachedSchemaRegistryClient client,
+            String cacheName) {
+        Tags tags = Tags.of("cache", "schemaRegistryClient." + cacheName);
+        FunctionCounter.builder("cache.gets", client, c -> c.getCacheStats(cacheName).hitCount()).
+                tags(tags).tag("result", "hit").
+                description("The number of times cache lookup methods have returned a cached value").
+                register(registry);
+        FunctionCounter.builder("cache.gets", client, c -> c.getCacheStats(cacheName).missCount()).
+                tags(tags).tag("result", "miss").
+                description("The number of times cache lookup methods have returned an uncached value").
+                register(registry);
+        FunctionCounter.builder("cache.evictions", client, c -> c.getCacheStats(cacheName).evictionCount()).
+                tags(tags).
+                description("Cache evictions").
+                register(registry);
+        TimeGauge.builder(
+                "cache.load.duration",
+                client,
+                TimeUnit.NANOSECONDS,
+                c -> c.getCacheStats(cacheName).totalLoadTime()).
+                tags(tags).
+                description("The time the cache has spent loading new values").
+                register(registry);
     }
 
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.schema.kafka;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang3.Validate;
+
+import com.epam.eco.schemacatalog.domain.schema.Mode;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+
+/**
+ * Reads and writes {@link SchemaRegistrySnapshot} to a local binary file, so the store
+ * can be restored on restart and consume only the tail of {@code _schemas}.
+ * <p>
+ * The file consists of a header (magic, format version, payload length and CRC32 of the
+ * payload) and the payload itself. The payload starts with the source the snapshot was
+ * built from (bootstrap servers and topic), so checkpoints of another cluster are never
+ * restored. Any mismatch is reported as {@link IOException}.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SchemaRegistryCheckpoint {
+
+    private static final int MAGIC = 0x45534331;
+    private static final int FORMAT_VERSION = 1;
+
+    private SchemaRegistryCheckpoint() {
+    }
+
+    /**
+     * Writes the snapshot to a temp file and atomically moves it to the given path, so
+     * an interrupted write never damages the previous checkpoint.
+     */
+    static void write(Path path, String source, SchemaRegistrySnapshot snapshot) throws IOException {
+        Validate.notNull(path, "Path is null");
+        Validate.notBlank(source, "Source is blank");
+        Validate.notNull(snapshot, "Snapshot is null");
+
+        byte[] payload = serializePayload(source, snapshot);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmpPath = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream fileOut = Files.newOutputStream(tmpPath);
+                    DataOutputStream out = new DataOutputStream(fileOut)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(payload.length);
+                out.writeLong(crc.getValue());
+                out.write(payload);
+            }
+            Files.move(
+                    tmpPath,
+                    path,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    static SchemaRegistrySnapshot read(Path path, String source) throws IOException {
+        Validate.notNull(path, "Path is null");
+        Validate.notBlank(source, "Source is blank");
+
+        byte[] payload;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(String.format("File %s is not a checkpoint", path));
+            }
+            int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(
+                        String.format("Unsupported checkpoint format version %d", formatVersion));
+            }
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException(String.format("Checkpoint payload length %d is invalid", length));
+            }
+            long checksum = in.readLong();
+            payload = new byte[length];
+            in.readFully(payload);
+            if (in.read() != -1) {
+                throw new IOException("Checkpoint has trailing bytes");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+            if (crc.getValue() != checksum) {
+                throw new IOException("Checkpoint checksum mismatch");
+            }
+        }
+
+        return deserializePayload(payload, source);
+    }
+
+    private static byte[] serializePayload(
+            String source,
+            SchemaRegistrySnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, source);
+
+            out.writeInt(snapshot.getOffsets().size());
+            for (Map.Entry<Integer, Long> entry : snapshot.getOffsets().entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+
+            out.writeInt(snapshot.getConfigs().size());
+            for (Map.Entry<String, ConfigValue> entry : snapshot.getConfigs().entrySet()) {
+                writeString(out, entry.getKey());
+                writeEnum(out, entry.getValue().getCompatibilityLevel());
+                out.writeBoolean(entry.getValue().isGlobalCompatibilityLevel());
+            }
+
+            out.writeInt(snapshot.getModes().size());
+            for (Map.Entry<String, ModeValue> entry : snapshot.getModes().entrySet()) {
+                writeString(out, entry.getKey());
+                writeEnum(out, entry.getValue().getMode());
+            }
+
+            out.writeInt(snapshot.getSchemas().size());
+            for (Map.Entry<String, NavigableMap<Integer, SchemaValue>> entry : snapshot.getSchemas().entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (SchemaValue value : entry.getValue().values()) {
+                    writeSchemaValue(out, value);
+                }
+            }
+
+            out.writeInt(snapshot.getDeleteSubjects().size());
+            for (Map.Entry<String, DeleteSubjectValue> entry : snapshot.getDeleteSubjects().entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue().getSubject());
+                writeInteger(out, entry.getValue().getVersion());
+                writeLong(out, entry.getValue().getDeletedTimestamp());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SchemaRegistrySnapshot deserializePayload(
+            byte[] payload,
+            String source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String checkpointSource = readString(in);
+            if (!Objects.equals(checkpointSource, source)) {
+                throw new IOException(
+                        String.format(
+                                "Checkpoint source '%s' doesn't match '%s'", checkpointSource, source));
+            }
+
+            SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+
+            int offsetCount = readCount(in);
+            Map<Integer, Long> offsets = new HashMap<>();
+            for (int i = 0; i < offsetCount; i++) {
+                offsets.put(in.readInt(), in.readLong());
+            }
+            builder.offsets(offsets);
+
+            int configCount = readCount(in);
+            for (int i = 0; i < configCount; i++) {
+                builder.configs().put(
+                        readString(in),
+                        new ConfigValue(
+                                readEnum(in, CompatibilityLevel.class),
+                                in.readBoolean()));
+            }
+
+            int modeCount = readCount(in);
+            for (int i = 0; i < modeCount; i++) {
+                builder.modes().put(
+                        readString(in),
+                        new ModeValue(readEnum(in, Mode.class)));
+            }
+
+            int subjectCount = readCount(in);
+            for (int i = 0; i < subjectCount; i++) {
+                String subject = readString(in);
+                NavigableMap<Integer, SchemaValue> subjectSchemas = builder.getSubjectSchemasForUpdate(subject);
+                int versionCount = readCount(in);
+                for (int j = 0; j < versionCount; j++) {
+                    SchemaValue value = readSchemaValue(in);
+                    subjectSchemas.put(value.getVersion(), value);
+                }
+            }
+
+            int deleteSubjectCount = readCount(in);
+            for (int i = 0; i < deleteSubjectCount; i++) {
+                String subject = readString(in);
+                DeleteSubjectValue value = new DeleteSubjectValue();
+                value.setSubject(readString(in));
+                value.setVersion(readInteger(in));
+                value.setDeletedTimestamp(readLong(in));
+                builder.deleteSubjects().put(subject, value);
+            }
+
+            if (in.read() != -1) {
+                throw new IOException("Checkpoint payload has trailing bytes");
+            }
+
+            return builder.build();
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new IOException("Checkpoint payload is malformed", ex);
+        }
+    }
+
+    private static void writeSchemaValue(DataOutputStream out, SchemaValue value) throws IOException {
+        writeString(out, value.getSubject());
+        out.writeInt(value.getVersion());
+        writeInteger(out, value.getId());
+        writeString(out, value.getSchema());
+        out.writeBoolean(value.isDeleted());
+        writeLong(out, value.getCreatedTimestamp());
+        writeLong(out, value.getDeletedTimestamp());
+    }
+
+    private static SchemaValue readSchemaValue(DataInputStream in) throws IOException {
+        SchemaValue value = new SchemaValue();
+        value.setSubject(readString(in));
+        value.setVersion(in.readInt());
+        value.setId(readInteger(in));
+        value.setSchema(readString(in));
+        value.setDeleted(in.readBoolean());
+        value.setCreatedTimestamp(readLong(in));
+        value.setDeletedTimestamp(readLong(in));
+        return value;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException(String.format("Checkpoint count %d is invalid", count));
+        }
+        return count;
+    }
+
+    // DataOutput#writeUTF() is limited to 64K, which is not enough for schemas
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException(String.format("Checkpoint string length %d is invalid", length));
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeString(out, value != null ? value.name() : null);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+        String name = readString(in);
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+}
@@ -15,6 +15,10 @@
  */
 package com.epam.eco.schemacatalog.store.schema.kafka;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +32,8 @@ public class SchemaRegistryDecoder implements KeyValueDecoder<Key, Value> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(SchemaRegistryDecoder.class);
 
+    private final Map<Integer, Long> consumedOffsets = new ConcurrentHashMap<>();
+
     @Override
     public Key decodeKey(byte[] keyBytes) {
         try {
@@ -45,6 +51,7 @@ public class SchemaRegistryDecoder implements KeyValueDecoder<Key, Value> {
 
     @Override
     public Value decodeRecord(ConsumerRecord<byte[], byte[]> consumerRecord) {
+        consumedOffsets.put(consumerRecord.partition(), consumerRecord.offset() + 1);
         try {
             return SchemaRegistrySerde.deserializeValue(decodeKey(consumerRecord.key()), consumerRecord);
         } catch (SchemaRegistrySerdeException srse) {
@@ -53,4 +60,11 @@ public class SchemaRegistryDecoder implements KeyValueDecoder<Key, Value> {
         }
     }
 
+    /**
+     * Returns offsets (by partition) of the next records to decode.
+     */
+    public Map<Integer, Long> getConsumedOffsets() {
+        return new HashMap<>(consumedOffsets);
+    }
+
 }
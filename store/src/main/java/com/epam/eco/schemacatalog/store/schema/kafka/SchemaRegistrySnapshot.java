@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.schema.kafka;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable, consistent view of the {@code _schemas} projection. New versions are
+ * produced through {@link #toBuilder()}, which copies only the top-level maps and the
+ * schema maps of the subjects actually touched, so unchanged subjects are shared
+ * between consecutive snapshots.
+ *
+ * @author Andrei_Tytsik
+ */
+final class SchemaRegistrySnapshot {
+
+    static final SchemaRegistrySnapshot EMPTY = new SchemaRegistrySnapshot(
+            Collections.emptyMap(),
+            Collections.emptyMap(),
+            Collections.emptyMap(),
+            Collections.emptyMap(),
+            Collections.emptyMap());
+
+    private static final NavigableMap<Integer, SchemaValue> EMPTY_SCHEMAS =
+            Collections.unmodifiableNavigableMap(new TreeMap<>());
+
+    private final Map<String, ConfigValue> configs;
+    private final Map<String, ModeValue> modes;
+    private final Map<String, NavigableMap<Integer, SchemaValue>> schemas;
+    private final Map<String, DeleteSubjectValue> deleteSubjects;
+    private final Map<Integer, Long> offsets;
+
+    private SchemaRegistrySnapshot(
+            Map<String, ConfigValue> configs,
+            Map<String, ModeValue> modes,
+            Map<String, NavigableMap<Integer, SchemaValue>> schemas,
+            Map<String, DeleteSubjectValue> deleteSubjects,
+            Map<Integer, Long> offsets) {
+        this.configs = configs;
+        this.modes = modes;
+        this.schemas = schemas;
+        this.deleteSubjects = deleteSubjects;
+        this.offsets = offsets;
+    }
+
+    public Map<String, ConfigValue> getConfigs() {
+        return configs;
+    }
+
+    public Map<String, ModeValue> getModes() {
+        return modes;
+    }
+
+    public Map<String, NavigableMap<Integer, SchemaValue>> getSchemas() {
+        return schemas;
+    }
+
+    public Map<String, DeleteSubjectValue> getDeleteSubjects() {
+        return deleteSubjects;
+    }
+
+    /**
+     * Returns the offsets (by partition) of the next records to consume, i.e. the
+     * snapshot reflects all the records below them.
+     */
+    public Map<Integer, Long> getOffsets() {
+        return offsets;
+    }
+
+    public NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseEmpty(String subject) {
+        return schemas.getOrDefault(subject, EMPTY_SCHEMAS);
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    static final class Builder {
+
+        private final SchemaRegistrySnapshot origin;
+
+        private Map<String, ConfigValue> configs;
+        private Map<String, ModeValue> modes;
+        private Map<String, NavigableMap<Integer, SchemaValue>> schemas;
+        private Map<String, DeleteSubjectValue> deleteSubjects;
+        private Map<Integer, Long> offsets;
+
+        private final Set<String> copiedSubjects = new HashSet<>();
+
+        private Builder(SchemaRegistrySnapshot origin) {
+            this.origin = origin;
+            this.configs = origin.configs;
+            this.modes = origin.modes;
+            this.schemas = origin.schemas;
+            this.deleteSubjects = origin.deleteSubjects;
+            this.offsets = origin.offsets;
+        }
+
+        public Map<String, ConfigValue> configs() {
+            if (configs == origin.configs) {
+                configs = new HashMap<>(origin.configs);
+            }
+            return configs;
+        }
+
+        public Map<String, ModeValue> modes() {
+            if (modes == origin.modes) {
+                modes = new HashMap<>(origin.modes);
+            }
+            return modes;
+        }
+
+        public Map<String, DeleteSubjectValue> deleteSubjects() {
+            if (deleteSubjects == origin.deleteSubjects) {
+                deleteSubjects = new HashMap<>(origin.deleteSubjects);
+            }
+            return deleteSubjects;
+        }
+
+        /**
+         * Advances offsets of the given partitions, offsets of other partitions are kept.
+         */
+        public void offsets(Map<Integer, Long> consumedOffsets) {
+            Validate.notNull(consumedOffsets, "Map of offsets is null");
+
+            if (consumedOffsets.isEmpty()) {
+                return;
+            }
+
+            if (offsets == origin.offsets) {
+                offsets = new HashMap<>(origin.offsets);
+            }
+            offsets.putAll(consumedOffsets);
+        }
+
+        public Set<String> subjects() {
+            return Collections.unmodifiableSet(schemas.keySet());
+        }
+
+        public NavigableMap<Integer, SchemaValue> getSubjectSchemasOrElseEmpty(String subject) {
+            return schemas.getOrDefault(subject, EMPTY_SCHEMAS);
+        }
+
+        /**
+         * Returns a private, mutable copy of the subject schemas, creating it on first
+         * access within this builder.
+         */
+        public NavigableMap<Integer, SchemaValue> getSubjectSchemasForUpdate(String subject) {
+            Validate.notNull(subject, "Subject is null");
+
+            if (schemas == origin.schemas) {
+                schemas = new HashMap<>(origin.schemas);
+            }
+
+            if (copiedSubjects.add(subject)) {
+                NavigableMap<Integer, SchemaValue> existing = schemas.get(subject);
+                schemas.put(subject, existing != null ? new TreeMap<>(existing) : new TreeMap<>());
+            }
+            return schemas.get(subject);
+        }
+
+        /**
+         * Seals the accumulated changes into a new snapshot. The builder must not be used
+         * afterwards.
+         */
+        public SchemaRegistrySnapshot build() {
+            if (!copiedSubjects.isEmpty()) {
+                for (String subject : copiedSubjects) {
+                    schemas.put(
+                            subject,
+                            Collections.unmodifiableNavigableMap(schemas.get(subject)));
+                }
+                copiedSubjects.clear();
+            }
+
+            return new SchemaRegistrySnapshot(
+                    configs == origin.configs ? configs : Collections.unmodifiableMap(configs),
+                    modes == origin.modes ? modes : Collections.unmodifiableMap(modes),
+                    schemas == origin.schemas ? schemas : Collections.unmodifiableMap(schemas),
+                    deleteSubjects == origin.deleteSubjects ?
+                            deleteSubjects : Collections.unmodifiableMap(deleteSubjects),
+                    offsets == origin.offsets ? offsets : Collections.unmodifiableMap(offsets));
+        }
+
+    }
+
+}
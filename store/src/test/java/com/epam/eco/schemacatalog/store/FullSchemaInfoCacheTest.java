@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.epam.eco.schemacatalog.domain.schema.FullSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.Mode;
+import com.epam.eco.schemacatalog.domain.schema.SubjectAndVersion;
+import com.epam.eco.schemacatalog.store.schema.SchemaEntity;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class FullSchemaInfoCacheTest {
+
+    private final AtomicInteger materializations = new AtomicInteger();
+
+    private final Function<SchemaEntity, FullSchemaInfo> materializer = entity -> {
+        materializations.incrementAndGet();
+        return FullSchemaInfo.builder().
+                subject(entity.getSubject()).
+                version(entity.getVersion()).
+                schemaRegistryId(entity.getId()).
+                schemaJson(entity.getSchema()).
+                compatibilityLevel(entity.getCompatibilityLevel()).
+                mode(entity.getMode()).
+                versionLatest(entity.isVersionLatest()).
+                build();
+    };
+
+    @Test
+    void testMaterializedOnceForEqualEntities() {
+        FullSchemaInfoCache cache = new FullSchemaInfoCache(10);
+
+        FullSchemaInfo first = cache.get(schemaEntity("s", 1, true), materializer);
+        FullSchemaInfo second = cache.get(schemaEntity("s", 1, true), materializer);
+
+        assertSame(first, second);
+        assertEquals(1, materializations.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void testRematerializedWhenEntityChanged() {
+        FullSchemaInfoCache cache = new FullSchemaInfoCache(10);
+
+        FullSchemaInfo latest = cache.get(schemaEntity("s", 1, true), materializer);
+        FullSchemaInfo notLatest = cache.get(schemaEntity("s", 1, false), materializer);
+
+        assertNotSame(latest, notLatest);
+        assertEquals(2, materializations.get());
+        assertFalse(notLatest.isVersionLatest());
+    }
+
+    @Test
+    void testRematerializedAfterInvalidation() {
+        FullSchemaInfoCache cache = new FullSchemaInfoCache(10);
+
+        cache.get(schemaEntity("s", 1, true), materializer);
+        cache.invalidate(Collections.singletonList(SubjectAndVersion.with("s", 1, 123L)));
+        cache.get(schemaEntity("s", 1, true), materializer);
+
+        assertEquals(2, materializations.get());
+    }
+
+    private static SchemaEntity schemaEntity(String subject, int version, boolean versionLatest) {
+        SchemaEntity entity = new SchemaEntity();
+        entity.setId(version);
+        entity.setSubject(subject);
+        entity.setVersion(version);
+        entity.setCompatibilityLevel(CompatibilityLevel.BACKWARD);
+        entity.setMode(Mode.READWRITE);
+        entity.setSchema("\"string\"");
+        entity.setVersionLatest(versionLatest);
+        return entity;
+    }
+
+}
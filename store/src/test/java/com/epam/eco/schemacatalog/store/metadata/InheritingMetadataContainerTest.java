@@ -627,4 +627,110 @@ class InheritingMetadataContainerTest {
         assertEquals(byVersion7.get(key7), value7);
     }
 
+    @Test
+    void testGetAll() {
+        MetadataKey key1 = new FieldMetadataKey("s", 1, "sfn", "f1");
+        MetadataKey key4 = new FieldMetadataKey("s", 4, "sfn", "f2");
+        MetadataKey key7 = new SchemaMetadataKey("s", 7);
+
+        MetadataValue value = MetadataValue.builder().
+                doc("doc").
+                attributes(null).
+                updatedAt(new Date()).
+                updatedBy("me").
+                build();
+
+        InheritingMetadataContainer container = new InheritingMetadataContainer("s");
+        container.put(key1, value);
+        container.put(key4, value);
+        container.put(key7, value);
+
+        Map<MetadataKey, MetadataValue> all = container.getAll();
+        assertEquals(3, all.size());
+        assertEquals(value, all.get(key1));
+        assertEquals(value, all.get(key4));
+        assertEquals(value, all.get(key7));
+
+        container.remove(key4);
+
+        all = container.getAll();
+        assertEquals(2, all.size());
+        assertNull(all.get(key4));
+    }
+
+    @Test
+    void testRemoveOfAncestorWhenEqualValueIsPutToDescendant() {
+        MetadataKey key1 = new FieldMetadataKey("s", 1, "sfn", "f1");
+        MetadataKey key4 = new FieldMetadataKey("s", 4, "sfn", "f1");
+
+        MetadataValue value = MetadataValue.builder().
+                doc("doc").
+                attributes(null).
+                updatedAt(new Date()).
+                updatedBy("me").
+                build();
+
+        InheritingMetadataContainer container = new InheritingMetadataContainer("s");
+        container.put(key1, value);
+        container.put(key4, value);
+
+        Map<MetadataKey, MetadataValue> byVersion6 = container.getCollection(6);
+        assertEquals(1, byVersion6.size());
+        assertEquals(value, byVersion6.get(key4));
+
+        container.remove(key4);
+
+        byVersion6 = container.getCollection(6);
+        assertEquals(1, byVersion6.size());
+        assertEquals(value, byVersion6.get(key1));
+
+        container.put(key4, value);
+        container.remove(key1);
+
+        assertNull(container.getCollection(2));
+        byVersion6 = container.getCollection(6);
+        assertEquals(1, byVersion6.size());
+        assertEquals(value, byVersion6.get(key4));
+    }
+
+    @Test
+    void testCollectionIsNotAffectedByFurtherChanges() {
+        MetadataKey key1 = new FieldMetadataKey("s", 1, "sfn", "f1");
+        MetadataKey key3 = new FieldMetadataKey("s", 3, "sfn", "f1");
+        MetadataKey key4 = new SchemaMetadataKey("s", 4);
+
+        MetadataValue value1 = MetadataValue.builder().
+                doc("doc1").
+                attributes(null).
+                updatedAt(new Date()).
+                updatedBy("me").
+                build();
+        MetadataValue value3 = MetadataValue.builder().
+                doc("doc3").
+                attributes(null).
+                updatedAt(new Date()).
+                updatedBy("me").
+                build();
+
+        InheritingMetadataContainer container = new InheritingMetadataContainer("s");
+        container.put(key1, value1);
+        container.put(key4, value1);
+
+        Map<MetadataKey, MetadataValue> byVersion5 = container.getCollection(5);
+
+        container.put(key3, value3);
+        container.remove(key4);
+        container.put(key1, value3);
+
+        assertEquals(2, byVersion5.size());
+        assertEquals(value1, byVersion5.get(key1));
+        assertEquals(value1, byVersion5.get(key4));
+        assertNull(byVersion5.get(key3));
+
+        byVersion5 = container.getCollection(5);
+        assertEquals(1, byVersion5.size());
+        assertEquals(value3, byVersion5.get(key3));
+        assertNull(byVersion5.get(key1));
+    }
+
 }
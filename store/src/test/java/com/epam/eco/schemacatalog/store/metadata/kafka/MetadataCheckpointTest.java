@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.metadata.kafka;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.epam.eco.schemacatalog.domain.metadata.FieldMetadataKey;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataKey;
+import com.epam.eco.schemacatalog.domain.metadata.MetadataValue;
+import com.epam.eco.schemacatalog.domain.metadata.SchemaMetadataKey;
+import com.epam.eco.schemacatalog.store.metadata.InheritingMetadataContainer;
+import com.epam.eco.schemacatalog.store.metadata.MetadataContainer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class MetadataCheckpointTest {
+
+    private static final String SOURCE = "localhost:9092/__schemas_metadata";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEntriesAreRestored() throws Exception {
+        Map<String, Map<MetadataKey, MetadataValue>> entries = createEntries();
+        Path path = tempDir.resolve("__schemas_metadata.checkpoint");
+
+        MetadataCheckpoint.write(path, SOURCE, Collections.singletonMap(0, 42L), entries);
+
+        Map<MetadataKey, MetadataValue> restored = new HashMap<>();
+        Map<Integer, Long> offsets = MetadataCheckpoint.read(path, SOURCE, restored::put);
+
+        Map<MetadataKey, MetadataValue> expected = new HashMap<>();
+        entries.values().forEach(expected::putAll);
+
+        assertEquals(Collections.singletonMap(0, 42L), offsets);
+        assertEquals(expected, restored);
+        assertEquals(4, restored.size());
+    }
+
+    @Test
+    void testCorruptedCheckpointIsRejected() throws Exception {
+        Path path = tempDir.resolve("__schemas_metadata.checkpoint");
+        MetadataCheckpoint.write(path, SOURCE, Collections.singletonMap(0, 42L), createEntries());
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 10] ^= 0xFF;
+        Files.write(path, bytes);
+
+        IOException ioe = assertThrows(
+                IOException.class,
+                () -> MetadataCheckpoint.read(path, SOURCE, (key, value) -> {}));
+        assertTrue(ioe.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testTruncatedCheckpointIsRejected() throws Exception {
+        Path path = tempDir.resolve("__schemas_metadata.checkpoint");
+        MetadataCheckpoint.write(path, SOURCE, Collections.singletonMap(0, 42L), createEntries());
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(
+                IOException.class,
+                () -> MetadataCheckpoint.read(path, SOURCE, (key, value) -> {}));
+    }
+
+    @Test
+    void testCheckpointOfAnotherSourceIsRejected() throws Exception {
+        Path path = tempDir.resolve("__schemas_metadata.checkpoint");
+        MetadataCheckpoint.write(path, SOURCE, Collections.singletonMap(0, 42L), createEntries());
+
+        assertThrows(
+                IOException.class,
+                () -> MetadataCheckpoint.read(
+                        path, "otherhost:9092/__schemas_metadata", (key, value) -> {}));
+    }
+
+    private static Map<String, Map<MetadataKey, MetadataValue>> createEntries() {
+        MetadataContainer container1 = new InheritingMetadataContainer("s1");
+        container1.put(
+                SchemaMetadataKey.with("s1", 1),
+                MetadataValue.builder().
+                        doc("schema doc {@link x|http://x}").
+                        attribute("links", Collections.singletonList("http://x")).
+                        updatedAt(new Date(1000)).
+                        updatedBy("me").
+                        build());
+        container1.put(
+                FieldMetadataKey.with("s1", 1, "a.b.C", "f1"),
+                MetadataValue.builder().
+                        doc("field doc").
+                        updatedAt(new Date(2000)).
+                        updatedBy("me").
+                        build());
+        container1.put(
+                FieldMetadataKey.with("s1", 3, "a.b.C", "f1"),
+                MetadataValue.builder().
+                        doc("field doc v3").
+                        build());
+
+        MetadataContainer container2 = new InheritingMetadataContainer("s2");
+        container2.put(
+                SchemaMetadataKey.with("s2", 0),
+                MetadataValue.builder().
+                        doc(null).
+                        updatedBy("you").
+                        build());
+
+        Map<String, Map<MetadataKey, MetadataValue>> entries = new LinkedHashMap<>();
+        for (MetadataContainer container : Arrays.asList(container1, container2)) {
+            entries.put(container.getSubject(), container.getAll());
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.schema.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.epam.eco.schemacatalog.client.ExtendedSchemaRegistryClient;
+import com.epam.eco.schemacatalog.domain.schema.BasicSchemaInfo;
+import com.epam.eco.schemacatalog.domain.schema.Mode;
+import com.epam.eco.schemacatalog.store.schema.SchemaEntity;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class KafkaSchemaRegistryStoreTest {
+
+    private static final String SUBJECT = "subject";
+
+    private final ExtendedSchemaRegistryClient schemaRegistryClient = mock(ExtendedSchemaRegistryClient.class);
+
+    private final KafkaSchemaRegistryStore store = new KafkaSchemaRegistryStore();
+
+    private final List<Thread> consumers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "schemaRegistryClient", schemaRegistryClient);
+
+        Map<Key, Value> update = new HashMap<>();
+        update.put(new ConfigKey(null), new ConfigValue(CompatibilityLevel.BACKWARD, true));
+        update.put(new ModeKey(null), new ModeValue(Mode.READWRITE));
+        store.onCacheUpdated(update);
+    }
+
+    @Test
+    void testRegisteredSchemaIsReadBackAtOnce() throws Exception {
+        for (int version = 1; version <= 20; version++) {
+            ParsedSchema schema = new AvroSchema(
+                    String.format("{\"type\":\"record\",\"name\":\"r%d\",\"fields\":[]}", version));
+            mockRegistration(schema, version);
+
+            int registered = store.registerSchema(SUBJECT, schema);
+
+            SchemaEntity schemaEntity = store.getSchema(SUBJECT, registered);
+            assertEquals(version, schemaEntity.getVersion());
+            assertEquals(schema.canonicalString(), schemaEntity.getSchema());
+            assertEquals(version, store.getLatestSchema(SUBJECT).getVersion());
+        }
+
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+    }
+
+    /**
+     * Registration is answered by a "consumer" thread delivering the record along with
+     * a bulk of unrelated ones, so the new snapshot takes a while to build.
+     */
+    private void mockRegistration(ParsedSchema schema, int version) {
+        when(schemaRegistryClient.registerUnchecked(eq(SUBJECT), any(ParsedSchema.class))).
+                thenAnswer(invocation -> {
+                    Map<Key, Value> update = new LinkedHashMap<>();
+                    update.put(
+                            new SchemaKey(SUBJECT, version),
+                            schemaValue(SUBJECT, version, schema.canonicalString()));
+                    for (int i = 0; i < 5_000; i++) {
+                        String subject = "other-" + i;
+                        update.put(new SchemaKey(subject, version), schemaValue(subject, version, "\"string\""));
+                    }
+                    Thread consumer = new Thread(() -> store.onCacheUpdated(update));
+                    consumer.start();
+                    consumers.add(consumer);
+                    return version;
+                });
+        when(schemaRegistryClient.getVersionUnchecked(eq(SUBJECT), any(ParsedSchema.class))).
+                thenReturn(version);
+        when(schemaRegistryClient.getSchemaInfo(SUBJECT, version)).
+                thenReturn(BasicSchemaInfo.builder().
+                        subject(SUBJECT).
+                        version(version).
+                        schemaRegistryId(version).
+                        schemaJson(schema.canonicalString()).
+                        build());
+    }
+
+    private static SchemaValue schemaValue(String subject, int version, String schema) {
+        SchemaValue value = new SchemaValue();
+        value.setSubject(subject);
+        value.setVersion(version);
+        value.setId(version);
+        value.setSchema(schema);
+        value.setCreatedTimestamp(System.currentTimeMillis());
+        return value;
+    }
+
+}
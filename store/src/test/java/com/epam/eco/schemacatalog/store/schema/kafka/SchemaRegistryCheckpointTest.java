@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.schema.kafka;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.epam.eco.schemacatalog.domain.schema.Mode;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaRegistryCheckpointTest {
+
+    private static final String SOURCE = "localhost:9092/_schemas";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSnapshotIsRestored() throws Exception {
+        SchemaRegistrySnapshot snapshot = createSnapshot();
+        Path path = tempDir.resolve("_schemas.checkpoint");
+
+        SchemaRegistryCheckpoint.write(path, SOURCE, snapshot);
+        SchemaRegistrySnapshot restored = SchemaRegistryCheckpoint.read(path, SOURCE);
+
+        assertEquals(snapshot.getOffsets(), restored.getOffsets());
+        assertEquals(snapshot.getConfigs(), restored.getConfigs());
+        assertEquals(snapshot.getModes(), restored.getModes());
+        assertEquals(snapshot.getSchemas(), restored.getSchemas());
+        assertEquals(snapshot.getDeleteSubjects(), restored.getDeleteSubjects());
+        assertNull(restored.getSubjectSchemasOrElseEmpty("s1").get(1).getDeletedTimestamp());
+    }
+
+    @Test
+    void testCheckpointIsOverwritten() throws Exception {
+        Path path = tempDir.resolve("_schemas.checkpoint");
+
+        SchemaRegistryCheckpoint.write(path, SOURCE, SchemaRegistrySnapshot.EMPTY);
+        SchemaRegistryCheckpoint.write(path, SOURCE, createSnapshot());
+
+        assertEquals(2, SchemaRegistryCheckpoint.read(path, SOURCE).getSchemas().size());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testCorruptedCheckpointIsRejected() throws Exception {
+        Path path = tempDir.resolve("_schemas.checkpoint");
+        SchemaRegistryCheckpoint.write(path, SOURCE, createSnapshot());
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 10] ^= 0xFF;
+        Files.write(path, bytes);
+
+        IOException ioe = assertThrows(IOException.class, () -> SchemaRegistryCheckpoint.read(path, SOURCE));
+        assertTrue(ioe.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testTruncatedCheckpointIsRejected() throws Exception {
+        Path path = tempDir.resolve("_schemas.checkpoint");
+        SchemaRegistryCheckpoint.write(path, SOURCE, createSnapshot());
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> SchemaRegistryCheckpoint.read(path, SOURCE));
+    }
+
+    @Test
+    void testCheckpointOfAnotherSourceIsRejected() throws Exception {
+        Path path = tempDir.resolve("_schemas.checkpoint");
+        SchemaRegistryCheckpoint.write(path, SOURCE, createSnapshot());
+
+        assertThrows(
+                IOException.class,
+                () -> SchemaRegistryCheckpoint.read(path, "otherhost:9092/_schemas"));
+    }
+
+    private static SchemaRegistrySnapshot createSnapshot() {
+        SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+        builder.offsets(Collections.singletonMap(0, 42L));
+        builder.configs().put(null, new ConfigValue(CompatibilityLevel.BACKWARD, true));
+        builder.configs().put("s1", new ConfigValue(CompatibilityLevel.NONE, false));
+        builder.modes().put(null, new ModeValue(Mode.READWRITE));
+        builder.getSubjectSchemasForUpdate("s1").put(1, schemaValue("s1", 1, false));
+        builder.getSubjectSchemasForUpdate("s1").put(2, schemaValue("s1", 2, false));
+        builder.getSubjectSchemasForUpdate("s2").put(1, schemaValue("s2", 1, true));
+
+        DeleteSubjectValue deleteSubject = new DeleteSubjectValue();
+        deleteSubject.setSubject("s2");
+        deleteSubject.setVersion(1);
+        deleteSubject.setDeletedTimestamp(200L);
+        builder.deleteSubjects().put("s2", deleteSubject);
+        return builder.build();
+    }
+
+    private static SchemaValue schemaValue(String subject, int version, boolean deleted) {
+        SchemaValue value = new SchemaValue();
+        value.setSubject(subject);
+        value.setVersion(version);
+        value.setId(version);
+        value.setSchema("{\"type\":\"record\",\"name\":\"Test\",\"fields\":[]}");
+        value.setDeleted(deleted);
+        value.setCreatedTimestamp(100L);
+        value.setDeletedTimestamp(deleted ? 200L : null);
+        return value;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.epam.eco.schemacatalog.store.schema.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Andrei_Tytsik
+ */
+class SchemaRegistrySnapshotTest {
+
+    @Test
+    void testBuilderDoesNotAffectOrigin() {
+        SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+        builder.getSubjectSchemasForUpdate("s1").put(1, schemaValue("s1", 1));
+        builder.configs().put(null, new ConfigValue(CompatibilityLevel.BACKWARD, true));
+        SchemaRegistrySnapshot first = builder.build();
+
+        builder = first.toBuilder();
+        builder.getSubjectSchemasForUpdate("s1").put(2, schemaValue("s1", 2));
+        builder.getSubjectSchemasForUpdate("s2").put(1, schemaValue("s2", 1));
+        SchemaRegistrySnapshot second = builder.build();
+
+        assertTrue(SchemaRegistrySnapshot.EMPTY.getSchemas().isEmpty());
+        assertEquals(1, first.getSchemas().size());
+        assertEquals(1, first.getSubjectSchemasOrElseEmpty("s1").size());
+        assertFalse(first.getSchemas().containsKey("s2"));
+
+        assertEquals(2, second.getSchemas().size());
+        assertEquals(2, second.getSubjectSchemasOrElseEmpty("s1").size());
+        assertSame(first.getConfigs(), second.getConfigs());
+    }
+
+    @Test
+    void testUntouchedSubjectsAreShared() {
+        SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+        builder.getSubjectSchemasForUpdate("s1").put(1, schemaValue("s1", 1));
+        builder.getSubjectSchemasForUpdate("s2").put(1, schemaValue("s2", 1));
+        SchemaRegistrySnapshot first = builder.build();
+
+        builder = first.toBuilder();
+        builder.getSubjectSchemasForUpdate("s2").put(2, schemaValue("s2", 2));
+        SchemaRegistrySnapshot second = builder.build();
+
+        assertSame(
+                first.getSubjectSchemasOrElseEmpty("s1"),
+                second.getSubjectSchemasOrElseEmpty("s1"));
+        assertEquals(1, first.getSubjectSchemasOrElseEmpty("s2").size());
+        assertEquals(2, second.getSubjectSchemasOrElseEmpty("s2").size());
+    }
+
+    @Test
+    void testSnapshotIsUnmodifiable() {
+        SchemaRegistrySnapshot.Builder builder = SchemaRegistrySnapshot.EMPTY.toBuilder();
+        builder.getSubjectSchemasForUpdate("s1").put(1, schemaValue("s1", 1));
+        SchemaRegistrySnapshot snapshot = builder.build();
+
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> snapshot.getSubjectSchemasOrElseEmpty("s1").put(2, schemaValue("s1", 2)));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> snapshot.getSchemas().remove("s1"));
+    }
+
+    private static SchemaValue schemaValue(String subject, int version) {
+        SchemaValue value = new SchemaValue();
+        value.setSubject(subject);
+        value.setVersion(version);
+        value.setId(version);
+        value.setSchema("\"string\"");
+        value.setCreatedTimestamp(System.currentTimeMillis());
+        return value;
+    }
+
+}